@@ -0,0 +1,63 @@
+package com.smartbear.ready.plugin.jira.actions;
+
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.smartbear.ready.plugin.jira.impl.AllowedValueOptions;
+import com.smartbear.ready.plugin.jira.impl.JiraFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the options of combo boxes from large allowed value sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllowedValuesBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int optionCount;
+
+    private Iterable<Object> allowedValues;
+    private AllowedValueOptions indexedOptions;
+
+    @Setup
+    public void setUp() throws Exception {
+        CimFieldInfo fieldInfo = JiraFixtures.fields(1, optionCount).get(JiraFixtures.getOptionFieldId(0));
+        allowedValues = fieldInfo.getAllowedValues();
+        indexedOptions = new AllowedValueOptions(allowedValues);
+        indexedOptions.search("option", 1, false);
+    }
+
+    @Benchmark
+    public Object[] iterableObjectsToNameArray() {
+        return CreateNewBugAction.IterableObjectsToNameArray(null, allowedValues);
+    }
+
+    @Benchmark
+    public Object[] iterableObjectsToNameArrayAddEmptyValue() {
+        return CreateNewBugAction.IterableObjectsToNameArrayAddEmptyValue(null, "Select 0", allowedValues);
+    }
+
+    @Benchmark
+    public Object[] firstOptions() {
+        return new AllowedValueOptions(allowedValues).getFirstOptions(CreateNewBugAction.SHOWN_OPTIONS_LIMIT, true);
+    }
+
+    @Benchmark
+    public Object[] typeAheadSearch() {
+        return indexedOptions.search("option 12", CreateNewBugAction.SHOWN_OPTIONS_LIMIT, false);
+    }
+}
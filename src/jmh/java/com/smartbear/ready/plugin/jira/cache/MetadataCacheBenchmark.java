@@ -0,0 +1,129 @@
+package com.smartbear.ready.plugin.jira.cache;
+
+import com.atlassian.util.concurrent.Promise;
+import com.atlassian.util.concurrent.Promises;
+import com.smartbear.ready.plugin.jira.impl.JiraFixtures;
+import com.smartbear.ready.plugin.jira.impl.ProjectIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of cached metadata: the in-memory caches, the persistent store and the project index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataCacheBenchmark {
+    private static final int CACHED_KEYS = 1000;
+    private static final int STORED_JSON_CHARACTERS = 1024 * 1024;
+
+    private final SingleFlightCache<String, String> cache = new SingleFlightCache<>("benchmark");
+    private final SingleFlightCache.Loader<String, String> loader = new SingleFlightCache.Loader<String, String>() {
+        @Override
+        public Promise<String> load(String key) {
+            return Promises.promise(key);
+        }
+    };
+    private final SingleFlightCache.BulkLoader<String, String> bulkLoader = new SingleFlightCache.BulkLoader<String, String>() {
+        @Override
+        public Promise<Map<String, String>> loadAll(Collection<String> keys) {
+            throw new IllegalStateException("All keys are cached");
+        }
+    };
+    private final List<String> bulkKeys = new ArrayList<>();
+    private File storeRoot;
+    private PersistentMetadataStore metadataStore;
+    private ProjectIndex projectIndex;
+    private int lookup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        for (int i = 0; i < CACHED_KEYS; i++) {
+            cache.put("PROJECT-" + i, "value " + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            bulkKeys.add("PROJECT-" + i * 10);
+        }
+
+        storeRoot = Files.createTempDirectory("jira-benchmark-store").toFile();
+        metadataStore = new PersistentMetadataStore(storeRoot, "http://jira.example.com", "benchmark");
+        StringBuilder json = new StringBuilder("[");
+        while (json.length() < STORED_JSON_CHARACTERS) {
+            json.append("{\"self\":\"http://jira.example.com/rest/api/2/project/10000\",\"key\":\"BENCH\",\"name\":\"Benchmark\"},");
+        }
+        json.setCharAt(json.length() - 1, ']');
+        metadataStore.write(MetadataType.PROJECTS, null, json.toString());
+
+        projectIndex = ProjectIndex.build(JiraFixtures.projects(4000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        metadataStore.remove(MetadataType.PROJECTS, null);
+        Files.walkFileTree(storeRoot.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException error) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Benchmark
+    public String cachedGet() {
+        return cache.get("PROJECT-" + (lookup++ % CACHED_KEYS), loader).claim();
+    }
+
+    @Benchmark
+    public Map<String, Promise<String>> cachedGetAll() {
+        return cache.getAll(bulkKeys, bulkLoader);
+    }
+
+    @Benchmark
+    public String cachedGetIfPresent() {
+        return cache.getIfPresent("PROJECT-" + (lookup++ % CACHED_KEYS));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public StoredMetadata persistentStoreRead() {
+        return metadataStore.read(MetadataType.PROJECTS, null);
+    }
+
+    @Benchmark
+    public List<String> projectIndexSearch() {
+        return projectIndex.search((lookup++ % 2 == 0) ? "team 12" : "service", 50);
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.atlassian.jira.rest.client.api.domain.input.IssueInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning the values of the item dialog into JIRA input, the loop over the extra fields in createIssue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldMappingBenchmark {
+    private static final String PROJECT_KEY = "BENCH";
+
+    @Param({"5", "50"})
+    public int customFieldCount;
+
+    private JiraApiCallResult<JiraProvider.IssueMetadata> issueMetadata;
+    private Map<String, String> extraValues;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<String, Map<String, CimFieldInfo>> issueTypeFields = new HashMap<>();
+        issueTypeFields.put(JiraFixtures.ISSUE_TYPE, JiraFixtures.fields(customFieldCount, 20));
+        issueMetadata = new JiraApiCallResult<>(new JiraProvider.IssueMetadata(JiraFixtures.project(PROJECT_KEY, 30),
+                JiraFixtures.priorities(5), issueTypeFields));
+
+        extraValues = new HashMap<>();
+        extraValues.put("priority", "Priority 3");
+        extraValues.put("components", "Backend");
+        extraValues.put("versions", "1.0");
+        extraValues.put("fixVersions", "1.1");
+        extraValues.put("assignee", "developer");
+        for (int i = 0; i < customFieldCount; i++) {
+            extraValues.put(JiraFixtures.getOptionFieldId(i), "Option " + i);
+            extraValues.put(JiraFixtures.getTextFieldId(i), "Text value " + i);
+        }
+    }
+
+    @Benchmark
+    public JiraApiCallResult<IssueInput> buildIssueInput() {
+        return JiraProvider.buildIssueInput(PROJECT_KEY, JiraFixtures.ISSUE_TYPE, "Failed test case", "Failure details",
+                extraValues, issueMetadata);
+    }
+}
@@ -0,0 +1,147 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.domain.BasicProject;
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.atlassian.jira.rest.client.api.domain.Priority;
+import com.atlassian.jira.rest.client.api.domain.Project;
+import com.atlassian.jira.rest.client.internal.json.BasicProjectJsonParser;
+import com.atlassian.jira.rest.client.internal.json.CimFieldsInfoMapJsonParser;
+import com.atlassian.jira.rest.client.internal.json.GenericJsonArrayParser;
+import com.atlassian.jira.rest.client.internal.json.PriorityJsonParser;
+import com.atlassian.jira.rest.client.internal.json.ProjectJsonParser;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JIRA metadata for the benchmarks, built from the same JSON the REST API returns,
+ * so the objects are exactly what the JRJC parsers give the plugin.
+ */
+public class JiraFixtures {
+    public static final String BASE_URL = "http://jira.example.com/rest/api/2/";
+    public static final String ISSUE_TYPE = "Bug";
+
+    public static Project project(String projectKey, int issueTypeCount) throws JSONException {
+        JSONArray issueTypes = new JSONArray();
+        for (int i = 0; i < issueTypeCount; i++) {
+            issueTypes.put(new JSONObject()
+                    .put("self", BASE_URL + "issuetype/" + (i + 1))
+                    .put("id", String.valueOf(i + 1))
+                    .put("name", i == 0 ? ISSUE_TYPE : "Type " + i)
+                    .put("description", "Item type " + i)
+                    .put("subtask", false)
+                    .put("iconUrl", "http://jira.example.com/images/icons/issuetypes/bug.png"));
+        }
+        JSONObject lead = new JSONObject()
+                .put("self", BASE_URL + "user?username=lead")
+                .put("name", "lead")
+                .put("displayName", "Project Lead");
+        JSONObject project = new JSONObject()
+                .put("self", BASE_URL + "project/" + projectKey)
+                .put("id", "10000")
+                .put("key", projectKey)
+                .put("name", "Project " + projectKey)
+                .put("description", "Benchmark project")
+                .put("lead", lead)
+                .put("versions", new JSONArray())
+                .put("components", new JSONArray())
+                .put("issueTypes", issueTypes)
+                .put("roles", new JSONObject());
+        return new ProjectJsonParser().parse(project);
+    }
+
+    public static List<BasicProject> projects(int count) throws JSONException {
+        List<BasicProject> projects = new ArrayList<>(count);
+        BasicProjectJsonParser parser = new BasicProjectJsonParser();
+        for (int i = 0; i < count; i++) {
+            String key = "P" + Integer.toString(i, 36).toUpperCase();
+            projects.add(parser.parse(new JSONObject()
+                    .put("self", BASE_URL + "project/" + key)
+                    .put("id", String.valueOf(10000 + i))
+                    .put("key", key)
+                    .put("name", "Team " + i + " Service Project")));
+        }
+        return projects;
+    }
+
+    public static Iterable<Priority> priorities(int count) throws JSONException {
+        JSONArray priorities = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            priorities.put(new JSONObject()
+                    .put("self", BASE_URL + "priority/" + (i + 1))
+                    .put("id", String.valueOf(i + 1))
+                    .put("name", "Priority " + i)
+                    .put("statusColor", "#cc0000")
+                    .put("description", "Priority " + i)
+                    .put("iconUrl", "http://jira.example.com/images/icons/priorities/major.png"));
+        }
+        return GenericJsonArrayParser.create(new PriorityJsonParser()).parse(priorities);
+    }
+
+    /*
+    * Select list custom fields with the given number of options, followed by the same number of text fields.
+    * */
+    public static Map<String, CimFieldInfo> fields(int fieldCount, int optionCount) throws JSONException {
+        JSONObject fields = new JSONObject();
+        for (int i = 0; i < fieldCount; i++) {
+            fields.put(getOptionFieldId(i), new JSONObject()
+                    .put("required", i % 2 == 0)
+                    .put("schema", new JSONObject()
+                            .put("type", "option")
+                            .put("custom", "com.atlassian.jira.plugin.system.customfieldtypes:select")
+                            .put("customId", 10000 + i))
+                    .put("name", "Select " + i)
+                    .put("operations", new JSONArray().put("set"))
+                    .put("allowedValues", options(i, optionCount)));
+            fields.put(getTextFieldId(i), new JSONObject()
+                    .put("required", false)
+                    .put("schema", new JSONObject()
+                            .put("type", "string")
+                            .put("custom", "com.atlassian.jira.plugin.system.customfieldtypes:textfield")
+                            .put("customId", 20000 + i))
+                    .put("name", "Text " + i)
+                    .put("operations", new JSONArray().put("set")));
+        }
+        return new CimFieldsInfoMapJsonParser().parse(fields);
+    }
+
+    private static JSONArray options(int fieldIndex, int optionCount) throws JSONException {
+        JSONArray options = new JSONArray();
+        for (int i = 0; i < optionCount; i++) {
+            String id = String.valueOf(fieldIndex * 100000 + i);
+            options.put(new JSONObject()
+                    .put("self", BASE_URL + "customFieldOption/" + id)
+                    .put("id", id)
+                    .put("value", "Option " + i));
+        }
+        return options;
+    }
+
+    public static String getOptionFieldId(int index) {
+        return "customfield_" + (10000 + index);
+    }
+
+    public static String getTextFieldId(int index) {
+        return "customfield_" + (20000 + index);
+    }
+
+    public static long drain(InputStream inputStream) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                total += read;
+            }
+        } finally {
+            inputStream.close();
+        }
+        return total;
+    }
+}
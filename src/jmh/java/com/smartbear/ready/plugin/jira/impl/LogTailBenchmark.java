@@ -0,0 +1,71 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the attached log through LogTailExtractor, with and without a byte budget and compression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogTailBenchmark {
+    @Param({"64"})
+    public int logMegabytes;
+
+    @Param({"0", "5242880"})
+    public long byteBudget;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private File logFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = File.createTempFile("jira-benchmark", ".log");
+        long size = logMegabytes * 1024L * 1024L;
+        try (BufferedWriter writer = Files.newBufferedWriter(logFile.toPath(), StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (int line = 0; written < size; line++) {
+                String logLine = String.format("2015-03-16 12:00:%02d,%03d INFO  [SoapUIProTestCaseRunner] Running step %d of test case %d%n",
+                        line % 60, line % 1000, line % 17, line);
+                writer.write(logLine);
+                written += logLine.length();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!logFile.delete()) {
+            logFile.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public long readLogTail() throws IOException {
+        return JiraFixtures.drain(new LogTailExtractor(logFile, byteBudget).open(compressed));
+    }
+}
@@ -0,0 +1,66 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.eviware.soapui.config.ProjectConfig;
+import com.eviware.soapui.config.SoapuiProjectDocumentConfig;
+import com.eviware.soapui.config.TestCaseConfig;
+import com.eviware.soapui.config.TestStepConfig;
+import com.eviware.soapui.config.TestSuiteConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialising the project document into the attachment stream, as getRootProject does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectSerializationBenchmark {
+    @Param({"10", "100"})
+    public int testSuiteCount;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private ProjectConfig projectConfig;
+
+    @Setup
+    public void setUp() {
+        SoapuiProjectDocumentConfig projectDocument = SoapuiProjectDocumentConfig.Factory.newInstance();
+        projectConfig = projectDocument.addNewSoapuiProject();
+        projectConfig.setName("Benchmark project");
+        for (int suite = 0; suite < testSuiteCount; suite++) {
+            TestSuiteConfig testSuite = projectConfig.addNewTestSuite();
+            testSuite.setName("Test suite " + suite);
+            for (int testCase = 0; testCase < 20; testCase++) {
+                TestCaseConfig testCaseConfig = testSuite.addNewTestCase();
+                testCaseConfig.setName("Test case " + testCase);
+                for (int step = 0; step < 10; step++) {
+                    TestStepConfig testStep = testCaseConfig.addNewTestStep();
+                    testStep.setName("Step " + step);
+                    testStep.setType("groovy");
+                    testStep.setDescription("Checks the response of request " + step + " against the expected values of the data source");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public long serializeProject() throws IOException {
+        return JiraFixtures.drain(JiraProvider.openProjectStream(projectConfig, compressed));
+    }
+}
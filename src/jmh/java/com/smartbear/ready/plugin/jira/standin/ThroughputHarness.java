@@ -0,0 +1,256 @@
+package com.smartbear.ready.plugin.jira.standin;
+
+import com.smartbear.ready.plugin.jira.impl.IssueCreationResult;
+import com.smartbear.ready.plugin.jira.impl.JiraClientPool;
+import com.smartbear.ready.plugin.jira.impl.JiraHttpClientFactory;
+import com.smartbear.ready.plugin.jira.impl.JiraProvider;
+import com.smartbear.ready.plugin.jira.metrics.JiraMetrics;
+import com.smartbear.ready.plugin.jira.retry.RetryPolicy;
+import com.smartbear.ready.plugin.jira.retry.RetryingCaller;
+import com.smartbear.ready.plugin.jira.retry.TokenBucketRateLimiter;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many items per second the provider creates against the JIRA stand-in under concurrent load,
+ * and the latency percentiles of creating an item. Each worker creates items one after another, so the
+ * number of workers is the number of concurrent creates. Options are given as name=value arguments:
+ *
+ * mvn -P benchmarks test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.smartbear.ready.plugin.jira.standin.ThroughputHarness
+ *     -Dexec.args="workers=32 seconds=30 latency=20-80 errors=0.01 throttles=0.01 attach=true"
+ */
+public class ThroughputHarness {
+    private final int workers;
+    private final long durationMillis;
+    private final int projectCount;
+    private final boolean attach;
+    private final double requestsPerSecond;
+    private final JiraStandIn standIn;
+
+    public ThroughputHarness(Map<String, String> options, JiraStandIn standIn) {
+        this.workers = Integer.parseInt(getOption(options, "workers", "16"));
+        this.durationMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(getOption(options, "seconds", "20")));
+        this.projectCount = Integer.parseInt(getOption(options, "projects", "20"));
+        this.attach = Boolean.parseBoolean(getOption(options, "attach", "false"));
+        this.requestsPerSecond = Double.parseDouble(getOption(options, "rps", String.valueOf(TokenBucketRateLimiter.UNLIMITED)));
+        this.standIn = standIn;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        JiraStandIn standIn = new JiraStandIn(Integer.parseInt(getOption(options, "projects", "20")),
+                Integer.parseInt(getOption(options, "options", "100")));
+        String[] latency = getOption(options, "latency", "0").split("-");
+        standIn.setLatency(Long.parseLong(latency[0]), Long.parseLong(latency[latency.length - 1]));
+        standIn.setErrorRate(Double.parseDouble(getOption(options, "errors", "0")));
+        standIn.setThrottleRate(Double.parseDouble(getOption(options, "throttles", "0")), 1);
+        standIn.start();
+        try {
+            ClientResources before = ClientResources.snapshot();
+            System.out.println(new ThroughputHarness(options, standIn).run());
+            System.out.println(standIn.getStatistics());
+            System.out.println(JiraMetrics.getInstance().getSummary());
+            //the provider is closed by now, so its client threads and connections have to be gone
+            System.out.println("Before: " + before);
+            System.out.println("After close: " + ClientResources.snapshot());
+        } finally {
+            standIn.stop();
+        }
+    }
+
+    private static String getOption(Map<String, String> options, String name, String defaultValue) {
+        return options.containsKey(name) ? options.get(name) : defaultValue;
+    }
+
+    public Result run() throws Exception {
+        File metadataRoot = Files.createTempDirectory("jira-standin-metadata").toFile();
+        TokenBucketRateLimiter rateLimiter = requestsPerSecond > 0 ? new TokenBucketRateLimiter(requestsPerSecond, requestsPerSecond)
+                : TokenBucketRateLimiter.unlimited();
+        final JiraProvider provider = JiraProvider.forSettings(new BugTrackerSettings(standIn.getUrl(), JiraStandIn.LOGIN, JiraStandIn.PASSWORD),
+                new JiraHttpClientFactory(Math.max(workers * 2, 20), Math.max(workers * 2, 20), 10, 60, 30),
+                new RetryingCaller(RetryPolicy.defaultPolicy(), rateLimiter), metadataRoot);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            //the metadata is loaded once before the measurement, as the plugin does when the dialog is opened
+            List<String> projectKeys = new ArrayList<>();
+            for (int i = 0; i < projectCount; i++) {
+                projectKeys.add(JiraStandIn.getProjectKey(i));
+            }
+            provider.warmUp(projectKeys).claim();
+            createIssue(provider, JiraStandIn.getProjectKey(0), 0);
+
+            final long start = System.currentTimeMillis();
+            final long end = start + durationMillis;
+            List<Future<WorkerResult>> results = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                final int worker = i;
+                results.add(executor.submit(new Callable<WorkerResult>() {
+                    @Override
+                    public WorkerResult call() {
+                        WorkerResult result = new WorkerResult();
+                        for (int item = 0; System.currentTimeMillis() < end; item++) {
+                            long itemStart = System.nanoTime();
+                            boolean created = createIssue(provider, JiraStandIn.getProjectKey((worker + item) % projectCount), item);
+                            result.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - itemStart), created);
+                        }
+                        return result;
+                    }
+                }));
+            }
+            WorkerResult total = new WorkerResult();
+            for (Future<WorkerResult> result : results) {
+                total.addAll(result.get());
+            }
+            return new Result(workers, System.currentTimeMillis() - start, total);
+        } finally {
+            executor.shutdownNow();
+            provider.close();
+        }
+    }
+
+    private boolean createIssue(JiraProvider provider, String projectKey, int item) {
+        Map<String, String> extraValues = new HashMap<>();
+        extraValues.put("priority", "Major");
+        extraValues.put(JiraStandIn.SELECT_FIELD_ID, "Option " + item % 10);
+        extraValues.put(JiraStandIn.TEXT_FIELD_ID, "Build " + item);
+        String issueType = JiraStandIn.ISSUE_TYPES[item % JiraStandIn.ISSUE_TYPES.length];
+        String summary = "Load test item " + Thread.currentThread().getName() + " " + item;
+        IssueCreationResult result = provider.createIssueAsync(projectKey, issueType, summary, "Created by the throughput harness", extraValues).claim();
+        if (!result.getSuccess()) {
+            return false;
+        }
+        if (attach) {
+            byte[] log = ("Log of load test item " + item + "\n").getBytes(StandardCharsets.UTF_8);
+            return provider.attachFileAsync(provider.getAttachmentsUri(result.getIssue()), "soapui.log", new ByteArrayInputStream(log)).claim().getSuccess();
+        }
+        return true;
+    }
+
+    /*
+    * Threads of the HTTP client and open sockets of the process. Sockets are counted on Linux only,
+    * and include the connections on the stand-in's side.
+    * */
+    private static class ClientResources {
+        final int clientThreads;
+        final int sockets;
+        final long activeClients;
+        final int openClients;
+
+        ClientResources(int clientThreads, int sockets, long activeClients, int openClients) {
+            this.clientThreads = clientThreads;
+            this.sockets = sockets;
+            this.activeClients = activeClients;
+            this.openClients = openClients;
+        }
+
+        static ClientResources snapshot() {
+            int clientThreads = 0;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.isAlive() && (thread.getName().startsWith("jira-http") || thread.getName().startsWith("I/O dispatcher"))) {
+                    clientThreads++;
+                }
+            }
+            return new ClientResources(clientThreads, countSockets(), JiraHttpClientFactory.getActiveClients(),
+                    JiraClientPool.getInstance().getOpenClients());
+        }
+
+        private static int countSockets() {
+            File[] descriptors = new File("/proc/self/fd").listFiles();
+            if (descriptors == null) {
+                return -1;
+            }
+            int sockets = 0;
+            for (File descriptor : descriptors) {
+                try {
+                    if (Files.readSymbolicLink(descriptor.toPath()).toString().startsWith("socket:")) {
+                        sockets++;
+                    }
+                } catch (IOException e) {
+                    //closed meanwhile
+                }
+            }
+            return sockets;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d client threads, %d sockets, %d active clients, %d open pooled clients",
+                    clientThreads, sockets, activeClients, openClients);
+        }
+    }
+
+    private static class WorkerResult {
+        final List<Long> latenciesMicros = new ArrayList<>();
+        long failures;
+
+        void add(long latencyMicros, boolean success) {
+            latenciesMicros.add(latencyMicros);
+            if (!success) {
+                failures++;
+            }
+        }
+
+        void addAll(WorkerResult other) {
+            latenciesMicros.addAll(other.latenciesMicros);
+            failures += other.failures;
+        }
+    }
+
+    public static class Result {
+        private final int workers;
+        private final long elapsedMillis;
+        private final long items;
+        private final long failures;
+        private final List<Long> sortedLatenciesMicros;
+
+        Result(int workers, long elapsedMillis, WorkerResult total) {
+            this.workers = workers;
+            this.elapsedMillis = elapsedMillis;
+            this.items = total.latenciesMicros.size();
+            this.failures = total.failures;
+            this.sortedLatenciesMicros = new ArrayList<>(total.latenciesMicros);
+            Collections.sort(sortedLatenciesMicros);
+        }
+
+        public double getItemsPerSecond() {
+            return (items - failures) * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        public double getPercentileMillis(double fraction) {
+            if (sortedLatenciesMicros.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(fraction * sortedLatenciesMicros.size()) - 1;
+            return sortedLatenciesMicros.get(Math.max(0, Math.min(index, sortedLatenciesMicros.size() - 1))) / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d workers, %d items in %d ms (%d failed): %.1f items/s, p50 %.1f ms, p95 %.1f ms, p99 %.1f ms",
+                    workers, items, elapsedMillis, failures, getItemsPerSecond(),
+                    getPercentileMillis(0.5), getPercentileMillis(0.95), getPercentileMillis(0.99));
+        }
+    }
+}
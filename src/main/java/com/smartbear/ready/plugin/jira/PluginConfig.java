@@ -3,6 +3,15 @@ package com.smartbear.ready.plugin.jira;
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.plugins.PluginAdapter;
 import com.eviware.soapui.plugins.PluginConfiguration;
+import com.smartbear.ready.plugin.jira.factories.JiraPrefsFactory;
+import com.smartbear.ready.plugin.jira.headless.HeadlessIssueFiler;
+import com.smartbear.ready.plugin.jira.impl.JiraClientPool;
+import com.smartbear.ready.plugin.jira.impl.JiraProvider;
+import com.smartbear.ready.plugin.jira.impl.MetadataWarmUp;
+import com.smartbear.ready.plugin.jira.metrics.JiraMetrics;
+import com.smartbear.ready.plugin.jira.outbox.OutboxReplayer;
+
+import java.util.concurrent.TimeUnit;
 
 @PluginConfiguration(groupId = "com.smartbear.ready.plugins",
         name = "JIRA Integration Plugin", version = "1.0",
@@ -11,6 +20,25 @@ import com.eviware.soapui.plugins.PluginConfiguration;
 public class PluginConfig extends PluginAdapter {
     @Override
     public boolean isActive() {
-        return !SoapUI.isCommandLine();
+        return !SoapUI.isCommandLine() || HeadlessIssueFiler.isEnabled();
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        JiraMetrics.getInstance().register();
+        JiraClientPool.getInstance().setIdleTimeout(JiraPrefsFactory.getClientIdleShutdownSeconds(SoapUI.getSettings()), TimeUnit.SECONDS);
+        JiraProvider.setMetadataMemoryLimit(JiraPrefsFactory.getMetadataMemoryLimitBytes(SoapUI.getSettings()));
+        if (!SoapUI.isCommandLine()) {
+            //command-line runs file their items in a shutdown hook of their own, so they must not lose the client meanwhile
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    JiraClientPool.getInstance().closeAll();
+                }
+            }, "jira-client-shutdown"));
+            MetadataWarmUp.startIfEnabled();
+            OutboxReplayer.start();
+        }
     }
 }
@@ -0,0 +1,161 @@
+package com.smartbear.ready.plugin.jira.actions;
+
+import com.eviware.soapui.model.ModelItem;
+import com.eviware.soapui.model.testsuite.TestCase;
+import com.eviware.soapui.model.testsuite.TestSuite;
+import com.eviware.soapui.plugins.ActionConfiguration;
+import com.eviware.soapui.ready.LicenseCheckUtils;
+import com.eviware.soapui.support.StringUtils;
+import com.eviware.soapui.support.UISupport;
+import com.eviware.soapui.support.types.StringToStringMap;
+import com.eviware.x.dialogs.Worker;
+import com.eviware.x.dialogs.XProgressDialog;
+import com.eviware.x.dialogs.XProgressMonitor;
+import com.eviware.x.form.XFormDialog;
+import com.smartbear.ready.plugin.jira.dialog.BugInfoDialogConsts;
+import com.smartbear.ready.plugin.jira.impl.IssueCreationResult;
+import com.smartbear.ready.plugin.jira.impl.IssueDraft;
+import com.smartbear.ready.plugin.jira.impl.JiraProvider;
+import com.smartbear.ready.plugin.jira.impl.MetadataWarmUp;
+import com.smartbear.ready.plugin.jira.listeners.FailedTestCasesCollector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@ActionConfiguration(actionGroup = CreateIssuesForFailedTestCasesAction.TEST_SUITE_ACTIONS, targetType = TestSuite.class,
+        description = CreateIssuesForFailedTestCasesAction.ACTION_DESCRIPTION)
+public class CreateIssuesForFailedTestCasesAction extends CreateNewBugAction {
+    public static final String TEST_SUITE_ACTIONS = "WsdlTestSuiteActions";
+    public static final String ACTION_CAPTION = "Create JIRA items for failed test cases";
+    public static final String ACTION_DESCRIPTION = "Create a JIRA item for every test case which failed in its last run";
+    public static final String NO_FAILED_TEST_CASES = "None of the test cases of this test suite failed in its last run.";
+    public static final String CREATING_ISSUES = "Creating JIRA items for failed test cases";
+
+    public CreateIssuesForFailedTestCasesAction() {
+        super(ACTION_CAPTION, ACTION_DESCRIPTION);
+    }
+
+    @Override
+    public void perform(ModelItem target, Object o) {
+        if (!LicenseCheckUtils.userHasAccessToSoapUING()) {
+            UISupport.showErrorMessage("To use this feature, you need a SoapUI NG Pro license.\nYou can request a Pro trial at SmartBear.com.");
+            return;
+        }
+
+        List<TestCase> failedTestCases = FailedTestCasesCollector.getFailedTestCases((TestSuite) target);
+        if (failedTestCases.isEmpty()) {
+            UISupport.showInfoMessage(NO_FAILED_TEST_CASES);
+            return;
+        }
+
+        askForMissingSettings(target);
+        JiraProvider bugTrackerProvider = JiraProvider.getProvider(target);
+        if (!bugTrackerProvider.settingsComplete()) {
+            UISupport.showErrorMessage(JiraProvider.BUG_TRACKER_SETTINGS_ARE_NOT_COMPLETELY_SPECIFIED);
+            return;
+        }
+        if (!bugTrackerProvider.isConnected()) {
+            UISupport.showErrorMessage(JiraProvider.BUG_TRACKER_URI_IS_INCORRECT);
+            return;
+        }
+        bugTrackerProvider.setActiveItem(target);
+        List<String> projects = getInitialProjects(bugTrackerProvider);
+        if (projects.size() == 0) {
+            UISupport.showErrorMessage(NO_AVAILABLE_JIRA_PROJECTS);
+            return;
+        }
+        XFormDialog dialogOne = createInitialSetupDialog(bugTrackerProvider, projects);
+        if (dialogOne.show()) {
+            XFormDialog dialogTwo = createIssueDetailsDialog(bugTrackerProvider, selectedProject, selectedIssueType);
+            if (dialogTwo.show()) {
+                createIssues(bugTrackerProvider, dialogTwo, failedTestCases);
+            }
+        } else {
+            selectedProject = null;
+            selectedIssueType = null;
+        }
+    }
+
+    /*
+    * The values from the dialog are shared by all items, the summary gets the test case name appended
+    * and the failure details are added to the description.
+    * */
+    private void createIssues(JiraProvider bugTrackerProvider, XFormDialog issueDetails, List<TestCase> failedTestCases) {
+        StringToStringMap values = issueDetails.getValues();
+        String summary = values.get(BugInfoDialogConsts.ISSUE_SUMMARY, "");
+        String description = values.get(BugInfoDialogConsts.ISSUE_DESCRIPTION, "");
+        Map<String, String> extraValues = getExtraValues(bugTrackerProvider, values);
+        List<IssueDraft> issueDrafts = new ArrayList<>();
+        for (TestCase testCase : failedTestCases) {
+            String failureDetails = FailedTestCasesCollector.getFailureDetails(testCase);
+            issueDrafts.add(new IssueDraft(selectedProject, selectedIssueType, summary + ": " + testCase.getName(),
+                    StringUtils.isNullOrEmpty(failureDetails) ? description : description + "\n\n" + failureDetails, extraValues));
+        }
+
+        BulkIssueCreatorWorker worker = new BulkIssueCreatorWorker(bugTrackerProvider, issueDrafts);
+        XProgressDialog progressDialog = UISupport.getDialogs().createProgressDialog(CREATING_ISSUES, 100, PLEASE_WAIT, false);
+        try {
+            progressDialog.run(worker);
+        } catch (Exception e) {
+        }
+
+        List<IssueCreationResult> results = worker.getResults();
+        StringBuilder report = new StringBuilder();
+        boolean hasErrors = false;
+        for (int i = 0; i < results.size(); i++) {
+            IssueCreationResult result = results.get(i);
+            report.append(failedTestCases.get(i).getName()).append(": ");
+            if (result.getSuccess()) {
+                report.append(result.getIssue().getKey());
+            } else {
+                hasErrors = true;
+                report.append(result.getError());
+            }
+            report.append("\n");
+        }
+        if (results.size() > 0 && !hasErrors) {
+            MetadataWarmUp.recordProjectUsage(bugTrackerProvider.getBugTrackerSettings(), selectedProject);
+        }
+        if (hasErrors) {
+            UISupport.showErrorMessage(report.toString());
+        } else {
+            UISupport.showInfoMessage(report.toString());
+        }
+    }
+
+    private class BulkIssueCreatorWorker implements Worker {
+        final JiraProvider bugTrackerProvider;
+        final List<IssueDraft> issueDrafts;
+        List<IssueCreationResult> results = new ArrayList<>();
+
+        public BulkIssueCreatorWorker(JiraProvider bugTrackerProvider, List<IssueDraft> issueDrafts) {
+            this.bugTrackerProvider = bugTrackerProvider;
+            this.issueDrafts = issueDrafts;
+        }
+
+        @Override
+        public Object construct(XProgressMonitor xProgressMonitor) {
+            results = bugTrackerProvider.createIssues(issueDrafts);
+            return results;
+        }
+
+        @Override
+        public void finished() {
+        }
+
+        @Override
+        public boolean onCancel() {
+            return false;
+        }
+
+        public List<IssueCreationResult> getResults() {
+            return results;
+        }
+    }
+
+    @Override
+    public boolean shouldBeEnabledFor(ModelItem modelItem) {
+        return modelItem instanceof TestSuite;
+    }
+}
@@ -1,8 +1,8 @@
 package com.smartbear.ready.plugin.jira.actions;
 
-import com.atlassian.jira.rest.client.api.NamedEntity;
 import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
-import com.atlassian.jira.rest.client.api.domain.CustomFieldOption;
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.actions.SoapUIPreferencesAction;
 import com.eviware.soapui.impl.wsdl.WsdlProject;
 import com.eviware.soapui.model.ModelItem;
 import com.eviware.soapui.model.testsuite.TestCase;
@@ -24,19 +24,35 @@ import com.eviware.x.form.XFormFactory;
 import com.eviware.x.form.XFormField;
 import com.eviware.x.form.XFormFieldListener;
 import com.eviware.x.form.XFormOptionsField;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.inject.Inject;
 import com.smartbear.ready.plugin.jira.dialog.BugInfoDialogConsts;
+import com.smartbear.ready.plugin.jira.factories.JiraPrefsFactory;
+import com.smartbear.ready.plugin.jira.impl.AllowedValueOptions;
 import com.smartbear.ready.plugin.jira.impl.AttachmentAddingResult;
+import com.smartbear.ready.plugin.jira.impl.AttachmentUploadPipeline;
 import com.smartbear.ready.plugin.jira.impl.IssueCreationResult;
+import com.smartbear.ready.plugin.jira.impl.IssueDraft;
 import com.smartbear.ready.plugin.jira.impl.IssueInfoDialog;
 import com.smartbear.ready.plugin.jira.impl.JiraProvider;
-
+import com.smartbear.ready.plugin.jira.impl.MetadataWarmUp;
+import com.smartbear.ready.plugin.jira.outbox.IssueOutbox;
+import com.smartbear.ready.plugin.jira.outbox.OutboxReplayer;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerPrefs;
+import com.smartbear.ready.plugin.jira.settings.ServerProfiles;
+
+import javax.swing.SwingUtilities;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
     public static final String TOOLBAR_BUTTON_CAPTION = "JIRA";
@@ -50,7 +66,16 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
     public static final String READING_JIRA_SETTINGS = "Reading information from JIRA";
     public static final String TOOLBAR_ACTION_DESCRIPTION = "Create a new JIRA item";
     public static final String PATH_TO_TOOLBAR_ICON = "com/smartbear/ready/plugin/jira/icons/Bug-tracker-icon_20-20-px.png";
-    public static final String EMPTY_VALUE_FOR_OPTIONS_FIELD = "";
+    public static final String EMPTY_VALUE_FOR_OPTIONS_FIELD = AllowedValueOptions.EMPTY_VALUE;
+    public static final String FIND_PROJECT_DESCRIPTION = "Type the beginning of a project key or name";
+    public static final int PROJECT_OPTIONS_LIMIT = 50;
+    public static final int SHOWN_OPTIONS_LIMIT = 100;
+    public static final String OPTIONS_FILTER_SUFFIX = " (find)";
+    public static final String FIND_OPTION_DESCRIPTION = "Type the beginning of a value to find it among all values";
+    public static final String SAVE_TO_OUTBOX_QUESTION = "\n\nJIRA seems to be unavailable. Save the item and create it when JIRA is available again?";
+    public static final String SAVING_TO_OUTBOX = "Saving the JIRA item";
+    public static final String SAVED_TO_OUTBOX = "The item is saved and will be created in JIRA as soon as it is available again.";
+    public static final String UNABLE_TO_SAVE_TO_OUTBOX = "Unable to save the item: ";
     private static String NEW_ISSUE_DIALOG_CAPTION = "Create a new ";
 
     protected String selectedProject, selectedIssueType;
@@ -62,6 +87,10 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
         super(TOOLBAR_BUTTON_CAPTION, SPECIFIES_THE_REQUIRED_FIELDS_TO_CREATE_NEW_ISSUE_IN_JIRA);
     }
 
+    protected CreateNewBugAction(String name, String description) {
+        super(name, description);
+    }
+
     @Override
     public void perform(ModelItem target, Object o) {
         if (!LicenseCheckUtils.userHasAccessToSoapUING()) {
@@ -69,22 +98,27 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
             return;
         }
 
-        JiraProvider bugTrackerProvider = JiraProvider.getProvider();
+        askForMissingSettings(target);
+        JiraProvider bugTrackerProvider = JiraProvider.getProvider(target);
         if (!bugTrackerProvider.settingsComplete()) {
             UISupport.showErrorMessage(JiraProvider.BUG_TRACKER_SETTINGS_ARE_NOT_COMPLETELY_SPECIFIED);
             return;
         }
+        if (!bugTrackerProvider.isConnected()) {
+            UISupport.showErrorMessage(JiraProvider.BUG_TRACKER_URI_IS_INCORRECT);
+            return;
+        }
         if (target instanceof Workspace){
             UISupport.showErrorMessage(WORKSPACE_ITEM_SELECTED);
             return;
         }
         bugTrackerProvider.setActiveItem(target);
-        List<String> projects = bugTrackerProvider.getListOfAllProjects();
-        if (projects == null || projects.size() == 0) {
+        List<String> projects = getInitialProjects(bugTrackerProvider);
+        if (projects.size() == 0) {
             UISupport.showErrorMessage(NO_AVAILABLE_JIRA_PROJECTS);
             return;
         }
-        XFormDialog dialogOne = createInitialSetupDialog(bugTrackerProvider);
+        XFormDialog dialogOne = createInitialSetupDialog(bugTrackerProvider, projects);
         if (dialogOne.show()) {
             XFormDialog dialogTwo = createIssueDetailsDialog(bugTrackerProvider, selectedProject, selectedIssueType);
             if (dialogTwo.show()) {
@@ -96,26 +130,32 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
         }
     }
 
+    /*
+    * The provider is also got by background threads, so it never asks for settings itself. Missing settings
+    * of the default profile are asked for here, on the EDT, before the provider is got. Named profiles are
+    * edited as text in the preferences, there is no dialog for one of them.
+    * */
+    protected static void askForMissingSettings(ModelItem target) {
+        String profileName = ServerProfiles.getProfileName(target);
+        if (!ServerProfiles.DEFAULT_PROFILE.equals(profileName) || JiraProvider.hasStoredSettings(profileName)) {
+            return;
+        }
+        UISupport.showErrorMessage(JiraProvider.BUG_TRACKER_SETTINGS_ARE_NOT_COMPLETELY_SPECIFIED);
+        SoapUIPreferencesAction.getInstance().show(JiraPrefsFactory.JIRA_PREFS_TITLE);
+    }
+
     private class JiraIssueCreatorWorker implements Worker{
         final JiraProvider bugTrackerProvider;
-        final String projectKey;
-        final String issueType;
-        final String summary;
-        final String description;
-        final Map<String, String> extraValues;
+        final IssueDraft issueDraft;
         IssueCreationResult result;
-        public JiraIssueCreatorWorker(JiraProvider bugTrackerProvider, String projectKey, String issueType, String summary, String description, Map<String, String> extraValues){
+        public JiraIssueCreatorWorker(JiraProvider bugTrackerProvider, IssueDraft issueDraft){
             this.bugTrackerProvider = bugTrackerProvider;
-            this.projectKey = projectKey;
-            this.issueType = issueType;
-            this.summary = summary;
-            this.description = description;
-            this.extraValues = extraValues;
+            this.issueDraft = issueDraft;
         }
 
         @Override
         public Object construct(XProgressMonitor xProgressMonitor) {
-            result = bugTrackerProvider.createIssue(projectKey, issueType, summary, description, extraValues);
+            result = bugTrackerProvider.createIssueAsync(issueDraft).claim();
             return result;
         }
 
@@ -133,6 +173,80 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
         }
     }
 
+    /*
+    * The ReadyAPI log and the project are generated when they are read.
+    * */
+    private static Map<String, Callable<InputStream>> getGeneratedAttachments(final JiraProvider bugTrackerProvider, XFormDialog issueDetails) {
+        Map<String, Callable<InputStream>> attachments = new LinkedHashMap<>();
+        final boolean compressed = SoapUI.getSettings().getBoolean(BugTrackerPrefs.COMPRESS_ATTACHMENTS);
+        if (issueDetails.getBooleanValue(BugInfoDialogConsts.ATTACH_READYAPI_LOG)) {
+            attachments.put(bugTrackerProvider.getActiveItemName() + (compressed ? ".log.gz" : ".log"), new Callable<InputStream>() {
+                @Override
+                public InputStream call() {
+                    return bugTrackerProvider.getReadyApiLog(compressed);
+                }
+            });
+        }
+
+        if (issueDetails.getBooleanValue(BugInfoDialogConsts.ATTACH_PROJECT)) {
+            attachments.put(bugTrackerProvider.getRootProjectName() + (compressed ? ".xml.gz" : ".xml"), new Callable<InputStream>() {
+                @Override
+                public InputStream call() {
+                    return bugTrackerProvider.getRootProject(compressed);
+                }
+            });
+        }
+        return attachments;
+    }
+
+    private class OutboxWorker implements Worker {
+        final JiraProvider bugTrackerProvider;
+        final IssueDraft issueDraft;
+        final long firstAttemptAt;
+        final XFormDialog issueDetails;
+        String error;
+
+        public OutboxWorker(JiraProvider bugTrackerProvider, IssueDraft issueDraft, long firstAttemptAt, XFormDialog issueDetails) {
+            this.bugTrackerProvider = bugTrackerProvider;
+            this.issueDraft = issueDraft;
+            this.firstAttemptAt = firstAttemptAt;
+            this.issueDetails = issueDetails;
+        }
+
+        @Override
+        public Object construct(XProgressMonitor xProgressMonitor) {
+            Map<String, Callable<InputStream>> attachments = getGeneratedAttachments(bugTrackerProvider, issueDetails);
+            final String attachAnyFileValue = issueDetails.getValue(BugInfoDialogConsts.ATTACH_ANY_FILE);
+            if (!StringUtils.isNullOrEmpty(attachAnyFileValue)) {
+                attachments.put(attachAnyFileValue, new Callable<InputStream>() {
+                    @Override
+                    public InputStream call() throws IOException {
+                        return new FileInputStream(attachAnyFileValue);
+                    }
+                });
+            }
+            try {
+                IssueOutbox.forSettings(bugTrackerProvider.getBugTrackerSettings()).add(issueDraft, firstAttemptAt, attachments);
+            } catch (IOException e) {
+                error = e.getMessage();
+            }
+            return error;
+        }
+
+        @Override
+        public void finished() {
+        }
+
+        @Override
+        public boolean onCancel() {
+            return false;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
     private class JiraIssueAttachmentWorker implements Worker {
         final JiraProvider bugTrackerProvider;
         final IssueCreationResult creationResult;
@@ -148,32 +262,24 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
         @Override
         public Object construct(XProgressMonitor xProgressMonitor) {
             isAttachmentSuccess = true;
-            URI newIssueAttachURI = bugTrackerProvider.getIssue(creationResult.getIssue().getKey()).getAttachmentsUri();
+            URI newIssueAttachURI = bugTrackerProvider.getAttachmentsUri(creationResult.getIssue());
             resultError = new StringBuilder();
-            if (issueDetails.getBooleanValue(BugInfoDialogConsts.ATTACH_READYAPI_LOG)) {
-                AttachmentAddingResult attachResult = bugTrackerProvider.attachFile(newIssueAttachURI, bugTrackerProvider.getActiveItemName() + ".log", bugTrackerProvider.getReadyApiLog());
-                if (!attachResult.getSuccess()) {
-                    isAttachmentSuccess = false;
-                    resultError.append(attachResult.getError());
-                    resultError.append("\r\n");
-                }
-            }
-
-            if (issueDetails.getBooleanValue(BugInfoDialogConsts.ATTACH_PROJECT)) {
-                AttachmentAddingResult attachResult = bugTrackerProvider.attachFile(newIssueAttachURI, bugTrackerProvider.getRootProjectName() + ".xml", bugTrackerProvider.getRootProject());
-                if (!attachResult.getSuccess()) {
-                    isAttachmentSuccess = false;
-                    resultError.append(attachResult.getError());
-                    resultError.append("\r\n");
-                }
+            AttachmentUploadPipeline uploadPipeline = new AttachmentUploadPipeline(bugTrackerProvider, newIssueAttachURI);
+            for (Map.Entry<String, Callable<InputStream>> attachment : getGeneratedAttachments(bugTrackerProvider, issueDetails).entrySet()) {
+                uploadPipeline.addStream(attachment.getKey(), attachment.getValue());
             }
 
             String attachAnyFileValue = issueDetails.getValue(BugInfoDialogConsts.ATTACH_ANY_FILE);
             if (!StringUtils.isNullOrEmpty(issueDetails.getValue(BugInfoDialogConsts.ATTACH_ANY_FILE))) {
-                AttachmentAddingResult attachResult = bugTrackerProvider.attachFile(newIssueAttachURI, attachAnyFileValue);
-                if (!attachResult.getSuccess()) {
+                uploadPipeline.addFile(attachAnyFileValue);
+            }
+
+            for (Map.Entry<String, AttachmentAddingResult> attachResult : uploadPipeline.run(xProgressMonitor).entrySet()) {
+                if (!attachResult.getValue().getSuccess()) {
                     isAttachmentSuccess = false;
-                    resultError.append(attachResult.getError());
+                    resultError.append(attachResult.getKey()).append(": ");
+                    resultError.append(attachResult.getValue().getError());
+                    resultError.append("\r\n");
                 }
             }
 
@@ -205,24 +311,19 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
         String description = values.get(BugInfoDialogConsts.ISSUE_DESCRIPTION, null);
         String projectKey = selectedProject;
         String issueType = selectedIssueType;
-        Map<String, String> extraValues = new HashMap<String, String>();
-        for (Map.Entry<String, CimFieldInfo> entry : bugTrackerProvider.getProjectFields(projectKey).get(projectKey).get(issueType).entrySet()) {
-            String key = entry.getKey();
-            if (skippedFieldKeys.contains(key)) {
-                continue;
-            }
-            if (!StringUtils.isNullOrEmpty(values.get(entry.getValue().getName()))) {
-                extraValues.put(entry.getKey(), values.get(entry.getValue().getName()));
-            }
-        }
+        Map<String, String> extraValues = getExtraValues(bugTrackerProvider, values);
         XProgressDialog issueCreationProgressDialog = UISupport.getDialogs().createProgressDialog(NEW_ISSUE_DETAILS_FORM_NAME, 100, PLEASE_WAIT, false);
-        JiraIssueCreatorWorker worker = new JiraIssueCreatorWorker(bugTrackerProvider, projectKey, issueType, summary, description, extraValues);
+        IssueDraft issueDraft = new IssueDraft(projectKey, issueType, summary, description, extraValues);
+        //a replay from the outbox looks for an item this attempt may have created
+        long attemptStart = System.currentTimeMillis();
+        JiraIssueCreatorWorker worker = new JiraIssueCreatorWorker(bugTrackerProvider, issueDraft);
         try {
             issueCreationProgressDialog.run(worker);
         } catch (Exception e) {
         }
         IssueCreationResult result = worker.getResult();
         if (result.getSuccess()) {
+            MetadataWarmUp.recordProjectUsage(bugTrackerProvider.getBugTrackerSettings(), projectKey);
             JiraIssueAttachmentWorker attachmentWorker = new JiraIssueAttachmentWorker(bugTrackerProvider, result, issueDetails);
             XProgressDialog addingAttachmentProgressDialog = UISupport.getDialogs().createProgressDialog(ADDING_ATTACHMENTS, 100, PLEASE_WAIT, false);
             try {
@@ -236,58 +337,52 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
                 IssueInfoDialog.showDialog(issueType, bugTrackerProvider.getBugTrackerSettings().getUrl().concat("/browse/").concat(result.getIssue().getKey()), result.getIssue().getKey());//TODO: make link correct for all cases
             }
 
+        } else if (result.isTemporaryFailure() && UISupport.confirm(result.getError() + SAVE_TO_OUTBOX_QUESTION, NEW_ISSUE_DETAILS_FORM_NAME)) {
+            saveToOutbox(bugTrackerProvider, issueDraft, attemptStart, issueDetails);
         } else {
             UISupport.showErrorMessage(result.getError());
         }
     }
 
-    public static Object[] IterableObjectsToNameArray(JiraProvider bugTrackerProvider, Iterable<Object> input) {
-        ArrayList<Object> objects = new ArrayList<>();
-        for (Object obj : input) {
-            CustomFieldOption customFieldOption = bugTrackerProvider.transformToCustomFieldOption(obj);
-            if (customFieldOption != null) {
-                objects.add(customFieldOption.getValue());
-            } else {
-                if (obj instanceof NamedEntity) {
-                    NamedEntity namedEntity = (NamedEntity) obj;
-                    objects.add(namedEntity.getName());
-                }
-            }
+    private void saveToOutbox(JiraProvider bugTrackerProvider, IssueDraft issueDraft, long firstAttemptAt, XFormDialog issueDetails) {
+        OutboxWorker worker = new OutboxWorker(bugTrackerProvider, issueDraft, firstAttemptAt, issueDetails);
+        XProgressDialog progressDialog = UISupport.getDialogs().createProgressDialog(SAVING_TO_OUTBOX, 100, PLEASE_WAIT, false);
+        try {
+            progressDialog.run(worker);
+        } catch (Exception e) {
+        }
+        if (worker.getError() != null) {
+            UISupport.showErrorMessage(UNABLE_TO_SAVE_TO_OUTBOX + worker.getError());
+        } else {
+            OutboxReplayer.replaySoon();
+            UISupport.showInfoMessage(SAVED_TO_OUTBOX);
         }
-        return objects.toArray();
     }
 
-    public static Object[] IterableObjectsToNameArrayAddEmptyValue(JiraProvider bugTrackerProvider, String fieldName, Iterable<Object> input) {
-        ArrayList<Object> objects = new ArrayList<>();
-        objects.add(EMPTY_VALUE_FOR_OPTIONS_FIELD);
-        for (Object obj : input) {
-            CustomFieldOption customFieldOption = bugTrackerProvider.transformToCustomFieldOption(obj);
-            if (customFieldOption != null) {
-                objects.add(customFieldOption.getValue());
-            } else {
-                if (obj instanceof NamedEntity) {
-                    NamedEntity namedEntity = (NamedEntity) obj;
-                    objects.add(namedEntity.getName());
-                }
+    protected Map<String, String> getExtraValues(JiraProvider bugTrackerProvider, StringToStringMap values) {
+        Map<String, String> extraValues = new HashMap<String, String>();
+        for (Map.Entry<String, CimFieldInfo> entry : bugTrackerProvider.getIssueTypeFields(selectedProject, selectedIssueType).entrySet()) {
+            String key = entry.getKey();
+            if (skippedFieldKeys.contains(key)) {
+                continue;
+            }
+            if (!StringUtils.isNullOrEmpty(values.get(entry.getValue().getName()))) {
+                extraValues.put(entry.getKey(), values.get(entry.getValue().getName()));
             }
         }
-        return objects.toArray();
+        return extraValues;
     }
 
-    private CimFieldInfo getFieldInfo (JiraProvider bugTrackerProvider, String selectedProject, String selectedIssueType, String fieldInfoKey){
-        Map<String, Map<String, Map<String, CimFieldInfo>>> allFields = bugTrackerProvider.getProjectFields(selectedProject);
-        for (Map.Entry<String, CimFieldInfo> field : allFields.get(selectedProject).get(selectedIssueType).entrySet()) {
-            String key = field.getKey();
-            if (key.equals(fieldInfoKey)) {
-                return field.getValue();
-            }
-        }
-        return null;
+    public static Object[] IterableObjectsToNameArray(JiraProvider bugTrackerProvider, Iterable<Object> input) {
+        return new AllowedValueOptions(input).getAllOptions(false);
+    }
+
+    public static Object[] IterableObjectsToNameArrayAddEmptyValue(JiraProvider bugTrackerProvider, String fieldName, Iterable<Object> input) {
+        return new AllowedValueOptions(input).getAllOptions(true);
     }
 
-    private void addExtraFields(XForm baseDialog, JiraProvider bugTrackerProvider, String selectedProject, String selectedIssueType) {
-        Map<String, Map<String, Map<String, CimFieldInfo>>> allFields = bugTrackerProvider.getProjectFields(selectedProject);
-        for (Map.Entry<String, CimFieldInfo> field : allFields.get(selectedProject).get(selectedIssueType).entrySet()) {
+    private void addExtraFields(XForm baseDialog, Map<String, CimFieldInfo> fields) {
+        for (Map.Entry<String, CimFieldInfo> field : fields.entrySet()) {
             String key = field.getKey();
             if (skippedFieldKeys.contains(key)) {
                 continue;
@@ -295,14 +390,15 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
             CimFieldInfo fieldInfo = field.getValue();
             XFormField newField;
             if (fieldInfo.getAllowedValues() != null) {
-                Object[] values = IterableObjectsToNameArray(bugTrackerProvider, fieldInfo.getAllowedValues());
-                if (values.length > 0) {
-                    if (fieldInfo.isRequired()) {
-                        newField = baseDialog.addComboBox(fieldInfo.getName(), values, fieldInfo.getName());
-                    } else {
-                        newField = baseDialog.addComboBox(fieldInfo.getName(),
-                                IterableObjectsToNameArrayAddEmptyValue(bugTrackerProvider, fieldInfo.getName(), fieldInfo.getAllowedValues()), fieldInfo.getName());
+                AllowedValueOptions options = AllowedValueOptions.forField(fieldInfo);
+                if (!options.isEmpty()) {
+                    boolean withEmptyValue = !fieldInfo.isRequired();
+                    XFormOptionsField optionsField = baseDialog.addComboBox(fieldInfo.getName(),
+                            options.getFirstOptions(SHOWN_OPTIONS_LIMIT, withEmptyValue), fieldInfo.getName());
+                    if (options.hasMoreThan(SHOWN_OPTIONS_LIMIT)) {
+                        addOptionsFilter(baseDialog, fieldInfo.getName(), optionsField, options, withEmptyValue);
                     }
+                    newField = optionsField;
                 } else {
                     newField = baseDialog.addTextField(fieldInfo.getName(), fieldInfo.getName(), XForm.FieldType.TEXT);
                 }
@@ -315,6 +411,23 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
         }
     }
 
+    /*
+    * Fields with many options show only the first ones, the others are found by typing into the filter field.
+    * */
+    private static void addOptionsFilter(XForm baseDialog, String fieldName, final XFormOptionsField optionsField, final AllowedValueOptions options, final boolean withEmptyValue) {
+        XFormField filterField = baseDialog.addTextField(fieldName + OPTIONS_FILTER_SUFFIX, FIND_OPTION_DESCRIPTION, XForm.FieldType.TEXT);
+        filterField.addFormFieldListener(new XFormFieldListener() {
+            @Override
+            public void valueChanged(XFormField xFormField, String newValue, String oldValue) {
+                Object[] foundOptions = options.search(newValue, SHOWN_OPTIONS_LIMIT, withEmptyValue);
+                optionsField.setOptions(foundOptions);
+                if (foundOptions.length > (withEmptyValue ? 1 : 0)) {
+                    optionsField.setValue(String.valueOf(foundOptions[withEmptyValue ? 1 : 0]));
+                }
+            }
+        });
+    }
+
     private class RequiredFieldsWorker implements Worker{
         public static final String ISSUE_SUMMARY = "Summary";
         public static final String ISSUE_DESCRIPTION = "Description";
@@ -333,26 +446,32 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
 
         @Override
         public Object construct(XProgressMonitor xProgressMonitor) {
+            Map<String, CimFieldInfo> fields = bugTrackerProvider.getIssueTypeFields(selectedProject, selectedIssueType);
+            dialog = IssueDetailsDialogCache.reuse(bugTrackerProvider.getProfileName(), selectedProject, selectedIssueType, fields);
+            if (dialog != null) {
+                return dialog;
+            }
             XFormDialogBuilder builder = XFormFactory.createDialogBuilder(NEW_ISSUE_DIALOG_CAPTION + selectedIssueType + " item");
             XForm form = builder.createForm("Basic");
             XFormField summaryField = form.addTextField(BugInfoDialogConsts.ISSUE_SUMMARY, ISSUE_SUMMARY, XForm.FieldType.TEXT);
             summaryField.setRequired(true, ISSUE_SUMMARY);
-            CimFieldInfo descriptionFieldInfo = getFieldInfo(bugTrackerProvider, selectedProject, selectedIssueType, "description");
+            CimFieldInfo descriptionFieldInfo = fields.get("description");
             if (descriptionFieldInfo != null) {
                 XFormField descriptionField = form.addTextField(BugInfoDialogConsts.ISSUE_DESCRIPTION, ISSUE_DESCRIPTION, XForm.FieldType.TEXTAREA);
-                descriptionField.setRequired(getFieldInfo(bugTrackerProvider, selectedProject, selectedIssueType, "description").isRequired(), ISSUE_DESCRIPTION);
+                descriptionField.setRequired(descriptionFieldInfo.isRequired(), ISSUE_DESCRIPTION);
             }
-            CimFieldInfo priorityFieldInfo = getFieldInfo(bugTrackerProvider, selectedProject, selectedIssueType, "priority");
+            CimFieldInfo priorityFieldInfo = fields.get("priority");
             if (priorityFieldInfo != null) {
-                XFormField priorityField = form.addComboBox(priorityFieldInfo.getName(), IterableObjectsToNameArray(bugTrackerProvider,
-                        priorityFieldInfo.getAllowedValues()), priorityFieldInfo.getName());
+                XFormField priorityField = form.addComboBox(priorityFieldInfo.getName(),
+                        AllowedValueOptions.forField(priorityFieldInfo).getAllOptions(false), priorityFieldInfo.getName());
                 priorityField.setRequired(priorityFieldInfo.isRequired(), priorityFieldInfo.getName());
             }
-            addExtraFields(form, bugTrackerProvider, selectedProject, selectedIssueType);
+            addExtraFields(form, fields);
             form.addCheckBox(BugInfoDialogConsts.ATTACH_READYAPI_LOG, BugInfoDialogConsts.ATTACH_READYAPI_LOG);
             form.addCheckBox(BugInfoDialogConsts.ATTACH_PROJECT, BugInfoDialogConsts.ATTACH_PROJECT);
             form.addTextField(BugInfoDialogConsts.ATTACH_ANY_FILE, ATTACH_FILE, XForm.FieldType.FILE);
             dialog = builder.buildDialog(builder.buildOkCancelActions(), PLEASE_SPECIFY_ISSUE_OPTIONS, null);
+            IssueDetailsDialogCache.put(bugTrackerProvider.getProfileName(), selectedProject, selectedIssueType, fields, dialog);
             return dialog;
         }
 
@@ -371,7 +490,7 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
         }
     }
 
-    private XFormDialog createIssueDetailsDialog(final JiraProvider bugTrackerProvider, final String selectedProject, final String selectedIssueType) {
+    protected XFormDialog createIssueDetailsDialog(final JiraProvider bugTrackerProvider, final String selectedProject, final String selectedIssueType) {
         RequiredFieldsWorker worker = new RequiredFieldsWorker(bugTrackerProvider, selectedProject, selectedIssueType);
         XProgressDialog readingProjectSettingsProgressDialog = UISupport.getDialogs().createProgressDialog(READING_JIRA_SETTINGS_FOR_SELECTED_PROJECT_AND_ISSUE_TYPE, 100, PLEASE_WAIT, false);
         try {
@@ -384,22 +503,31 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
     private class InitialDialogWorker implements Worker {
         public static final String CHOOSE_REQUIRED_PROJECT_AND_ISSUE_TYPE = "Select a project and an item type.";
         final JiraProvider bugTrackerProvider;
+        final List<String> projects;
         XFormDialog dialog;
+        int projectSearches;
 
-        public InitialDialogWorker (JiraProvider bugTrackerProvider){
+        public InitialDialogWorker (JiraProvider bugTrackerProvider, List<String> projects){
             this.bugTrackerProvider = bugTrackerProvider;
+            this.projects = projects;
         }
 
         @Override
         public Object construct(XProgressMonitor xProgressMonitor) {
             XFormDialogBuilder builder = XFormFactory.createDialogBuilder(NEW_ISSUE_DIALOG_CAPTION + " item");
             XForm form = builder.createForm("Basic");
-            List<String> allProjectsList = bugTrackerProvider.getListOfAllProjects();
-            XFormOptionsField projectsCombo = form.addComboBox(BugInfoDialogConsts.TARGET_ISSUE_PROJECT, allProjectsList.toArray(), BugInfoDialogConsts.TARGET_ISSUE_PROJECT);
+            XFormField findProjectField = form.addTextField(BugInfoDialogConsts.FIND_PROJECT, FIND_PROJECT_DESCRIPTION, XForm.FieldType.TEXT);
+            final XFormOptionsField projectsCombo = form.addComboBox(BugInfoDialogConsts.TARGET_ISSUE_PROJECT, projects.toArray(), BugInfoDialogConsts.TARGET_ISSUE_PROJECT);
             if (StringUtils.isNullOrEmpty(selectedProject)) {
-                selectedProject = (String) (allProjectsList.toArray()[0]);
+                selectedProject = projects.get(0);
             }
             projectsCombo.setValue(selectedProject);
+            findProjectField.addFormFieldListener(new XFormFieldListener() {
+                @Override
+                public void valueChanged(XFormField xFormField, String newValue, String oldValue) {
+                    showFoundProjects(projectsCombo, newValue);
+                }
+            });
             Object [] currentProjectIssueTypes = bugTrackerProvider.getListOfProjectIssueTypes(selectedProject).toArray();
             final XFormOptionsField issueTypesCombo = form.addComboBox(BugInfoDialogConsts.ISSUE_TYPE, currentProjectIssueTypes, BugInfoDialogConsts.ISSUE_TYPE);
             projectsCombo.addFormFieldListener(new XFormFieldListener() {
@@ -437,10 +565,57 @@ public class CreateNewBugAction extends AbstractSoapUIAction<ModelItem> {
         public XFormDialog getDialog (){
             return dialog;
         }
+
+        /*
+        * Called on every keystroke, so only the result of the latest search is shown.
+        * */
+        private void showFoundProjects(final XFormOptionsField projectsCombo, String prefix) {
+            final int search = ++projectSearches;
+            bugTrackerProvider.searchProjectsAsync(prefix, PROJECT_OPTIONS_LIMIT).then(new FutureCallback<List<String>>() {
+                @Override
+                public void onSuccess(final List<String> projectKeys) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (search != projectSearches || projectKeys.isEmpty()) {
+                                return;
+                            }
+                            projectsCombo.setOptions(projectKeys.toArray());
+                            projectsCombo.setValue(projectKeys.contains(selectedProject) ? selectedProject : projectKeys.get(0));
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                }
+            });
+        }
     }
 
-    private XFormDialog createInitialSetupDialog(final JiraProvider bugTrackerProvider) {
-        InitialDialogWorker worker = new InitialDialogWorker(bugTrackerProvider);
+    /*
+    * The dialog starts with the first page of projects and the most used ones, the others are found by typing.
+    * The most used projects of the server which the server no longer lists, e.g. deleted ones, are left out.
+    * */
+    protected static List<String> getInitialProjects(JiraProvider bugTrackerProvider) {
+        List<String> projects = new ArrayList<>(bugTrackerProvider.searchProjects("", PROJECT_OPTIONS_LIMIT));
+        if (projects.isEmpty()) {
+            return projects;
+        }
+        List<String> mostUsedProjects = bugTrackerProvider.retainKnownProjects(
+                MetadataWarmUp.getMostUsedProjects(bugTrackerProvider.getBugTrackerSettings(), MetadataWarmUp.WARMED_UP_PROJECTS_COUNT));
+        for (int i = mostUsedProjects.size() - 1; i >= 0; i--) {
+            projects.remove(mostUsedProjects.get(i));
+            projects.add(0, mostUsedProjects.get(i));
+        }
+        return projects;
+    }
+
+    protected XFormDialog createInitialSetupDialog(final JiraProvider bugTrackerProvider, List<String> projects) {
+        if (!StringUtils.isNullOrEmpty(selectedProject) && !projects.contains(selectedProject)) {
+            projects.add(0, selectedProject);
+        }
+        InitialDialogWorker worker = new InitialDialogWorker(bugTrackerProvider, projects);
         XProgressDialog readInitialInfoProgressDialog = UISupport.getDialogs().createProgressDialog(READING_JIRA_SETTINGS, 100, PLEASE_WAIT, false);
         try {
             readInitialInfoProgressDialog.run(worker);
@@ -0,0 +1,135 @@
+package com.smartbear.ready.plugin.jira.actions;
+
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.eviware.soapui.support.types.StringToStringMap;
+import com.eviware.x.form.XFormDialog;
+
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the item details dialogs built for the recently used project and item type pairs, so filing
+ * several items in a row does not build the same form again. A dialog is reused only while the field
+ * metadata it was built from is current, and its values are reset to the ones it was built with.
+ * The dialogs are reset and released on the event dispatch thread, which also guards the cache itself,
+ * as it is called from the worker loading the field metadata.
+ */
+class IssueDetailsDialogCache {
+    private static final int MAX_DIALOGS = 10;
+
+    private static final Map<String, CachedDialog> dialogs = new LinkedHashMap<String, CachedDialog>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedDialog> eldest) {
+            if (size() > MAX_DIALOGS) {
+                eldest.getValue().dialog.release();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /*
+    * The loaded field metadata is replaced, not changed, when it is revalidated, so the instance
+    * the dialog was built from tells whether it is still up to date.
+    * */
+    static XFormDialog reuse(final String profileName, final String projectKey, final String issueType, final Map<String, CimFieldInfo> fields) {
+        final XFormDialog[] reusedDialog = new XFormDialog[1];
+        runOnEventDispatchThread(new Runnable() {
+            @Override
+            public void run() {
+                reusedDialog[0] = reuseOnEventDispatchThread(profileName, projectKey, issueType, fields);
+            }
+        });
+        return reusedDialog[0];
+    }
+
+    static void put(final String profileName, final String projectKey, final String issueType, final Map<String, CimFieldInfo> fields, final XFormDialog dialog) {
+        runOnEventDispatchThread(new Runnable() {
+            @Override
+            public void run() {
+                putOnEventDispatchThread(profileName, projectKey, issueType, fields, dialog);
+            }
+        });
+    }
+
+    private static XFormDialog reuseOnEventDispatchThread(String profileName, String projectKey, String issueType, Map<String, CimFieldInfo> fields) {
+        String key = getKey(profileName, projectKey, issueType);
+        CachedDialog cachedDialog = dialogs.get(key);
+        if (cachedDialog == null) {
+            return null;
+        }
+        if (cachedDialog.fields != fields) {
+            dialogs.remove(key);
+            cachedDialog.dialog.release();
+            return null;
+        }
+        cachedDialog.resetValues();
+        return cachedDialog.dialog;
+    }
+
+    private static void putOnEventDispatchThread(String profileName, String projectKey, String issueType, Map<String, CimFieldInfo> fields, XFormDialog dialog) {
+        CachedDialog replacedDialog = dialogs.put(getKey(profileName, projectKey, issueType), new CachedDialog(fields, dialog));
+        if (replacedDialog != null && replacedDialog.dialog != dialog) {
+            replacedDialog.dialog.release();
+        }
+    }
+
+    /*
+    * The worker waits for the dialog, so the caller gets it only when it has been reset.
+    * */
+    private static void runOnEventDispatchThread(Runnable runnable) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            runnable.run();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while preparing the item details dialog", e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String getKey(String profileName, String projectKey, String issueType) {
+        return profileName + "\n" + projectKey + "\n" + issueType;
+    }
+
+    private static class CachedDialog {
+        final Map<String, CimFieldInfo> fields;
+        final XFormDialog dialog;
+        final StringToStringMap initialValues;
+
+        CachedDialog(Map<String, CimFieldInfo> fields, XFormDialog dialog) {
+            this.fields = fields;
+            this.dialog = dialog;
+            this.initialValues = dialog.getValues();
+        }
+
+        /*
+        * Clearing a filter field shows the first options of its combo box again, so the filters are
+        * reset before the selected options.
+        * */
+        void resetValues() {
+            List<String> otherFields = new ArrayList<>();
+            for (String fieldName : initialValues.keySet()) {
+                if (fieldName.endsWith(CreateNewBugAction.OPTIONS_FILTER_SUFFIX)) {
+                    dialog.setValue(fieldName, initialValues.get(fieldName));
+                } else {
+                    otherFields.add(fieldName);
+                }
+            }
+            for (String fieldName : otherFields) {
+                dialog.setValue(fieldName, initialValues.get(fieldName));
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.smartbear.ready.plugin.jira.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kinds of JIRA metadata kept in the persistent store together with the time they stay fresh.
+ */
+public enum MetadataType {
+    PROJECTS("projects", TimeUnit.HOURS.toMillis(24)),
+    PROJECT("project", TimeUnit.HOURS.toMillis(24)),
+    PRIORITIES("priorities", TimeUnit.DAYS.toMillis(7)),
+    CREATE_META("createmeta", TimeUnit.HOURS.toMillis(12)),
+    ISSUE_TYPE_FIELDS("issuetypefields", TimeUnit.HOURS.toMillis(12));
+
+    private final String fileNamePrefix;
+    private final long timeToLive;
+
+    MetadataType(String fileNamePrefix, long timeToLive) {
+        this.fileNamePrefix = fileNamePrefix;
+        this.timeToLive = timeToLive;
+    }
+
+    public String getFileNamePrefix() {
+        return fileNamePrefix;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+}
@@ -0,0 +1,71 @@
+package com.smartbear.ready.plugin.jira.cache;
+
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.atlassian.jira.rest.client.api.domain.Project;
+
+import java.util.Map;
+
+/**
+ * Rough estimates of the heap used by loaded JIRA metadata, for caches bounded by size. The domain
+ * objects print all their values, so the length of their string form is taken as the size of their
+ * strings, plus a fixed overhead for the objects around them.
+ */
+public class MetadataWeights {
+    private static final long OBJECT_OVERHEAD = 64;
+    private static final long MAP_ENTRY_OVERHEAD = 48;
+
+    public static final SingleFlightCache.Weigher<Project> PROJECT = new SingleFlightCache.Weigher<Project>() {
+        @Override
+        public long weigh(Project project) {
+            return weighPrinted(project);
+        }
+    };
+
+    public static final SingleFlightCache.Weigher<Map<String, CimFieldInfo>> ISSUE_TYPE_FIELDS = new SingleFlightCache.Weigher<Map<String, CimFieldInfo>>() {
+        @Override
+        public long weigh(Map<String, CimFieldInfo> fields) {
+            return weighFields(fields);
+        }
+    };
+
+    public static final SingleFlightCache.Weigher<Map<String, Map<String, CimFieldInfo>>> PROJECT_FIELDS = new SingleFlightCache.Weigher<Map<String, Map<String, CimFieldInfo>>>() {
+        @Override
+        public long weigh(Map<String, Map<String, CimFieldInfo>> fieldsOfIssueTypes) {
+            long weight = OBJECT_OVERHEAD;
+            for (Map.Entry<String, Map<String, CimFieldInfo>> issueType : fieldsOfIssueTypes.entrySet()) {
+                weight += MAP_ENTRY_OVERHEAD + weighString(issueType.getKey()) + weighFields(issueType.getValue());
+            }
+            return weight;
+        }
+    };
+
+    /*
+    * The allowed values are weighed one by one, so a field with thousands of options is never
+    * printed into one huge string.
+    * */
+    static long weighFields(Map<String, CimFieldInfo> fields) {
+        long weight = OBJECT_OVERHEAD;
+        if (fields == null) {
+            return weight;
+        }
+        for (Map.Entry<String, CimFieldInfo> field : fields.entrySet()) {
+            CimFieldInfo fieldInfo = field.getValue();
+            weight += MAP_ENTRY_OVERHEAD + weighString(field.getKey()) + OBJECT_OVERHEAD * 2
+                    + weighString(fieldInfo.getId()) + weighString(fieldInfo.getName());
+            if (fieldInfo.getAllowedValues() != null) {
+                for (Object allowedValue : fieldInfo.getAllowedValues()) {
+                    weight += weighPrinted(allowedValue);
+                }
+            }
+        }
+        return weight;
+    }
+
+    private static long weighPrinted(Object value) {
+        return value == null ? 0 : OBJECT_OVERHEAD + weighString(String.valueOf(value));
+    }
+
+    private static long weighString(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
@@ -0,0 +1,150 @@
+package com.smartbear.ready.plugin.jira.cache;
+
+import com.eviware.soapui.DefaultSoapUICore;
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.SoapUICore;
+import com.eviware.soapui.support.StringUtils;
+import com.smartbear.ready.plugin.jira.metrics.CacheStatistics;
+import com.smartbear.ready.plugin.jira.metrics.JiraMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keeps raw JIRA metadata responses on disk, one directory per server URL and user, so that
+ * the plugin does not have to ask JIRA for the same metadata after every Ready! API restart.
+ */
+public class PersistentMetadataStore {
+    private static final Logger logger = LoggerFactory.getLogger(PersistentMetadataStore.class);
+
+    private static final String SETTINGS_DIR = ".soapuios";
+    private static final String STORE_DIR = ".jira-plugin" + File.separator + "metadata";
+    private static final String FILE_EXTENSION = ".json";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private final File serverDir;
+    private final CacheStatistics statistics = JiraMetrics.getInstance().getCache("persistent store");
+
+    public PersistentMetadataStore(String serverUrl, String login) {
+        this(getDefaultRoot(), serverUrl, login);
+    }
+
+    public PersistentMetadataStore(File root, String serverUrl, String login) {
+        this.serverDir = new File(root, digest(serverUrl + "\n" + login));
+    }
+
+    public static File getDefaultRoot() {
+        return new File(getSettingsDir(), STORE_DIR);
+    }
+
+    /*
+    * The directory of the Ready! API settings file, which may be moved away from the user's home directory.
+    * */
+    private static File getSettingsDir() {
+        SoapUICore soapUICore = SoapUI.getSoapUICore();
+        if (soapUICore instanceof DefaultSoapUICore) {
+            String settingsFile = ((DefaultSoapUICore) soapUICore).getSettingsFile();
+            if (!StringUtils.isNullOrEmpty(settingsFile)) {
+                File settingsDir = new File(settingsFile).getAbsoluteFile().getParentFile();
+                if (settingsDir != null) {
+                    return settingsDir;
+                }
+            }
+        }
+        return new File(System.getProperty("user.home"), SETTINGS_DIR);
+    }
+
+    public StoredMetadata read(MetadataType type, String id) {
+        StoredMetadata storedMetadata = readFile(type, id);
+        if (storedMetadata != null) {
+            statistics.hit();
+        } else {
+            statistics.miss();
+        }
+        return storedMetadata;
+    }
+
+    private StoredMetadata readFile(MetadataType type, String id) {
+        File file = getFile(type, id);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return null;
+            }
+            long storedAt = Long.parseLong(header.trim());
+            StringBuilder json = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                json.append(buffer, 0, read);
+            }
+            return new StoredMetadata(type, json.toString(), storedAt);
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Unable to read cached JIRA metadata from " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+    * The same entry may be written by the warm-up and a dialog at the same time, so every write
+    * gets its own temporary file and the last move wins.
+    * */
+    public void write(MetadataType type, String id, String json) {
+        File file = getFile(type, id);
+        Path tempFile = null;
+        try {
+            Files.createDirectories(serverDir.toPath());
+            tempFile = Files.createTempFile(serverDir.toPath(), file.getName(), TEMP_FILE_EXTENSION);
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                writer.write(Long.toString(System.currentTimeMillis()));
+                writer.newLine();
+                writer.write(json);
+            }
+            Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to store JIRA metadata to " + file + ": " + e.getMessage());
+            if (tempFile != null) {
+                tempFile.toFile().delete();
+            }
+        }
+    }
+
+    public void remove(MetadataType type, String id) {
+        getFile(type, id).delete();
+    }
+
+    private File getFile(MetadataType type, String id) {
+        String fileName = type.getFileNamePrefix();
+        if (!StringUtils.isNullOrEmpty(id)) {
+            fileName += "-" + digest(id);
+        }
+        return new File(serverDir, fileName + FILE_EXTENSION);
+    }
+
+    public static String digest(String value) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = messageDigest.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder();
+            for (byte b : hash) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
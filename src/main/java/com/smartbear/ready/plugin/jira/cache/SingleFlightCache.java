@@ -0,0 +1,285 @@
+package com.smartbear.ready.plugin.jira.cache;
+
+import com.atlassian.util.concurrent.Promise;
+import com.atlassian.util.concurrent.Promises;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.SettableFuture;
+import com.smartbear.ready.plugin.jira.metrics.CacheStatistics;
+import com.smartbear.ready.plugin.jira.metrics.JiraMetrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe cache in which concurrent callers asking for the same key share a single load.
+ * The first caller starts the load, everyone else gets the same in-flight promise.
+ * Loaders are asynchronous, so no thread waits for a load to finish. Failed loads are not cached.
+ * A cache with a weigher keeps the estimated size of its loaded values under a limit by evicting
+ * the least recently used ones.
+ */
+public class SingleFlightCache<K, V> {
+    public interface Loader<K, V> {
+        Promise<V> load(K key);
+    }
+
+    public interface BulkLoader<K, V> {
+        Promise<Map<K, V>> loadAll(Collection<K> keys);
+    }
+
+    public interface Weigher<V> {
+        long weigh(V value);
+    }
+
+    private final ConcurrentMap<K, Promise<V>> entries = new ConcurrentHashMap<>();
+    private final CacheStatistics statistics;
+    private final Weigher<? super V> weigher;
+    //the loaded entries in access order, guarded by itself
+    private final LinkedHashMap<K, Long> weights = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    private volatile long maxWeight;
+
+    public SingleFlightCache(String name) {
+        this(name, null, Long.MAX_VALUE);
+    }
+
+    public SingleFlightCache(String name, Weigher<? super V> weigher, long maxWeight) {
+        this.statistics = JiraMetrics.getInstance().getCache(name);
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
+    }
+
+    public Promise<V> get(final K key, Loader<K, V> loader) {
+        Promise<V> existing = entries.get(key);
+        if (existing != null) {
+            statistics.hit();
+            touch(key);
+            return existing;
+        }
+        final SettableFuture<V> future = SettableFuture.create();
+        final Promise<V> promise = Promises.forListenableFuture(future);
+        existing = entries.putIfAbsent(key, promise);
+        if (existing != null) {
+            statistics.hit();
+            touch(key);
+            return existing;
+        }
+        statistics.miss();
+        startLoad(loader, key).then(new FutureCallback<V>() {
+            @Override
+            public void onSuccess(V value) {
+                loaded(key, promise, value);
+                future.set(value);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                entries.remove(key, promise);
+                future.setException(error);
+            }
+        });
+        return promise;
+    }
+
+    /*
+    * Loads all keys which are neither cached nor being loaded by somebody else with one call of the bulk loader.
+    * */
+    public Map<K, Promise<V>> getAll(Collection<K> keys, BulkLoader<K, V> loader) {
+        Map<K, Promise<V>> result = new LinkedHashMap<>();
+        final Map<K, SettableFuture<V>> reserved = new LinkedHashMap<>();
+        for (K key : keys) {
+            Promise<V> existing = entries.get(key);
+            if (existing == null) {
+                SettableFuture<V> future = SettableFuture.create();
+                Promise<V> promise = Promises.forListenableFuture(future);
+                existing = entries.putIfAbsent(key, promise);
+                if (existing == null) {
+                    reserved.put(key, future);
+                    existing = promise;
+                }
+            }
+            if (reserved.containsKey(key)) {
+                statistics.miss();
+            } else {
+                statistics.hit();
+                touch(key);
+            }
+            result.put(key, existing);
+        }
+        if (reserved.isEmpty()) {
+            return result;
+        }
+
+        final List<K> reservedKeys = new ArrayList<>(reserved.keySet());
+        final Map<K, Promise<V>> reservedPromises = new LinkedHashMap<>(result);
+        startBulkLoad(loader, reservedKeys).then(new FutureCallback<Map<K, V>>() {
+            @Override
+            public void onSuccess(Map<K, V> loaded) {
+                for (K key : reservedKeys) {
+                    if (loaded.containsKey(key)) {
+                        loaded(key, reservedPromises.get(key), loaded.get(key));
+                        reserved.get(key).set(loaded.get(key));
+                    } else {
+                        entries.remove(key, reservedPromises.get(key));
+                        reserved.get(key).setException(new IllegalStateException("Nothing was loaded for " + key));
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                for (K key : reservedKeys) {
+                    entries.remove(key, reservedPromises.get(key));
+                    reserved.get(key).setException(error);
+                }
+            }
+        });
+        return result;
+    }
+
+    private static <K, V> Promise<V> startLoad(Loader<K, V> loader, K key) {
+        try {
+            return loader.load(key);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+    }
+
+    private static <K, V> Promise<Map<K, V>> startBulkLoad(BulkLoader<K, V> loader, Collection<K> keys) {
+        try {
+            return loader.loadAll(keys);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+    }
+
+    private static <T> Promise<T> failed(Throwable error) {
+        SettableFuture<T> future = SettableFuture.create();
+        future.setException(error);
+        return Promises.forListenableFuture(future);
+    }
+
+    public V getIfPresent(K key) {
+        Promise<V> promise = entries.get(key);
+        if (promise == null || !promise.isDone()) {
+            return null;
+        }
+        try {
+            V value = promise.claim();
+            touch(key);
+            return value;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public void put(K key, V value) {
+        Promise<V> promise = Promises.promise(value);
+        entries.put(key, promise);
+        loaded(key, promise, value);
+    }
+
+    public void invalidate(K key) {
+        synchronized (weights) {
+            entries.remove(key);
+            forget(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (weights) {
+            entries.clear();
+            weights.clear();
+            totalWeight = 0;
+            updateSize();
+        }
+    }
+
+    /*
+    * A smaller limit takes effect at once.
+    * */
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        synchronized (weights) {
+            evict(null);
+            updateSize();
+        }
+    }
+
+    public long getWeight() {
+        synchronized (weights) {
+            return totalWeight;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void touch(K key) {
+        if (weigher == null) {
+            return;
+        }
+        synchronized (weights) {
+            weights.get(key);
+        }
+    }
+
+    /*
+    * The value is weighed outside the lock, it may take a while for big metadata. An entry which was
+    * invalidated or replaced meanwhile is not counted.
+    * */
+    private void loaded(K key, Promise<V> promise, V value) {
+        if (weigher == null) {
+            return;
+        }
+        long weight = weigher.weigh(value);
+        synchronized (weights) {
+            if (entries.get(key) != promise) {
+                return;
+            }
+            forget(key);
+            weights.put(key, weight);
+            totalWeight += weight;
+            evict(key);
+            updateSize();
+        }
+    }
+
+    private void forget(K key) {
+        Long weight = weights.remove(key);
+        if (weight != null) {
+            totalWeight -= weight;
+            updateSize();
+        }
+    }
+
+    /*
+    * The entry just loaded is kept even if it alone is over the limit, the caller is about to use it.
+    * Entries still being loaded are not weighed yet and so never evicted.
+    * */
+    private void evict(K keptKey) {
+        Iterator<Map.Entry<K, Long>> leastRecentlyUsed = weights.entrySet().iterator();
+        while (totalWeight > maxWeight && leastRecentlyUsed.hasNext()) {
+            Map.Entry<K, Long> entry = leastRecentlyUsed.next();
+            if (entry.getKey().equals(keptKey)) {
+                continue;
+            }
+            entries.remove(entry.getKey());
+            totalWeight -= entry.getValue();
+            leastRecentlyUsed.remove();
+            statistics.evicted();
+        }
+    }
+
+    private void updateSize() {
+        if (weigher != null) {
+            statistics.setSize(weights.size(), totalWeight);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.smartbear.ready.plugin.jira.cache;
+
+public class StoredMetadata {
+    private final MetadataType type;
+    private final String json;
+    private final long storedAt;
+
+    public StoredMetadata(MetadataType type, String json, long storedAt) {
+        this.type = type;
+        this.json = json;
+        this.storedAt = storedAt;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    public boolean isStale() {
+        return System.currentTimeMillis() - storedAt > type.getTimeToLive();
+    }
+}
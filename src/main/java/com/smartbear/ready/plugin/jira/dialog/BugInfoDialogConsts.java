@@ -8,6 +8,7 @@ import com.eviware.x.form.support.AForm;
  * Created by avdeev on 16.03.2015.
  */
 public interface BugInfoDialogConsts {
+    public final static String FIND_PROJECT = "Find project";
     public final static String TARGET_ISSUE_PROJECT = "Project";
 
     public final static String ISSUE_TYPE = "Item type";
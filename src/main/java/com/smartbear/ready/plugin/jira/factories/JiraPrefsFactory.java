@@ -3,15 +3,28 @@ package com.smartbear.ready.plugin.jira.factories;
 import com.eviware.soapui.actions.Prefs;
 import com.eviware.soapui.model.settings.Settings;
 import com.eviware.soapui.plugins.auto.PluginPrefs;
+import com.eviware.soapui.support.UISupport;
 import com.eviware.soapui.support.components.SimpleForm;
 import com.eviware.soapui.support.types.StringToStringMap;
+import com.smartbear.ready.plugin.jira.impl.JiraClientPool;
+import com.smartbear.ready.plugin.jira.impl.JiraHttpClientFactory;
 import com.smartbear.ready.plugin.jira.impl.JiraProvider;
 import com.smartbear.ready.plugin.jira.settings.BugTrackerPrefs;
+import com.smartbear.ready.plugin.jira.settings.ServerProfiles;
 
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
 import javax.swing.JPasswordField;
-import javax.swing.JTextField;
-import javax.swing.event.DocumentEvent;
-import javax.swing.event.DocumentListener;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @PluginPrefs
 public class JiraPrefsFactory implements Prefs {
@@ -21,61 +34,196 @@ public class JiraPrefsFactory implements Prefs {
     public static final String BUG_TRACKER_PASSWORD_DESCRIPTION = "The password for logging in";
     public static final String BUG_TRACKER_URL = "JIRA server URL:";
     public static final String BUG_TRACKER_URL_DESCRIPTION = "The URL of your JIRA instance, for instance, https://mycompany.atlassian.net";
+    public static final String SERVER_PROFILES = "Other JIRA servers:";
+    public static final String SERVER_PROFILES_DESCRIPTION = "One server per line as \"name = URL, username\"; a project uses one when its JiraServerProfile property holds the name";
+    public static final String SERVER_PROFILE_PASSWORDS = "Passwords of other servers:";
+    public static final String SERVER_PROFILE_PASSWORDS_DESCRIPTION = "The password of each server listed above, stored apart from the servers";
+    public static final String EDIT_SERVER_PROFILE_PASSWORDS = "Edit Passwords...";
+    public static final String NO_SERVER_PROFILES = "Add the servers as \"name = URL, username\" lines first.";
+    public static final String WARM_UP_METADATA = "Preload JIRA metadata:";
+    public static final String WARM_UP_METADATA_DESCRIPTION = "Load projects, priorities and fields of the most used projects in the background when Ready! API starts";
+    public static final String METADATA_MEMORY_LIMIT = "Metadata memory limit (MB):";
+    public static final String METADATA_MEMORY_LIMIT_DESCRIPTION = "Project and field metadata of a JIRA server kept in memory up to about this size, the least recently used is dropped first";
+    public static final String COMPRESS_ATTACHMENTS = "Compress attachments:";
+    public static final String COMPRESS_ATTACHMENTS_DESCRIPTION = "Upload the project file and the log files gzip-compressed";
+    public static final String LOG_ATTACHMENT_LIMIT = "Log attachment limit (MB):";
+    public static final String LOG_ATTACHMENT_LIMIT_DESCRIPTION = "Only the last part of the log file up to this size is attached, 0 attaches the whole log";
+    public static final String FILE_FAILURES_FROM_COMMAND_LINE = "File failures from command line:";
+    public static final String FILE_FAILURES_FROM_COMMAND_LINE_DESCRIPTION = "Create JIRA items for test cases failed in command-line runs";
+    public static final String COMMAND_LINE_PROJECT = "Command-line JIRA project:";
+    public static final String COMMAND_LINE_PROJECT_DESCRIPTION = "The key of the JIRA project for items created in command-line runs";
+    public static final String COMMAND_LINE_ISSUE_TYPE = "Command-line item type:";
+    public static final String COMMAND_LINE_ISSUE_TYPE_DESCRIPTION = "The type of items created in command-line runs, for instance, Bug";
+    public static final String HTTP_MAX_CONNECTIONS = "Max connections:";
+    public static final String HTTP_MAX_CONNECTIONS_DESCRIPTION = "The maximum number of open connections to JIRA";
+    public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "Max connections per route:";
+    public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE_DESCRIPTION = "The maximum number of open connections to one JIRA host";
+    public static final String HTTP_CONNECT_TIMEOUT = "Connect timeout (s):";
+    public static final String HTTP_CONNECT_TIMEOUT_DESCRIPTION = "How long to wait for a connection to JIRA, in seconds";
+    public static final String HTTP_READ_TIMEOUT = "Read timeout (s):";
+    public static final String HTTP_READ_TIMEOUT_DESCRIPTION = "How long to wait for data from JIRA before a request fails, in seconds";
+    public static final String HTTP_CONNECTION_TIME_TO_LIVE = "Connection time to live (s):";
+    public static final String HTTP_CONNECTION_TIME_TO_LIVE_DESCRIPTION = "How long a connection to JIRA is used after it was opened, idle or not, before it is replaced, in seconds";
+    public static final String HTTP_CLIENT_IDLE_SHUTDOWN = "Close idle client after (s):";
+    public static final String HTTP_CLIENT_IDLE_SHUTDOWN_DESCRIPTION = "The JIRA client with its threads and connections is closed when it has not been used for this time, in seconds";
+    public static final String MAX_REQUESTS_PER_SECOND = "Max requests per second:";
+    public static final String MAX_REQUESTS_PER_SECOND_DESCRIPTION = "Requests to JIRA are delayed to stay under this rate, 0 disables the limit";
     public static final String JIRA_PREFS_TITLE = "JIRA";
 
-    private SimpleForm form;
-
-    private class BugTrackerSettingsChangeListener implements DocumentListener{
-
-        @Override
-        public void insertUpdate(DocumentEvent e) {
-            JiraProvider.freeProvider();
-        }
-
-        @Override
-        public void removeUpdate(DocumentEvent e) {
-            JiraProvider.freeProvider();
-        }
+    private static final String[] CONNECTION_SETTINGS = {BugTrackerPrefs.HTTP_MAX_CONNECTIONS, BugTrackerPrefs.HTTP_MAX_CONNECTIONS_PER_ROUTE,
+            BugTrackerPrefs.HTTP_CONNECT_TIMEOUT, BugTrackerPrefs.HTTP_READ_TIMEOUT, BugTrackerPrefs.HTTP_CONNECTION_TIME_TO_LIVE,
+            BugTrackerPrefs.MAX_REQUESTS_PER_SECOND};
 
-        @Override
-        public void changedUpdate(DocumentEvent e) {
-            JiraProvider.freeProvider();
-        }
-    }
+    private SimpleForm form;
+    //the passwords of the other servers as edited in the form, they are not part of its values
+    private final Map<String, String> profilePasswords = new LinkedHashMap<>();
 
     @Override
     public SimpleForm getForm() {
         if (form == null) {
             form = new SimpleForm();
             form.addSpace();
-            JTextField loginField = form.appendTextField(BUG_TRACKER_LOGIN, BUG_TRACKER_LOGIN_DESCRIPTION);
-            loginField.getDocument().addDocumentListener(new BugTrackerSettingsChangeListener());
-            JPasswordField passwordField = form.appendPasswordField(BUG_TRACKER_PASSWORD, BUG_TRACKER_PASSWORD_DESCRIPTION);
-            passwordField.getDocument().addDocumentListener(new BugTrackerSettingsChangeListener());
-            JTextField bugTrackerUrl = form.appendTextField(BUG_TRACKER_URL, BUG_TRACKER_URL_DESCRIPTION);
-            bugTrackerUrl.getDocument().addDocumentListener(new BugTrackerSettingsChangeListener());
+            form.appendTextField(BUG_TRACKER_LOGIN, BUG_TRACKER_LOGIN_DESCRIPTION);
+            form.appendPasswordField(BUG_TRACKER_PASSWORD, BUG_TRACKER_PASSWORD_DESCRIPTION);
+            form.appendTextField(BUG_TRACKER_URL, BUG_TRACKER_URL_DESCRIPTION);
+            form.appendTextArea(SERVER_PROFILES, SERVER_PROFILES_DESCRIPTION);
+            JButton editPasswordsButton = new JButton(new AbstractAction(EDIT_SERVER_PROFILE_PASSWORDS) {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    editProfilePasswords();
+                }
+            });
+            editPasswordsButton.setToolTipText(SERVER_PROFILE_PASSWORDS_DESCRIPTION);
+            form.append(SERVER_PROFILE_PASSWORDS, editPasswordsButton);
+            form.appendCheckBox(WARM_UP_METADATA, WARM_UP_METADATA_DESCRIPTION, false);
+            form.appendTextField(METADATA_MEMORY_LIMIT, METADATA_MEMORY_LIMIT_DESCRIPTION);
+            form.appendCheckBox(COMPRESS_ATTACHMENTS, COMPRESS_ATTACHMENTS_DESCRIPTION, false);
+            form.appendTextField(LOG_ATTACHMENT_LIMIT, LOG_ATTACHMENT_LIMIT_DESCRIPTION);
+            form.appendCheckBox(FILE_FAILURES_FROM_COMMAND_LINE, FILE_FAILURES_FROM_COMMAND_LINE_DESCRIPTION, false);
+            form.appendTextField(COMMAND_LINE_PROJECT, COMMAND_LINE_PROJECT_DESCRIPTION);
+            form.appendTextField(COMMAND_LINE_ISSUE_TYPE, COMMAND_LINE_ISSUE_TYPE_DESCRIPTION);
+            form.appendTextField(HTTP_MAX_CONNECTIONS, HTTP_MAX_CONNECTIONS_DESCRIPTION);
+            form.appendTextField(HTTP_MAX_CONNECTIONS_PER_ROUTE, HTTP_MAX_CONNECTIONS_PER_ROUTE_DESCRIPTION);
+            form.appendTextField(HTTP_CONNECT_TIMEOUT, HTTP_CONNECT_TIMEOUT_DESCRIPTION);
+            form.appendTextField(HTTP_READ_TIMEOUT, HTTP_READ_TIMEOUT_DESCRIPTION);
+            form.appendTextField(HTTP_CONNECTION_TIME_TO_LIVE, HTTP_CONNECTION_TIME_TO_LIVE_DESCRIPTION);
+            form.appendTextField(HTTP_CLIENT_IDLE_SHUTDOWN, HTTP_CLIENT_IDLE_SHUTDOWN_DESCRIPTION);
+            form.appendTextField(MAX_REQUESTS_PER_SECOND, MAX_REQUESTS_PER_SECOND_DESCRIPTION);
         }
 
         return form;
     }
 
+    /*
+    * Passwords typed into the server lines are moved out of them first, every listed server then gets a masked field.
+    * */
+    private void editProfilePasswords() {
+        String serializedProfiles = ServerProfiles.movePasswords(form.getComponentValue(SERVER_PROFILES), profilePasswords);
+        form.setComponentValue(SERVER_PROFILES, serializedProfiles);
+        List<String> profileNames = ServerProfiles.parseNames(serializedProfiles);
+        if (profileNames.isEmpty()) {
+            UISupport.showInfoMessage(NO_SERVER_PROFILES);
+            return;
+        }
+        JPanel passwordsPanel = new JPanel(new GridLayout(0, 2, 8, 4));
+        Map<String, JPasswordField> passwordFields = new LinkedHashMap<>();
+        for (String profileName : profileNames) {
+            String password = profilePasswords.get(profileName);
+            JPasswordField passwordField = new JPasswordField(password == null ? "" : password, 20);
+            passwordsPanel.add(new JLabel(profileName));
+            passwordsPanel.add(passwordField);
+            passwordFields.put(profileName, passwordField);
+        }
+        if (JOptionPane.showConfirmDialog(form.getPanel(), passwordsPanel, SERVER_PROFILE_PASSWORDS,
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) == JOptionPane.OK_OPTION) {
+            for (Map.Entry<String, JPasswordField> passwordField : passwordFields.entrySet()) {
+                profilePasswords.put(passwordField.getKey(), new String(passwordField.getValue().getPassword()));
+            }
+        }
+    }
+
     @Override
     public void setFormValues(Settings settings) {
-        getForm().setValues(getValues(settings));
+        StringToStringMap values = getValues(settings);
+        profilePasswords.clear();
+        profilePasswords.putAll(ServerProfiles.parsePasswords(values.remove(SERVER_PROFILE_PASSWORDS)));
+        getForm().setValues(values);
     }
 
     @Override
     public void getFormValues(Settings settings) {
         StringToStringMap values = new StringToStringMap();
         form.getValues(values);
+        values.put(SERVER_PROFILE_PASSWORDS, ServerProfiles.serializePasswords(profilePasswords));
         storeValues(values, settings);
     }
 
     @Override
     public void storeValues(StringToStringMap values, Settings settings) {
+        String previousConnectionSettings = getConnectionSettings(settings);
+        Map<String, String> previousConnectionKeys = getConnectionKeys(settings);
         settings.setString(BugTrackerPrefs.LOGIN, values.get(BUG_TRACKER_LOGIN));
         settings.setString(BugTrackerPrefs.PASSWORD, values.get(BUG_TRACKER_PASSWORD));
         settings.setString(BugTrackerPrefs.DEFAULT_URL, values.get(BUG_TRACKER_URL));
+        String serializedPasswords = values.get(SERVER_PROFILE_PASSWORDS);
+        Map<String, String> passwords = ServerProfiles.parsePasswords(serializedPasswords != null ? serializedPasswords
+                : settings.getString(BugTrackerPrefs.SERVER_PROFILE_PASSWORDS, ""));
+        String serializedProfiles = ServerProfiles.movePasswords(values.get(SERVER_PROFILES), passwords);
+        passwords.keySet().retainAll(ServerProfiles.parseNames(serializedProfiles));
+        settings.setString(BugTrackerPrefs.SERVER_PROFILES, serializedProfiles);
+        settings.setString(BugTrackerPrefs.SERVER_PROFILE_PASSWORDS, ServerProfiles.serializePasswords(passwords));
+        settings.setBoolean(BugTrackerPrefs.WARM_UP_METADATA, Boolean.parseBoolean(values.get(WARM_UP_METADATA)));
+        settings.setString(BugTrackerPrefs.METADATA_MEMORY_LIMIT, values.get(METADATA_MEMORY_LIMIT));
+        settings.setBoolean(BugTrackerPrefs.COMPRESS_ATTACHMENTS, Boolean.parseBoolean(values.get(COMPRESS_ATTACHMENTS)));
+        settings.setString(BugTrackerPrefs.LOG_ATTACHMENT_LIMIT, values.get(LOG_ATTACHMENT_LIMIT));
+        settings.setBoolean(BugTrackerPrefs.FILE_FAILURES_FROM_COMMAND_LINE, Boolean.parseBoolean(values.get(FILE_FAILURES_FROM_COMMAND_LINE)));
+        settings.setString(BugTrackerPrefs.COMMAND_LINE_PROJECT, values.get(COMMAND_LINE_PROJECT));
+        settings.setString(BugTrackerPrefs.COMMAND_LINE_ISSUE_TYPE, values.get(COMMAND_LINE_ISSUE_TYPE));
+        settings.setString(BugTrackerPrefs.HTTP_MAX_CONNECTIONS, values.get(HTTP_MAX_CONNECTIONS));
+        settings.setString(BugTrackerPrefs.HTTP_MAX_CONNECTIONS_PER_ROUTE, values.get(HTTP_MAX_CONNECTIONS_PER_ROUTE));
+        settings.setString(BugTrackerPrefs.HTTP_CONNECT_TIMEOUT, values.get(HTTP_CONNECT_TIMEOUT));
+        settings.setString(BugTrackerPrefs.HTTP_READ_TIMEOUT, values.get(HTTP_READ_TIMEOUT));
+        settings.setString(BugTrackerPrefs.HTTP_CONNECTION_TIME_TO_LIVE, values.get(HTTP_CONNECTION_TIME_TO_LIVE));
+        settings.setString(BugTrackerPrefs.HTTP_CLIENT_IDLE_SHUTDOWN, values.get(HTTP_CLIENT_IDLE_SHUTDOWN));
+        settings.setString(BugTrackerPrefs.MAX_REQUESTS_PER_SECOND, values.get(MAX_REQUESTS_PER_SECOND));
+        JiraClientPool.getInstance().setIdleTimeout(getClientIdleShutdownSeconds(settings), TimeUnit.SECONDS);
+        JiraProvider.setMetadataMemoryLimit(getMetadataMemoryLimitBytes(settings));
+        if (!previousConnectionSettings.equals(getConnectionSettings(settings))) {
+            //the clients and the rate limiters are built with these settings, so they have to be recreated
+            JiraProvider.freeProvider();
+        } else {
+            //the client and the cached metadata of a server are kept unless its server, login or password has changed
+            Map<String, String> connectionKeys = getConnectionKeys(settings);
+            for (Map.Entry<String, String> previousConnectionKey : previousConnectionKeys.entrySet()) {
+                if (!previousConnectionKey.getValue().equals(connectionKeys.get(previousConnectionKey.getKey()))) {
+                    JiraProvider.freeProvider(previousConnectionKey.getKey());
+                }
+            }
+        }
+    }
+
+    public static long getMetadataMemoryLimitBytes(Settings settings) {
+        return JiraHttpClientFactory.getPositiveInt(settings, BugTrackerPrefs.METADATA_MEMORY_LIMIT, BugTrackerPrefs.DEFAULT_METADATA_MEMORY_LIMIT_MB) * 1024L * 1024L;
+    }
+
+    public static int getClientIdleShutdownSeconds(Settings settings) {
+        return JiraHttpClientFactory.getPositiveInt(settings, BugTrackerPrefs.HTTP_CLIENT_IDLE_SHUTDOWN, BugTrackerPrefs.DEFAULT_HTTP_CLIENT_IDLE_SHUTDOWN_SECONDS);
+    }
+
+    private static Map<String, String> getConnectionKeys(Settings settings) {
+        Map<String, String> connectionKeys = new HashMap<>();
+        for (String profileName : ServerProfiles.getProfileNames(settings)) {
+            connectionKeys.put(profileName, ServerProfiles.getSettings(settings, profileName).getConnectionKey());
+        }
+        return connectionKeys;
+    }
+
+    private static String getConnectionSettings(Settings settings) {
+        StringBuilder connectionSettings = new StringBuilder();
+        for (String settingName : CONNECTION_SETTINGS) {
+            connectionSettings.append(settings.getString(settingName, "")).append('\n');
+        }
+        return connectionSettings.toString();
     }
 
     @Override
@@ -84,6 +232,23 @@ public class JiraPrefsFactory implements Prefs {
         values.put(BUG_TRACKER_LOGIN, settings.getString(BugTrackerPrefs.LOGIN, ""));
         values.put(BUG_TRACKER_PASSWORD, settings.getString(BugTrackerPrefs.PASSWORD, ""));
         values.put(BUG_TRACKER_URL, settings.getString(BugTrackerPrefs.DEFAULT_URL, ""));
+        Map<String, String> passwords = ServerProfiles.parsePasswords(settings.getString(BugTrackerPrefs.SERVER_PROFILE_PASSWORDS, ""));
+        values.put(SERVER_PROFILES, ServerProfiles.movePasswords(settings.getString(BugTrackerPrefs.SERVER_PROFILES, ""), passwords));
+        values.put(SERVER_PROFILE_PASSWORDS, ServerProfiles.serializePasswords(passwords));
+        values.put(WARM_UP_METADATA, String.valueOf(settings.getBoolean(BugTrackerPrefs.WARM_UP_METADATA)));
+        values.put(METADATA_MEMORY_LIMIT, settings.getString(BugTrackerPrefs.METADATA_MEMORY_LIMIT, String.valueOf(BugTrackerPrefs.DEFAULT_METADATA_MEMORY_LIMIT_MB)));
+        values.put(COMPRESS_ATTACHMENTS, String.valueOf(settings.getBoolean(BugTrackerPrefs.COMPRESS_ATTACHMENTS)));
+        values.put(LOG_ATTACHMENT_LIMIT, settings.getString(BugTrackerPrefs.LOG_ATTACHMENT_LIMIT, String.valueOf(BugTrackerPrefs.DEFAULT_LOG_ATTACHMENT_LIMIT_MB)));
+        values.put(FILE_FAILURES_FROM_COMMAND_LINE, String.valueOf(settings.getBoolean(BugTrackerPrefs.FILE_FAILURES_FROM_COMMAND_LINE)));
+        values.put(COMMAND_LINE_PROJECT, settings.getString(BugTrackerPrefs.COMMAND_LINE_PROJECT, ""));
+        values.put(COMMAND_LINE_ISSUE_TYPE, settings.getString(BugTrackerPrefs.COMMAND_LINE_ISSUE_TYPE, ""));
+        values.put(HTTP_MAX_CONNECTIONS, settings.getString(BugTrackerPrefs.HTTP_MAX_CONNECTIONS, String.valueOf(BugTrackerPrefs.DEFAULT_HTTP_MAX_CONNECTIONS)));
+        values.put(HTTP_MAX_CONNECTIONS_PER_ROUTE, settings.getString(BugTrackerPrefs.HTTP_MAX_CONNECTIONS_PER_ROUTE, String.valueOf(BugTrackerPrefs.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE)));
+        values.put(HTTP_CONNECT_TIMEOUT, settings.getString(BugTrackerPrefs.HTTP_CONNECT_TIMEOUT, String.valueOf(BugTrackerPrefs.DEFAULT_HTTP_CONNECT_TIMEOUT_SECONDS)));
+        values.put(HTTP_READ_TIMEOUT, settings.getString(BugTrackerPrefs.HTTP_READ_TIMEOUT, String.valueOf(BugTrackerPrefs.DEFAULT_HTTP_READ_TIMEOUT_SECONDS)));
+        values.put(HTTP_CONNECTION_TIME_TO_LIVE, settings.getString(BugTrackerPrefs.HTTP_CONNECTION_TIME_TO_LIVE, String.valueOf(BugTrackerPrefs.DEFAULT_HTTP_CONNECTION_TIME_TO_LIVE_SECONDS)));
+        values.put(HTTP_CLIENT_IDLE_SHUTDOWN, settings.getString(BugTrackerPrefs.HTTP_CLIENT_IDLE_SHUTDOWN, String.valueOf(BugTrackerPrefs.DEFAULT_HTTP_CLIENT_IDLE_SHUTDOWN_SECONDS)));
+        values.put(MAX_REQUESTS_PER_SECOND, settings.getString(BugTrackerPrefs.MAX_REQUESTS_PER_SECOND, String.valueOf(BugTrackerPrefs.DEFAULT_MAX_REQUESTS_PER_SECOND)));
         return values;
     }
 
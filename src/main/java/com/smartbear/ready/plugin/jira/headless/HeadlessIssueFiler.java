@@ -0,0 +1,201 @@
+package com.smartbear.ready.plugin.jira.headless;
+
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.model.settings.Settings;
+import com.eviware.soapui.model.testsuite.TestCase;
+import com.eviware.soapui.support.StringUtils;
+import com.smartbear.ready.plugin.jira.impl.IssueCreationResult;
+import com.smartbear.ready.plugin.jira.impl.IssueDraft;
+import com.smartbear.ready.plugin.jira.impl.JiraProvider;
+import com.smartbear.ready.plugin.jira.metrics.JiraMetrics;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerPrefs;
+import com.smartbear.ready.plugin.jira.settings.ServerProfiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Files JIRA items for failed test cases when tests are run from the command line. Failures are put
+ * into a bounded queue which a background thread sends to JIRA in batches, so the test runner never
+ * waits for JIRA. When the queue is full, further failures are dropped and counted.
+ */
+public class HeadlessIssueFiler {
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessIssueFiler.class);
+
+    public static final int QUEUE_CAPACITY = 500;
+    public static final int BATCH_SIZE = 50;
+    public static final long BATCH_LINGER_MILLIS = 2000;
+    public static final long FLUSH_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private static HeadlessIssueFiler instance = null;
+
+    private final String projectKey;
+    private final String issueType;
+    private final BlockingQueue<QueuedIssue> pendingIssues = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicInteger droppedIssues = new AtomicInteger();
+    private final List<String> createdIssues = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> failedIssues = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger outstandingIssues = new AtomicInteger();
+    private final Object flushLock = new Object();
+
+    private HeadlessIssueFiler(String projectKey, String issueType) {
+        this.projectKey = projectKey;
+        this.issueType = issueType;
+        Thread filingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fileIssues();
+            }
+        }, "jira-headless-filer");
+        filingThread.setDaemon(true);
+        filingThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flush(FLUSH_TIMEOUT_MILLIS);
+            }
+        }, "jira-headless-filer-flush"));
+    }
+
+    public static boolean isEnabled() {
+        if (!SoapUI.isCommandLine()) {
+            return false;
+        }
+        Settings settings = SoapUI.getSettings();
+        return settings.getBoolean(BugTrackerPrefs.FILE_FAILURES_FROM_COMMAND_LINE) &&
+                !StringUtils.isNullOrEmpty(settings.getString(BugTrackerPrefs.COMMAND_LINE_PROJECT, "")) &&
+                !StringUtils.isNullOrEmpty(settings.getString(BugTrackerPrefs.COMMAND_LINE_ISSUE_TYPE, ""));
+    }
+
+    public static synchronized HeadlessIssueFiler getInstance() {
+        if (instance == null) {
+            Settings settings = SoapUI.getSettings();
+            instance = new HeadlessIssueFiler(settings.getString(BugTrackerPrefs.COMMAND_LINE_PROJECT, ""),
+                    settings.getString(BugTrackerPrefs.COMMAND_LINE_ISSUE_TYPE, ""));
+        }
+        return instance;
+    }
+
+    public void enqueue(TestCase testCase, String failureDetails) {
+        String summary = String.format("Test case '%s' of the '%s' test suite failed", testCase.getName(), testCase.getTestSuite().getName());
+        IssueDraft issueDraft = new IssueDraft(projectKey, issueType, summary, failureDetails, null);
+        outstandingIssues.incrementAndGet();
+        if (!pendingIssues.offer(new QueuedIssue(ServerProfiles.getProfileName(testCase), issueDraft))) {
+            outstandingIssues.decrementAndGet();
+            droppedIssues.incrementAndGet();
+        }
+    }
+
+    private void fileIssues() {
+        while (true) {
+            List<QueuedIssue> batch = new ArrayList<>();
+            try {
+                batch.add(pendingIssues.take());
+                long lingerEnd = System.currentTimeMillis() + BATCH_LINGER_MILLIS;
+                while (batch.size() < BATCH_SIZE) {
+                    QueuedIssue next = pendingIssues.poll(Math.max(0, lingerEnd - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            //the projects of the failed test cases may use different JIRA servers
+            Map<String, List<IssueDraft>> draftsByProfile = new LinkedHashMap<>();
+            for (QueuedIssue queuedIssue : batch) {
+                List<IssueDraft> drafts = draftsByProfile.get(queuedIssue.profileName);
+                if (drafts == null) {
+                    drafts = new ArrayList<>();
+                    draftsByProfile.put(queuedIssue.profileName, drafts);
+                }
+                drafts.add(queuedIssue.issueDraft);
+            }
+            for (Map.Entry<String, List<IssueDraft>> drafts : draftsByProfile.entrySet()) {
+                fileIssues(drafts.getKey(), drafts.getValue());
+            }
+            synchronized (flushLock) {
+                outstandingIssues.addAndGet(-batch.size());
+                flushLock.notifyAll();
+            }
+        }
+    }
+
+    private void fileIssues(String profileName, List<IssueDraft> issueDrafts) {
+        try {
+            List<IssueCreationResult> results = JiraProvider.getProvider(profileName).createIssues(issueDrafts);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).getSuccess()) {
+                    createdIssues.add(results.get(i).getIssue().getKey() + " " + issueDrafts.get(i).getSummary());
+                } else {
+                    failedIssues.add(issueDrafts.get(i).getSummary() + ": " + results.get(i).getError());
+                }
+            }
+        } catch (RuntimeException e) {
+            for (IssueDraft issueDraft : issueDrafts) {
+                failedIssues.add(issueDraft.getSummary() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /*
+    * Waits until everything queued so far is sent to JIRA or the timeout expires, then prints a summary.
+    * */
+    public void flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (flushLock) {
+            while (outstandingIssues.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    flushLock.wait(Math.min(remaining, BATCH_LINGER_MILLIS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        printSummary();
+    }
+
+    private void printSummary() {
+        StringBuilder summary = new StringBuilder(String.format("JIRA items for failed test cases: %d created, %d failed, %d not sent in time, %d dropped because the queue was full",
+                createdIssues.size(), failedIssues.size(), outstandingIssues.get(), droppedIssues.get()));
+        synchronized (createdIssues) {
+            for (String createdIssue : createdIssues) {
+                summary.append("\n  created ").append(createdIssue);
+            }
+        }
+        synchronized (failedIssues) {
+            for (String failedIssue : failedIssues) {
+                summary.append("\n  failed ").append(failedIssue);
+            }
+        }
+        logger.info(summary.toString());
+        //the client stays open until the run exits, so its metrics are not logged when it is closed
+        JiraMetrics.getInstance().logSummaryIfRecorded();
+    }
+
+    private static class QueuedIssue {
+        final String profileName;
+        final IssueDraft issueDraft;
+
+        QueuedIssue(String profileName, IssueDraft issueDraft) {
+            this.profileName = profileName;
+            this.issueDraft = issueDraft;
+        }
+    }
+}
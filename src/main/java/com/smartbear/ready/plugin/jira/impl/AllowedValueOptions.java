@@ -0,0 +1,117 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.NamedEntity;
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.atlassian.jira.rest.client.api.domain.CustomFieldOption;
+import com.google.common.collect.MapMaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Option names of a field with allowed values. The names are decoded only as far as they are needed
+ * and indexed for type-ahead filtering on the first search. A field gets one instance, which serves
+ * both the required variant and the optional one with an empty value in front.
+ * The fields are compared by identity, so a lookup neither hashes all allowed values of the field nor locks the other fields.
+ * Reloaded metadata brings new field instances and so new options, the old ones go away with the old metadata.
+ */
+public class AllowedValueOptions {
+    public static final String EMPTY_VALUE = "";
+
+    private static final ConcurrentMap<CimFieldInfo, AllowedValueOptions> fieldOptions = new MapMaker().weakKeys().makeMap();
+
+    private final Iterator<Object> allowedValues;
+    private final List<String> names = new ArrayList<>();
+    private PrefixIndex index;
+
+    public AllowedValueOptions(Iterable<Object> allowedValues) {
+        this.allowedValues = allowedValues == null ? Collections.<Object>emptyIterator() : allowedValues.iterator();
+    }
+
+    public static AllowedValueOptions forField(CimFieldInfo fieldInfo) {
+        AllowedValueOptions options = fieldOptions.get(fieldInfo);
+        if (options == null) {
+            AllowedValueOptions newOptions = new AllowedValueOptions(fieldInfo.getAllowedValues());
+            options = fieldOptions.putIfAbsent(fieldInfo, newOptions);
+            if (options == null) {
+                options = newOptions;
+            }
+        }
+        return options;
+    }
+
+    public synchronized boolean isEmpty() {
+        return !decodeUpTo(1);
+    }
+
+    public synchronized boolean hasMoreThan(int count) {
+        return decodeUpTo(count + 1);
+    }
+
+    public synchronized Object[] getFirstOptions(int limit, boolean withEmptyValue) {
+        decodeUpTo(limit);
+        return toOptions(names.subList(0, Math.min(limit, names.size())), withEmptyValue);
+    }
+
+    public synchronized Object[] getAllOptions(boolean withEmptyValue) {
+        decodeUpTo(Integer.MAX_VALUE);
+        return toOptions(names, withEmptyValue);
+    }
+
+    /*
+    * An empty prefix gives the first options.
+    * */
+    public synchronized Object[] search(String prefix, int limit, boolean withEmptyValue) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return getFirstOptions(limit, withEmptyValue);
+        }
+        if (index == null) {
+            decodeUpTo(Integer.MAX_VALUE);
+            PrefixIndex.Builder indexBuilder = new PrefixIndex.Builder();
+            for (int i = 0; i < names.size(); i++) {
+                indexBuilder.add(i, names.get(i));
+            }
+            index = indexBuilder.build();
+        }
+        List<String> foundNames = new ArrayList<>();
+        for (int found : index.search(prefix, limit)) {
+            foundNames.add(names.get(found));
+        }
+        return toOptions(foundNames, withEmptyValue);
+    }
+
+    private boolean decodeUpTo(int count) {
+        while (names.size() < count && allowedValues.hasNext()) {
+            String name = getName(allowedValues.next());
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return names.size() >= count;
+    }
+
+    private static Object[] toOptions(List<String> optionNames, boolean withEmptyValue) {
+        int offset = withEmptyValue ? 1 : 0;
+        Object[] options = new Object[optionNames.size() + offset];
+        if (withEmptyValue) {
+            options[0] = EMPTY_VALUE;
+        }
+        for (int i = 0; i < optionNames.size(); i++) {
+            options[i + offset] = optionNames.get(i);
+        }
+        return options;
+    }
+
+    private static String getName(Object allowedValue) {
+        if (allowedValue instanceof CustomFieldOption) {
+            return ((CustomFieldOption) allowedValue).getValue();
+        }
+        if (allowedValue instanceof NamedEntity) {
+            return ((NamedEntity) allowedValue).getName();
+        }
+        return null;
+    }
+}
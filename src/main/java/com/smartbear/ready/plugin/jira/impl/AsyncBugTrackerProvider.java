@@ -0,0 +1,25 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.atlassian.util.concurrent.Promise;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking variant of {@link SimpleBugTrackerProvider}. The promises of the item creation and attachment
+ * methods are never rejected, failures are reported by the result objects, so the calls can be chained.
+ */
+public interface AsyncBugTrackerProvider {
+    public Promise<IssueCreationResult> createIssueAsync(String projectKey, String issueKey, String summary, String description, Map<String, String> extraRequiredValues);
+    public Promise<List<IssueCreationResult>> createIssuesAsync(List<IssueDraft> issueDrafts);
+    public Promise<AttachmentAddingResult> attachFileAsync(URI attachmentUri, String fileName, InputStream inputStream);
+    public Promise<AttachmentAddingResult> attachFileAsync(URI attachmentUri, String filePath);
+    public Promise<List<String>> getListOfAllProjectsAsync();
+    public Promise<List<String>> searchProjectsAsync(String prefix, int limit);
+    public Promise<List<String>> getListOfProjectIssueTypesAsync(String projectKey);
+    public Promise<Map<String, Map<String, Map<String, CimFieldInfo>>>> getProjectFieldsAsync(String... projects);
+    public Promise<Map<String, CimFieldInfo>> getIssueTypeFieldsAsync(String projectKey, String issueType);
+}
@@ -4,13 +4,27 @@ package com.smartbear.ready.plugin.jira.impl;
  * Created by avdeev on 18.03.2015.
  */
 public class AttachmentAddingResult extends BugTrackerActionResult {
+    private boolean temporaryFailure;
+
     public AttachmentAddingResult() {
         this.isSuccess = true;
         this.error = null;
     }
 
     public AttachmentAddingResult(String error){
+        this(error, false);
+    }
+
+    /*
+    * A temporary failure is one which can go away when the upload is repeated later, for instance, when JIRA is not reachable.
+    * */
+    public AttachmentAddingResult(String error, boolean temporaryFailure){
         this.isSuccess = false;
         this.error = error;
+        this.temporaryFailure = temporaryFailure;
+    }
+
+    public boolean isTemporaryFailure(){
+        return temporaryFailure;
     }
 }
@@ -0,0 +1,141 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.util.concurrent.Promise;
+import com.atlassian.util.concurrent.Promises;
+import com.eviware.x.dialogs.XProgressMonitor;
+import com.google.common.util.concurrent.FutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Uploads all attachments of a new item at the same time, so adding them takes about as long
+ * as the slowest single upload. The uploads are asynchronous, no thread is held per attachment.
+ */
+public class AttachmentUploadPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentUploadPipeline.class);
+
+    private final AsyncBugTrackerProvider bugTrackerProvider;
+    private final URI attachmentUri;
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<Callable<Promise<AttachmentAddingResult>>> uploads = new ArrayList<>();
+
+    public AttachmentUploadPipeline(AsyncBugTrackerProvider bugTrackerProvider, URI attachmentUri) {
+        this.bugTrackerProvider = bugTrackerProvider;
+        this.attachmentUri = attachmentUri;
+    }
+
+    /*
+    * The stream is opened when the pipeline runs and closed once its upload is finished.
+    * */
+    public void addStream(final String fileName, final Callable<InputStream> streamOpener) {
+        fileNames.add(fileName);
+        uploads.add(new Callable<Promise<AttachmentAddingResult>>() {
+            @Override
+            public Promise<AttachmentAddingResult> call() throws Exception {
+                final InputStream inputStream = streamOpener.call();
+                if (inputStream == null) {
+                    return Promises.promise(new AttachmentAddingResult("Unable to read the content of " + fileName));
+                }
+                return bugTrackerProvider.attachFileAsync(attachmentUri, fileName, inputStream).then(new FutureCallback<AttachmentAddingResult>() {
+                    @Override
+                    public void onSuccess(AttachmentAddingResult result) {
+                        closeQuietly(inputStream);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable error) {
+                        closeQuietly(inputStream);
+                    }
+                });
+            }
+        });
+    }
+
+    public void addFile(final String filePath) {
+        fileNames.add(filePath);
+        uploads.add(new Callable<Promise<AttachmentAddingResult>>() {
+            @Override
+            public Promise<AttachmentAddingResult> call() throws Exception {
+                return bugTrackerProvider.attachFileAsync(attachmentUri, filePath);
+            }
+        });
+    }
+
+    public Map<String, AttachmentAddingResult> run(XProgressMonitor progressMonitor) {
+        Map<String, AttachmentAddingResult> results = new LinkedHashMap<>();
+        final BlockingQueue<Integer> finishedUploads = new LinkedBlockingQueue<>();
+        List<Promise<AttachmentAddingResult>> pendingUploads = new ArrayList<>();
+        for (int i = 0; i < uploads.size(); i++) {
+            final int uploadIndex = i;
+            results.put(fileNames.get(i), null);
+            Promise<AttachmentAddingResult> upload = startUpload(uploads.get(i));
+            pendingUploads.add(upload);
+            upload.then(new FutureCallback<AttachmentAddingResult>() {
+                @Override
+                public void onSuccess(AttachmentAddingResult result) {
+                    finishedUploads.add(uploadIndex);
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    finishedUploads.add(uploadIndex);
+                }
+            });
+        }
+
+        for (int finished = 1; finished <= uploads.size(); finished++) {
+            try {
+                int uploadIndex = finishedUploads.take();
+                String fileName = fileNames.get(uploadIndex);
+                try {
+                    results.put(fileName, pendingUploads.get(uploadIndex).claim());
+                } catch (RuntimeException e) {
+                    logger.error(e.getMessage());
+                    results.put(fileName, new AttachmentAddingResult(e.getMessage()));
+                }
+                if (progressMonitor != null) {
+                    progressMonitor.setProgress(finished * 100 / uploads.size(),
+                            String.format("Attached %s (%d of %d)", fileName, finished, uploads.size()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        for (Map.Entry<String, AttachmentAddingResult> result : results.entrySet()) {
+            if (result.getValue() == null) {
+                result.setValue(new AttachmentAddingResult("Uploading was interrupted", true));
+            }
+        }
+        return results;
+    }
+
+    private static Promise<AttachmentAddingResult> startUpload(Callable<Promise<AttachmentAddingResult>> upload) {
+        try {
+            return upload.call();
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            return Promises.promise(new AttachmentAddingResult(e.getMessage()));
+        }
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            logger.warn(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.atlassian.jira.rest.client.api.domain.Priority;
+import com.atlassian.jira.rest.client.api.domain.input.ComplexIssueInputFieldValue;
+import com.atlassian.jira.rest.client.api.domain.input.FieldInput;
+import com.atlassian.jira.rest.client.api.domain.input.IssueInputBuilder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How the extra values of one item type are put into the JIRA input, compiled once from the field
+ * metadata and the priorities, so every value is encoded with a single map lookup.
+ */
+class FieldEncodingPlan {
+    interface FieldEncoder {
+        void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value);
+    }
+
+    private static final FieldEncoder PLAIN_VALUE = new FieldEncoder() {
+        @Override
+        public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+            issueInputBuilder.setFieldValue(fieldName, value);
+        }
+    };
+
+    private static final FieldEncoder CUSTOM_OPTION = new FieldEncoder() {
+        @Override
+        public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+            Map<String, Object> customOptionValue = new HashMap<>();
+            customOptionValue.put("value", value);
+            issueInputBuilder.setFieldValue(fieldName, new ComplexIssueInputFieldValue(customOptionValue));
+        }
+    };
+
+    private static final Map<String, FieldEncoder> BUILT_IN_ENCODERS = new HashMap<>();
+
+    static {
+        BUILT_IN_ENCODERS.put("components", new FieldEncoder() {
+            @Override
+            public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+                issueInputBuilder.setComponentsNames(Collections.singletonList(value));
+            }
+        });
+        BUILT_IN_ENCODERS.put("versions", new FieldEncoder() {
+            @Override
+            public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+                issueInputBuilder.setAffectedVersionsNames(Collections.singletonList(value));
+            }
+        });
+        BUILT_IN_ENCODERS.put("fixVersions", new FieldEncoder() {
+            @Override
+            public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+                issueInputBuilder.setFixVersionsNames(Collections.singletonList(value));
+            }
+        });
+        BUILT_IN_ENCODERS.put("assignee", new FieldEncoder() {
+            @Override
+            public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+                issueInputBuilder.setAssigneeName(value);
+            }
+        });
+        BUILT_IN_ENCODERS.put("parent", new FieldEncoder() {
+            @Override
+            public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+                Map<String, Object> parent = new HashMap<String, Object>();
+                parent.put("key", value);
+                issueInputBuilder.setFieldInput(new FieldInput(fieldName, new ComplexIssueInputFieldValue(parent)));
+            }
+        });
+        BUILT_IN_ENCODERS.put("resolution", new FieldEncoder() {
+            @Override
+            public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+                Map<String, Object> resolution = new HashMap<>();
+                resolution.put("name", value);
+                issueInputBuilder.setFieldValue(fieldName, new ComplexIssueInputFieldValue(resolution));
+            }
+        });
+    }
+
+    private final Map<String, CimFieldInfo> fields;
+    private final Iterable<Priority> priorities;
+    private final Map<String, FieldEncoder> encoders;
+
+    private FieldEncodingPlan(Map<String, CimFieldInfo> fields, Iterable<Priority> priorities, Map<String, FieldEncoder> encoders) {
+        this.fields = fields;
+        this.priorities = priorities;
+        this.encoders = encoders;
+    }
+
+    /*
+    * Fields without metadata, e.g. when only built-in fields were requested, are sent as plain values.
+    * */
+    static FieldEncodingPlan compile(Map<String, CimFieldInfo> fields, Iterable<Priority> priorities) {
+        Map<String, FieldEncoder> encoders = new HashMap<>();
+        if (fields != null) {
+            for (Map.Entry<String, CimFieldInfo> field : fields.entrySet()) {
+                encoders.put(field.getKey(), field.getValue().getAllowedValues() != null ? CUSTOM_OPTION : PLAIN_VALUE);
+            }
+        }
+        encoders.putAll(BUILT_IN_ENCODERS);
+
+        final Map<String, Priority> prioritiesByName = new HashMap<>();
+        for (Priority priority : priorities) {
+            if (!prioritiesByName.containsKey(priority.getName())) {
+                prioritiesByName.put(priority.getName(), priority);
+            }
+        }
+        encoders.put("priority", new FieldEncoder() {
+            @Override
+            public void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+                issueInputBuilder.setPriority(prioritiesByName.get(value));
+            }
+        });
+        return new FieldEncodingPlan(fields, priorities, encoders);
+    }
+
+    /*
+    * The loaded metadata is replaced, not changed, when it is revalidated, so comparing the instances
+    * tells whether the plan is still up to date.
+    * */
+    boolean isCompiledFrom(Map<String, CimFieldInfo> fields, Iterable<Priority> priorities) {
+        return this.fields == fields && this.priorities == priorities;
+    }
+
+    void encode(IssueInputBuilder issueInputBuilder, String fieldName, String value) {
+        FieldEncoder encoder = encoders.get(fieldName);
+        (encoder != null ? encoder : PLAIN_VALUE).encode(issueInputBuilder, fieldName, value);
+    }
+}
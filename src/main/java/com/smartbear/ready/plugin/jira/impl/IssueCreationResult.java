@@ -5,6 +5,7 @@ import com.sun.istack.internal.NotNull;
 
 public class IssueCreationResult extends BugTrackerActionResult{
     protected BasicIssue issue;
+    private boolean temporaryFailure;
     private IssueCreationResult(){}
 
     public IssueCreationResult(@NotNull BasicIssue issue){
@@ -17,12 +18,24 @@ public class IssueCreationResult extends BugTrackerActionResult{
     * This constructor should be used for failed cases.
     * */
     public IssueCreationResult(@NotNull String error){
+        this(error, false);
+    }
+
+    /*
+    * A temporary failure is one which can go away when the request is repeated later, for instance, when JIRA is not reachable.
+    * */
+    public IssueCreationResult(@NotNull String error, boolean temporaryFailure){
         this.issue = null;
         this.error = error;
         this.isSuccess = false;
+        this.temporaryFailure = temporaryFailure;
     }
 
     public BasicIssue getIssue(){
         return issue;
     }
+
+    public boolean isTemporaryFailure(){
+        return temporaryFailure;
+    }
 }
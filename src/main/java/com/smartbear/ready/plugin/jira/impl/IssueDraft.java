@@ -0,0 +1,43 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import java.util.Collections;
+import java.util.Map;
+
+/*
+* Values of a JIRA item which is not created yet, used for creating several items at once.
+* */
+public class IssueDraft {
+    private final String projectKey;
+    private final String issueType;
+    private final String summary;
+    private final String description;
+    private final Map<String, String> extraValues;
+
+    public IssueDraft(String projectKey, String issueType, String summary, String description, Map<String, String> extraValues) {
+        this.projectKey = projectKey;
+        this.issueType = issueType;
+        this.summary = summary;
+        this.description = description;
+        this.extraValues = extraValues == null ? Collections.<String, String>emptyMap() : extraValues;
+    }
+
+    public String getProjectKey() {
+        return projectKey;
+    }
+
+    public String getIssueType() {
+        return issueType;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Map<String, String> getExtraValues() {
+        return extraValues;
+    }
+}
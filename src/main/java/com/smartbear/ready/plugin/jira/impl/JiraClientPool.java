@@ -0,0 +1,241 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.JiraRestClient;
+import com.atlassian.jira.rest.client.auth.BasicHttpAuthenticationHandler;
+import com.atlassian.jira.rest.client.internal.async.AsynchronousJiraRestClient;
+import com.atlassian.jira.rest.client.internal.async.DisposableHttpClient;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.smartbear.ready.plugin.jira.metrics.JiraMetrics;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the REST clients of JIRA servers between providers and closes them deterministically. A client
+ * is counted as used by every provider registered for it and by every request in flight. It is opened
+ * by the first request, closed when no request has used it for the idle timeout, and closed at once
+ * when its last provider is closed.
+ */
+public class JiraClientPool {
+    private static final Logger logger = LoggerFactory.getLogger(JiraClientPool.class);
+
+    private static final JiraClientPool instance = new JiraClientPool();
+
+    private final Map<String, SharedClient> clients = new HashMap<>();
+    private final ScheduledExecutorService idleShutdownExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("jira-client-idle-shutdown-%d").setDaemon(true).build());
+    private volatile long idleTimeoutMillis = TimeUnit.SECONDS.toMillis(300);
+
+    public static JiraClientPool getInstance() {
+        return instance;
+    }
+
+    public void setIdleTimeout(long timeout, TimeUnit unit) {
+        idleTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    /*
+    * Providers with the same server, account and client options share one client.
+    * */
+    public synchronized Registration register(URI serverUri, BugTrackerSettings settings, JiraHttpClientFactory clientFactory) {
+        String key = settings.getConnectionKey() + "\n" + clientFactory.getOptionsKey();
+        SharedClient client = clients.get(key);
+        if (client == null) {
+            client = new SharedClient(key, serverUri, settings, clientFactory);
+            clients.put(key, client);
+        }
+        client.providers++;
+        return new Registration(client);
+    }
+
+    public synchronized int getOpenClients() {
+        int openClients = 0;
+        for (SharedClient client : clients.values()) {
+            if (client.restClient != null) {
+                openClients++;
+            }
+        }
+        return openClients;
+    }
+
+    /*
+    * Closes every client, e.g. when the plugin is deactivated. A client is opened again by the next request.
+    * */
+    public void closeAll() {
+        List<SharedClient> closedClients = new ArrayList<>();
+        synchronized (this) {
+            for (SharedClient client : clients.values()) {
+                if (client.restClient != null) {
+                    closedClients.add(client);
+                }
+            }
+        }
+        for (SharedClient client : closedClients) {
+            close(client);
+        }
+    }
+
+    private void close(SharedClient client) {
+        JiraRestClient restClient;
+        synchronized (this) {
+            restClient = client.restClient;
+            client.restClient = null;
+            client.httpClient = null;
+            client.cancelIdleShutdown();
+        }
+        if (restClient == null) {
+            return;
+        }
+        try {
+            restClient.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the JIRA client: " + e.getMessage());
+        }
+        JiraMetrics.getInstance().logSummaryIfRecorded();
+    }
+
+    private synchronized void scheduleIdleShutdown(final SharedClient client) {
+        client.cancelIdleShutdown();
+        client.idleShutdown = idleShutdownExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (JiraClientPool.this) {
+                    if (client.requests > 0 || client.restClient == null) {
+                        return;
+                    }
+                }
+                logger.debug("Closing the JIRA client of " + client.serverUri + ", it has not been used for " + idleTimeoutMillis + " ms");
+                close(client);
+            }
+        }, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static class SharedClient {
+        final String key;
+        final URI serverUri;
+        final BugTrackerSettings settings;
+        final JiraHttpClientFactory clientFactory;
+        int providers;
+        int requests;
+        DisposableHttpClient httpClient;
+        JiraRestClient restClient;
+        ScheduledFuture<?> idleShutdown;
+
+        SharedClient(String key, URI serverUri, BugTrackerSettings settings, JiraHttpClientFactory clientFactory) {
+            this.key = key;
+            this.serverUri = serverUri;
+            this.settings = settings;
+            this.clientFactory = clientFactory;
+        }
+
+        void cancelIdleShutdown() {
+            if (idleShutdown != null) {
+                idleShutdown.cancel(false);
+                idleShutdown = null;
+            }
+        }
+    }
+
+    /**
+     * The use of a shared client by one provider. Every acquire has to be followed by a release
+     * when the request has finished.
+     */
+    public class Registration {
+        private final SharedClient client;
+        private boolean closed;
+        private int requests;
+
+        private Registration(SharedClient client) {
+            this.client = client;
+        }
+
+        /*
+        * A closed registration does not open its client again, it is no longer counted by the pool and
+        * nothing would close the client. A provider used after it was closed has to be got again.
+        * */
+        public JiraRestClient acquire() {
+            synchronized (JiraClientPool.this) {
+                if (closed) {
+                    throw new IllegalStateException("The JIRA client of " + client.serverUri + " is closed");
+                }
+                client.cancelIdleShutdown();
+                if (client.restClient == null) {
+                    client.httpClient = client.clientFactory.createClient(client.serverUri,
+                            new BasicHttpAuthenticationHandler(client.settings.getLogin(), client.settings.getPassword()));
+                    client.restClient = new AsynchronousJiraRestClient(client.serverUri, client.httpClient);
+                }
+                client.requests++;
+                requests++;
+                return client.restClient;
+            }
+        }
+
+        /*
+        * Only valid between acquire and release.
+        * */
+        public DisposableHttpClient getHttpClient() {
+            synchronized (JiraClientPool.this) {
+                return client.httpClient;
+            }
+        }
+
+        /*
+        * A release without an acquire is ignored, otherwise the client would be closed under a request in flight,
+        * also under the requests of other providers sharing it.
+        * */
+        public void release() {
+            boolean unused;
+            synchronized (JiraClientPool.this) {
+                if (requests == 0) {
+                    logger.debug("The JIRA client of " + client.serverUri + " is released more often than it was acquired");
+                    return;
+                }
+                requests--;
+                client.requests--;
+                if (client.requests > 0) {
+                    return;
+                }
+                unused = client.providers == 0;
+                if (!unused) {
+                    scheduleIdleShutdown(client);
+                }
+            }
+            if (unused) {
+                close(client);
+            }
+        }
+
+        public void close() {
+            boolean unused;
+            synchronized (JiraClientPool.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                client.providers--;
+                unused = client.providers == 0;
+                if (unused) {
+                    clients.remove(client.key);
+                }
+                if (client.requests > 0) {
+                    //the last request in flight closes it
+                    return;
+                }
+            }
+            if (unused) {
+                close(client);
+            }
+        }
+    }
+}
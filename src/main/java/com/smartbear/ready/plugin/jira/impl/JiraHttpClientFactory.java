@@ -0,0 +1,198 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.httpclient.apache.httpcomponents.DefaultHttpClient;
+import com.atlassian.httpclient.api.Request;
+import com.atlassian.httpclient.api.factory.HttpClientOptions;
+import com.atlassian.jira.rest.client.api.AuthenticationHandler;
+import com.atlassian.jira.rest.client.internal.async.AtlassianHttpClientDecorator;
+import com.atlassian.jira.rest.client.internal.async.DisposableHttpClient;
+import com.atlassian.sal.api.ApplicationProperties;
+import com.atlassian.sal.api.executor.ThreadLocalContextManager;
+import com.eviware.soapui.model.settings.Settings;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerPrefs;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the HTTP clients used for JIRA with the connection pool and timeouts from the plugin settings
+ * instead of the defaults of AsynchronousHttpClientFactory. Counts created clients and issued requests,
+ * so it can be seen how well the clients are shared. Connections are not counted, the pool of a client
+ * cannot be reached through the options.
+ */
+public class JiraHttpClientFactory {
+    private static final AtomicLong createdClients = new AtomicLong();
+    private static final AtomicLong destroyedClients = new AtomicLong();
+    private static final AtomicLong issuedRequests = new AtomicLong();
+
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final int connectTimeoutSeconds;
+    private final int readTimeoutSeconds;
+    private final int connectionTimeToLiveSeconds;
+
+    public JiraHttpClientFactory(int maxConnections, int maxConnectionsPerRoute, int connectTimeoutSeconds, int readTimeoutSeconds, int connectionTimeToLiveSeconds) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+        this.readTimeoutSeconds = readTimeoutSeconds;
+        this.connectionTimeToLiveSeconds = connectionTimeToLiveSeconds;
+    }
+
+    /*
+    * Clients created with the same options are interchangeable.
+    * */
+    public String getOptionsKey() {
+        return String.format("%d/%d/%d/%d/%d", maxConnections, maxConnectionsPerRoute, connectTimeoutSeconds, readTimeoutSeconds, connectionTimeToLiveSeconds);
+    }
+
+    public static JiraHttpClientFactory fromSettings(Settings settings) {
+        return new JiraHttpClientFactory(
+                getPositiveInt(settings, BugTrackerPrefs.HTTP_MAX_CONNECTIONS, BugTrackerPrefs.DEFAULT_HTTP_MAX_CONNECTIONS),
+                getPositiveInt(settings, BugTrackerPrefs.HTTP_MAX_CONNECTIONS_PER_ROUTE, BugTrackerPrefs.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE),
+                getPositiveInt(settings, BugTrackerPrefs.HTTP_CONNECT_TIMEOUT, BugTrackerPrefs.DEFAULT_HTTP_CONNECT_TIMEOUT_SECONDS),
+                getPositiveInt(settings, BugTrackerPrefs.HTTP_READ_TIMEOUT, BugTrackerPrefs.DEFAULT_HTTP_READ_TIMEOUT_SECONDS),
+                getPositiveInt(settings, BugTrackerPrefs.HTTP_CONNECTION_TIME_TO_LIVE, BugTrackerPrefs.DEFAULT_HTTP_CONNECTION_TIME_TO_LIVE_SECONDS));
+    }
+
+    public static int getPositiveInt(Settings settings, String settingName, int defaultValue) {
+        String value = settings.getString(settingName, String.valueOf(defaultValue));
+        try {
+            int parsedValue = Integer.parseInt(value.trim());
+            return parsedValue > 0 ? parsedValue : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /*
+    * A pooled connection is not used again once its time to live has passed since it was opened, so connections
+    * are renewed now and then, e.g. before a proxy drops them. It is a lifetime, idle connections are not closed sooner.
+    * */
+    @SuppressWarnings("unchecked")
+    public DisposableHttpClient createClient(URI serverUri, AuthenticationHandler authenticationHandler) {
+        HttpClientOptions options = new HttpClientOptions();
+        options.setThreadPrefix("jira-http");
+        options.setMaxTotalConnections(maxConnections);
+        options.setMaxConnectionsPerHost(maxConnectionsPerRoute);
+        options.setConnectionTimeout(connectTimeoutSeconds, TimeUnit.SECONDS);
+        options.setSocketTimeout(readTimeoutSeconds, TimeUnit.SECONDS);
+        options.setConnectionPoolTimeToLive(connectionTimeToLiveSeconds, TimeUnit.SECONDS);
+
+        final DefaultHttpClient defaultHttpClient = new DefaultHttpClient(new NoOpEventPublisher(), new ClientApplicationProperties(serverUri),
+                new NoOpThreadLocalContextManager(), options);
+        createdClients.incrementAndGet();
+        return new AtlassianHttpClientDecorator(defaultHttpClient, authenticationHandler) {
+            @Override
+            public Request newRequest(URI uri) {
+                issuedRequests.incrementAndGet();
+                return super.newRequest(uri);
+            }
+
+            @Override
+            public void destroy() throws Exception {
+                destroyedClients.incrementAndGet();
+                defaultHttpClient.destroy();
+            }
+        };
+    }
+
+    public static long getCreatedClients() {
+        return createdClients.get();
+    }
+
+    public static long getActiveClients() {
+        return createdClients.get() - destroyedClients.get();
+    }
+
+    public static long getIssuedRequests() {
+        return issuedRequests.get();
+    }
+
+    public static String getMetricsSummary() {
+        long clients = Math.max(1, createdClients.get());
+        return String.format("JIRA HTTP clients: %d created, %d active, %d requests issued (%.1f per client)",
+                createdClients.get(), getActiveClients(), issuedRequests.get(), (double) issuedRequests.get() / clients);
+    }
+
+    private static class NoOpEventPublisher implements EventPublisher {
+        @Override
+        public void publish(Object event) {
+        }
+
+        @Override
+        public void register(Object listener) {
+        }
+
+        @Override
+        public void unregister(Object listener) {
+        }
+
+        @Override
+        public void unregisterAll() {
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class NoOpThreadLocalContextManager implements ThreadLocalContextManager {
+        @Override
+        public Object getThreadLocalContext() {
+            return null;
+        }
+
+        @Override
+        public void setThreadLocalContext(Object context) {
+        }
+
+        @Override
+        public void clearThreadLocalContext() {
+        }
+    }
+
+    private static class ClientApplicationProperties implements ApplicationProperties {
+        private final String baseUrl;
+
+        ClientApplicationProperties(URI serverUri) {
+            this.baseUrl = serverUri.toString();
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Ready! API JIRA Integration";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0";
+        }
+
+        @Override
+        public Date getBuildDate() {
+            return new Date(0);
+        }
+
+        @Override
+        public String getBuildNumber() {
+            return "0";
+        }
+
+        @Override
+        public File getHomeDirectory() {
+            return new File(".");
+        }
+
+        @Override
+        public String getPropertyValue(String key) {
+            return null;
+        }
+    }
+}
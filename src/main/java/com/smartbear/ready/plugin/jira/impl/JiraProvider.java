@@ -1,11 +1,11 @@
 package com.smartbear.ready.plugin.jira.impl;
 
-import com.atlassian.jira.rest.client.api.GetCreateIssueMetadataOptions;
-import com.atlassian.jira.rest.client.api.GetCreateIssueMetadataOptionsBuilder;
+import com.atlassian.httpclient.api.Response;
 import com.atlassian.jira.rest.client.api.JiraRestClient;
-import com.atlassian.jira.rest.client.api.MetadataRestClient;
-import com.atlassian.jira.rest.client.api.OptionalIterable;
+import com.atlassian.jira.rest.client.api.RestClientException;
 import com.atlassian.jira.rest.client.api.domain.BasicIssue;
+import com.atlassian.jira.rest.client.api.domain.BulkOperationErrorResult;
+import com.atlassian.jira.rest.client.api.domain.BulkOperationResult;
 import com.atlassian.jira.rest.client.api.domain.BasicProject;
 import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
 import com.atlassian.jira.rest.client.api.domain.CimIssueType;
@@ -15,223 +15,729 @@ import com.atlassian.jira.rest.client.api.domain.Issue;
 import com.atlassian.jira.rest.client.api.domain.IssueType;
 import com.atlassian.jira.rest.client.api.domain.Priority;
 import com.atlassian.jira.rest.client.api.domain.Project;
-import com.atlassian.jira.rest.client.api.domain.input.ComplexIssueInputFieldValue;
-import com.atlassian.jira.rest.client.api.domain.input.FieldInput;
+import com.atlassian.jira.rest.client.api.domain.SearchResult;
+import com.atlassian.jira.rest.client.api.domain.input.IssueInput;
 import com.atlassian.jira.rest.client.api.domain.input.IssueInputBuilder;
-import com.atlassian.jira.rest.client.internal.async.AsynchronousJiraRestClientFactory;
+import com.atlassian.jira.rest.client.internal.json.BasicProjectJsonParser;
+import com.atlassian.jira.rest.client.internal.json.CimFieldsInfoMapJsonParser;
+import com.atlassian.jira.rest.client.internal.json.CreateIssueMetadataJsonParser;
+import com.atlassian.jira.rest.client.internal.json.GenericJsonArrayParser;
+import com.atlassian.jira.rest.client.internal.json.PriorityJsonParser;
+import com.atlassian.jira.rest.client.internal.json.ProjectJsonParser;
 import com.atlassian.util.concurrent.Promise;
+import com.atlassian.util.concurrent.Promises;
 import com.eviware.soapui.SoapUI;
-import com.eviware.soapui.actions.SoapUIPreferencesAction;
 import com.eviware.soapui.impl.wsdl.WsdlProject;
 import com.eviware.soapui.model.ModelItem;
 import com.eviware.soapui.model.settings.Settings;
 import com.eviware.soapui.model.support.ModelSupport;
 import com.eviware.soapui.support.StringUtils;
-import com.eviware.soapui.support.UISupport;
-import com.smartbear.ready.plugin.jira.factories.JiraPrefsFactory;
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.SettableFuture;
+import com.smartbear.ready.plugin.jira.cache.MetadataType;
+import com.smartbear.ready.plugin.jira.cache.MetadataWeights;
+import com.smartbear.ready.plugin.jira.cache.PersistentMetadataStore;
+import com.smartbear.ready.plugin.jira.cache.SingleFlightCache;
+import com.smartbear.ready.plugin.jira.cache.StoredMetadata;
+import com.smartbear.ready.plugin.jira.metrics.JiraMetrics;
+import com.smartbear.ready.plugin.jira.retry.JiraHttpException;
+import com.smartbear.ready.plugin.jira.retry.RetryPolicy;
+import com.smartbear.ready.plugin.jira.retry.RetryingCaller;
+import com.smartbear.ready.plugin.jira.retry.TokenBucketRateLimiter;
 import com.smartbear.ready.plugin.jira.settings.BugTrackerPrefs;
 import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+import com.smartbear.ready.plugin.jira.settings.ServerProfiles;
+import org.apache.http.entity.mime.HttpMultipartMode;
+import org.apache.http.entity.mime.MultipartEntity;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.entity.mime.content.InputStreamBody;
 import org.apache.log4j.Appender;
 import org.apache.log4j.FileAppender;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class JiraProvider implements SimpleBugTrackerProvider {
+public class JiraProvider implements SimpleBugTrackerProvider, AsyncBugTrackerProvider {
     private static final Logger logger = LoggerFactory.getLogger(JiraProvider.class);
 
     private final static String BUG_TRACKER_ISSUE_KEY_NOT_SPECIFIED = "No issue key is specified.";
     private final static String BUG_TRACKER_FILE_NAME_NOT_SPECIFIED = "No file name is specified.";
     private final static String BUG_TRACKER_INCORRECT_FILE_PATH = "Incorrect file path.";
-    private final static String BUG_TRACKER_URI_IS_INCORRECT = "The JIRA URL format is incorrect.";
+    public final static String BUG_TRACKER_URI_IS_INCORRECT = "The JIRA URL format is incorrect.";
     public static final String BUG_TRACKER_SETTINGS_ARE_NOT_COMPLETELY_SPECIFIED = "Unable to create a JIRA item.\nThe JIRA Integration plugin's settings are not configured or invalid.";
     public static final String INCORRECT_PROTOCOL_IN_THE_JIRA_URL = "\nPerhaps,  you specified the HTTP protocol in the JIRA URL instead of HTTPS.";
     public static final String INCORRECT_PROTOCOL_ERROR_CODE = "301";
 
+    private static final int BULK_CREATE_CHUNK_SIZE = 50;
+    private static final int KNOWN_PROJECT_SEARCH_LIMIT = 10;
+    private static final List<String> BUILT_IN_FIELDS = Arrays.asList("priority", "components", "versions", "fixVersions", "assignee", "parent", "resolution");
+
+    private static final String PROJECTS_RESOURCE = "rest/api/2/project";
+    private static final String PROJECT_RESOURCE = "rest/api/2/project/";
+    private static final String PROJECT_SEARCH_RESOURCE = "rest/api/2/project/search?startAt=0&maxResults=%d&query=%s";
+    private static final String PRIORITIES_RESOURCE = "rest/api/2/priority";
+    private static final String CREATE_META_RESOURCE = "rest/api/2/issue/createmeta?expand=projects.issuetypes.fields&projectKeys=";
+    private static final String CREATE_META_ISSUE_TYPE_FILTER = "&issuetypeNames=";
+    private static final String ISSUE_TYPE_CREATE_META_RESOURCE = "rest/api/2/issue/createmeta/%s/issuetypes/%s?startAt=%d&maxResults=%d";
+    private static final int ISSUE_TYPE_FIELDS_PAGE_SIZE = 200;
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final String ATTACHMENT_PART_NAME = "file";
+    //JIRA rejects attachment uploads without it as a possible XSRF attack
+    private static final String ATLASSIAN_TOKEN_HEADER = "X-Atlassian-Token";
+    private static final String ATLASSIAN_TOKEN_NO_CHECK = "nocheck";
+    private static final long NOT_CREATED_BEFORE = 0;
+    private static final long DEDUP_WINDOW_SLACK_MINUTES = 2;
+
     private ModelItem activeElement;
-    private JiraRestClient restClient = null;
+    private URI serverUri = null;
+    private JiraClientPool.Registration clients = null;
+    private PersistentMetadataStore metadataStore;
+    private RetryingCaller retryingCaller;
+    private final JiraMetrics metrics = JiraMetrics.getInstance();
+    private final Set<String> revalidatedEntries = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private BugTrackerSettings bugTrackerSettings;
-    static private JiraProvider instance = null;
+    private final String connectionKey;
+    private final String profileName;
+    static private final ConcurrentMap<String/*profile*/, JiraProvider> instances = new ConcurrentHashMap<>();
+
+    //the project metadata of a server may grow to hundreds of MB, the caches below are bounded by its estimated size
+    private static volatile long metadataMemoryLimit = BugTrackerPrefs.DEFAULT_METADATA_MEMORY_LIMIT_MB * 1024L * 1024L;
 
     //Properties below exist for reducing number of Jira API calls since every call is very greedy operation
-    Iterable<BasicProject> allProjects = null;
-    Map<String, Project> requestedProjects = new HashMap<>();
-    Iterable<Priority> priorities = null;
-    Map<String/*project*/,Map<String/*Issue Type*/, Map<String/*FieldName*/, CimFieldInfo>>> projectFields = new HashMap<>();
+    private static final String ALL_ENTRIES_KEY = "";
+    final SingleFlightCache<String, Iterable<BasicProject>> allProjects = new SingleFlightCache<>("projects");
+    private volatile ProjectIndex projectIndex;
+    final SingleFlightCache<String, Project> requestedProjects = new SingleFlightCache<>("project", MetadataWeights.PROJECT, metadataMemoryLimit / 4);
+    final SingleFlightCache<String, Iterable<Priority>> priorities = new SingleFlightCache<>("priorities");
+    final SingleFlightCache<String/*project*/, Map<String/*Issue Type*/, Map<String/*FieldName*/, CimFieldInfo>>> projectFields = new SingleFlightCache<>("project fields", MetadataWeights.PROJECT_FIELDS, metadataMemoryLimit / 2);
+    final SingleFlightCache<String/*project/Issue Type*/, Map<String/*FieldName*/, CimFieldInfo>> requestedIssueTypeFields = new SingleFlightCache<>("item type fields", MetadataWeights.ISSUE_TYPE_FIELDS, metadataMemoryLimit / 4);
+    private final ConcurrentMap<String/*project/Issue Type*/, FieldEncodingPlan> fieldEncodingPlans = new ConcurrentHashMap<>();
 
     public static JiraProvider getProvider (){
-        if (instance == null){
-            instance = new JiraProvider();
+        return getProvider(ServerProfiles.DEFAULT_PROFILE);
+    }
+
+    /*
+    * The provider of the JIRA server the project of the item uses.
+    * */
+    public static JiraProvider getProvider(ModelItem modelItem) {
+        return getProvider(ServerProfiles.getProfileName(modelItem));
+    }
+
+    /*
+    * Every server profile has its own provider with its own client and caches, so switching between servers
+    * does not reload anything. A provider is kept as long as the stored server, login and password of its
+    * profile stay the same. Editing the preferences does not discard it until different settings are saved.
+    * Providers are got by background threads too, so none is built under a lock; when two threads build
+    * one at the same time, the provider stored first is shared and the other one is closed.
+    * */
+    public static JiraProvider getProvider(String profileName) {
+        while (true) {
+            JiraProvider instance = instances.get(profileName);
+            if (instance != null && !instance.connectionKey.equals(readStoredSettings(profileName).getConnectionKey())) {
+                if (instances.remove(profileName, instance)) {
+                    logger.info("The JIRA connection settings have changed, the JIRA client and caches are recreated");
+                    instance.close();
+                }
+                continue;
+            }
+            if (instance != null) {
+                return instance;
+            }
+            JiraProvider newInstance = new JiraProvider(profileName);
+            instance = instances.putIfAbsent(profileName, newInstance);
+            if (instance == null) {
+                return newInstance;
+            }
+            newInstance.close();
+        }
+    }
+
+    /*
+    * Half of the limit is for the fields of whole projects, a quarter each for single projects and the fields of single item types.
+    * */
+    public static void setMetadataMemoryLimit(long bytes) {
+        metadataMemoryLimit = bytes;
+        for (JiraProvider instance : instances.values()) {
+            instance.requestedProjects.setMaxWeight(bytes / 4);
+            instance.projectFields.setMaxWeight(bytes / 2);
+            instance.requestedIssueTypeFields.setMaxWeight(bytes / 4);
         }
-        return instance;
     }
 
     public static void freeProvider(){
-        instance = null;
+        for (Map.Entry<String, JiraProvider> instance : instances.entrySet()) {
+            if (instances.remove(instance.getKey(), instance.getValue())) {
+                instance.getValue().close();
+            }
+        }
     }
 
-    private JiraProvider() {
+    public static void freeProvider(String profileName) {
+        JiraProvider instance = instances.remove(profileName);
+        if (instance != null) {
+            instance.close();
+        }
+    }
+
+    private JiraProvider(String profileName) {
+        this.profileName = profileName;
         bugTrackerSettings = getBugTrackerSettings();
+        connectionKey = bugTrackerSettings.getConnectionKey();
+        retryingCaller = new RetryingCaller(RetryPolicy.defaultPolicy(), createRateLimiter(SoapUI.getSettings()));
+        //nothing is shown from here, the actions ask for missing settings on the EDT before they get the provider
+        if (!settingsComplete(bugTrackerSettings) && isDefaultProfile()) {
+            logger.error(BUG_TRACKER_SETTINGS_ARE_NOT_COMPLETELY_SPECIFIED);
+            return;
+        }
         if (!settingsComplete(bugTrackerSettings)) {
-            logger.error(BUG_TRACKER_URI_IS_INCORRECT);
-            UISupport.showErrorMessage(BUG_TRACKER_SETTINGS_ARE_NOT_COMPLETELY_SPECIFIED);
-            showSettingsDialog();
-            if (!settingsComplete(bugTrackerSettings)) {
-                return;
-            }
+            logger.error(String.format("The settings of the JIRA server profile %s are not specified", profileName));
+            return;
         }
-        final AsynchronousJiraRestClientFactory factory = new AsynchronousJiraRestClientFactory();
+        metadataStore = new PersistentMetadataStore(bugTrackerSettings.getUrl(), bugTrackerSettings.getLogin());
         try {
-            restClient = factory.createWithBasicHttpAuthentication(new URI(bugTrackerSettings.getUrl()), bugTrackerSettings.getLogin(), bugTrackerSettings.getPassword());
+            connect(JiraHttpClientFactory.fromSettings(SoapUI.getSettings()));
         } catch (URISyntaxException e) {
             logger.error(BUG_TRACKER_URI_IS_INCORRECT);
-            UISupport.showErrorMessage(BUG_TRACKER_URI_IS_INCORRECT);
         }
     }
 
-    private void showSettingsDialog() {
-        SoapUIPreferencesAction.getInstance().show(JiraPrefsFactory.JIRA_PREFS_TITLE);
-        createBugTrackerSettings();
+    private JiraProvider(BugTrackerSettings settings, JiraHttpClientFactory clientFactory, RetryingCaller retryingCaller, File metadataRoot) throws URISyntaxException {
+        this.profileName = ServerProfiles.DEFAULT_PROFILE;
+        this.bugTrackerSettings = settings;
+        this.connectionKey = settings.getConnectionKey();
+        this.retryingCaller = retryingCaller;
+        this.metadataStore = new PersistentMetadataStore(metadataRoot, settings.getUrl(), settings.getLogin());
+        connect(clientFactory);
     }
 
-    private JiraApiCallResult<Iterable<BasicProject>> getAllProjects() {
-        if (allProjects != null){
-            return new JiraApiCallResult<Iterable<BasicProject>>(allProjects);
+    /*
+    * Creates a provider which is not shared and does not read or ask for the plugin settings,
+    * e.g. for a JIRA stand-in in integration and load tests.
+    * */
+    public static JiraProvider forSettings(BugTrackerSettings settings, JiraHttpClientFactory clientFactory, RetryingCaller retryingCaller, File metadataRoot) {
+        try {
+            return new JiraProvider(settings, clientFactory, retryingCaller, metadataRoot);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(BUG_TRACKER_URI_IS_INCORRECT, e);
         }
+    }
+
+    private void connect(JiraHttpClientFactory clientFactory) throws URISyntaxException {
+        serverUri = new URI(bugTrackerSettings.getUrl());
+        clients = JiraClientPool.getInstance().register(serverUri, bugTrackerSettings, clientFactory);
+    }
 
+    /*
+    * False when the settings were missing or the URL was invalid when the provider was created.
+    * */
+    public boolean isConnected() {
+        return clients != null;
+    }
+
+    /*
+    * Gives up the client of the provider, it is closed unless another provider still uses it.
+    * Requests in flight are finished first, later requests of the provider fail.
+    * */
+    public void close() {
+        if (clients != null) {
+            clients.close();
+        }
+    }
+
+    private interface ClientCall<T> {
+        Promise<T> start(JiraRestClient restClient);
+    }
+
+    /*
+    * The shared client is held while the request is in flight, so it is neither closed as idle
+    * nor closed with its provider meanwhile.
+    * */
+    private <T> Promise<T> call(JiraMetrics.Endpoint endpoint, ClientCall<T> clientCall) {
+        JiraRestClient restClient = clients.acquire();
+        Promise<T> promise;
         try {
-            allProjects = restClient.getProjectClient().getAllProjects().get();
-            return new JiraApiCallResult<Iterable<BasicProject>>(allProjects);
-        } catch (InterruptedException e) {
-            logger.error(e.getMessage());
-            allProjects = null;
-            return new JiraApiCallResult<Iterable<BasicProject>>(e);
-        } catch (ExecutionException e) {
-            logger.error(e.getMessage());
-            allProjects = null;
-            return new JiraApiCallResult<Iterable<BasicProject>>(e);
+            promise = clientCall.start(restClient);
+        } catch (RuntimeException e) {
+            clients.release();
+            throw e;
         }
+        promise.then(new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                clients.release();
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                clients.release();
+            }
+        });
+        return metrics.time(endpoint, promise);
     }
 
-    public List<String> getListOfAllProjects() {
-        JiraApiCallResult<Iterable<BasicProject>> projects = getAllProjects();
-        if (!projects.isSuccess()) {
-            return new ArrayList<String>();
+    private Promise<BasicIssue> createIssueOnServer(final IssueInput issueInput) {
+        return call(JiraMetrics.Endpoint.CREATE, new ClientCall<BasicIssue>() {
+            @Override
+            public Promise<BasicIssue> start(JiraRestClient restClient) {
+                return restClient.getIssueClient().createIssue(issueInput);
+            }
+        });
+    }
+
+    private static TokenBucketRateLimiter createRateLimiter(Settings settings) {
+        String requestsPerSecond = settings.getString(BugTrackerPrefs.MAX_REQUESTS_PER_SECOND, String.valueOf(BugTrackerPrefs.DEFAULT_MAX_REQUESTS_PER_SECOND));
+        try {
+            double permitsPerSecond = Double.parseDouble(requestsPerSecond.trim());
+            //bursts of up to a second worth of requests are allowed
+            return new TokenBucketRateLimiter(permitsPerSecond, permitsPerSecond);
+        } catch (NumberFormatException e) {
+            return new TokenBucketRateLimiter(BugTrackerPrefs.DEFAULT_MAX_REQUESTS_PER_SECOND, BugTrackerPrefs.DEFAULT_MAX_REQUESTS_PER_SECOND);
+        }
+    }
+
+    private abstract class MetadataRequest<T> {
+        final MetadataType type;
+        final String id;
+
+        MetadataRequest(MetadataType type, String id) {
+            this.type = type;
+            this.id = id;
         }
 
-        List<String> projectNames = new ArrayList<String>();
-        for (BasicProject project : projects.getResult()) {
-            projectNames.add(project.getKey());
+        abstract String getResource();
+
+        Promise<String> fetch() {
+            return fetchJson(getEndpoint(type), getResource());
         }
 
-        return projectNames;
+        abstract T parse(String json) throws JSONException;
+
+        abstract void revalidated(T value);
+    }
+
+    private static JiraMetrics.Endpoint getEndpoint(MetadataType type) {
+        switch (type) {
+            case PROJECTS:
+                return JiraMetrics.Endpoint.PROJECTS;
+            case PROJECT:
+                return JiraMetrics.Endpoint.PROJECT;
+            case PRIORITIES:
+                return JiraMetrics.Endpoint.PRIORITIES;
+            case ISSUE_TYPE_FIELDS:
+                return JiraMetrics.Endpoint.ISSUE_TYPE_CREATE_META;
+            default:
+                return JiraMetrics.Endpoint.CREATE_META;
+        }
     }
 
-    private JiraApiCallResult<Project> getProjectByKey(String key) {
-        if (!requestedProjects.containsKey(key)) {
+    private Promise<String> fetchJson(final JiraMetrics.Endpoint endpoint, final String resource) {
+        return retryingCaller.call("GET " + resource, true, new RetryingCaller.Attempt<String>() {
+            @Override
+            public Promise<String> start(int attempt) {
+                return call(endpoint, new ClientCall<String>() {
+                    @Override
+                    public Promise<String> start(JiraRestClient restClient) {
+                        return requestJson(resource);
+                    }
+                });
+            }
+        });
+    }
+
+    private Promise<String> requestJson(final String resource) {
+        String baseUrl = serverUri.toString().endsWith("/") ? serverUri.toString() : serverUri.toString() + "/";
+        return clients.getHttpClient().newRequest(URI.create(baseUrl + resource)).setAccept("application/json").get().map(new Function<Response, String>() {
+            @Override
+            public String apply(Response response) {
+                int statusCode = response.getStatusCode();
+                if (statusCode < 200 || statusCode >= 300) {
+                    throw new JiraHttpException(statusCode, response.getStatusText(), resource, response.getHeader(RETRY_AFTER_HEADER));
+                }
+                return response.getEntity();
+            }
+        });
+    }
+
+    private static <T> T parseMetadata(MetadataRequest<T> request, String json) {
+        try {
+            return request.parse(json);
+        } catch (JSONException e) {
+            throw new RestClientException(e);
+        }
+    }
+
+    /*
+    * Reads metadata from the persistent store if it is there. Stale entries are still returned
+    * and get refreshed in the background, so the dialogs never wait for them.
+    * */
+    private <T> Promise<T> loadMetadata(final MetadataRequest<T> request) {
+        StoredMetadata storedMetadata = metadataStore.read(request.type, request.id);
+        if (storedMetadata != null) {
             try {
-                requestedProjects.put(key, restClient.getProjectClient().getProject(key).get());
-            } catch (InterruptedException e) {
-                logger.error(e.getMessage());
-                return new JiraApiCallResult<Project>(e);
-            } catch (ExecutionException e) {
-                logger.error(e.getMessage());
-                return new JiraApiCallResult<Project>(e);
+                T value = request.parse(storedMetadata.getJson());
+                if (storedMetadata.isStale()) {
+                    revalidate(request);
+                }
+                return Promises.promise(value);
+            } catch (JSONException e) {
+                logger.warn("Cached JIRA metadata is corrupted and will be reloaded: " + e.getMessage());
+                metadataStore.remove(request.type, request.id);
             }
         }
-        return new JiraApiCallResult<Project>(requestedProjects.get(key));
+
+        return request.fetch().map(new Function<String, T>() {
+            @Override
+            public T apply(String json) {
+                T value = parseMetadata(request, json);
+                metadataStore.write(request.type, request.id, json);
+                return value;
+            }
+        });
     }
 
-    private JiraApiCallResult<OptionalIterable<IssueType>> getProjectIssueTypes(String projectKey) {
-        JiraApiCallResult<Project> project = getProjectByKey(projectKey);
-        if (!project.isSuccess()) {
-            return new JiraApiCallResult<OptionalIterable<IssueType>>(project.getError());
+    private <T> Promise<T> getMetadata(SingleFlightCache<String, T> cache, String key, final MetadataRequest<T> request) {
+        return cache.get(key, new SingleFlightCache.Loader<String, T>() {
+            @Override
+            public Promise<T> load(String key) {
+                return loadMetadata(request);
+            }
+        });
+    }
+
+    /*
+    * The blocking methods are thin wrappers which wait for the asynchronous ones with this.
+    * */
+    private static <T> JiraApiCallResult<T> claim(Promise<T> promise) {
+        try {
+            return new JiraApiCallResult<T>(promise.claim());
+        } catch (RuntimeException e) {
+            logger.error(e.getMessage());
+            return new JiraApiCallResult<T>(e);
         }
-        return new JiraApiCallResult<OptionalIterable<IssueType>>(project.getResult().getIssueTypes());
     }
 
-    public List<String> getListOfProjectIssueTypes(String projectKey) {
-        JiraApiCallResult<OptionalIterable<IssueType>> result = getProjectIssueTypes(projectKey);
-        if (!result.isSuccess()) {
-            return new ArrayList<String>();
+    /*
+    * Continues with the promise returned by the fallback when the given one is rejected.
+    * */
+    private static <T> Promise<T> withFallback(Promise<T> promise, final Function<Throwable, Promise<T>> fallback) {
+        final SettableFuture<T> result = SettableFuture.create();
+        final FutureCallback<T> completion = new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.set(value);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                result.setException(error);
+            }
+        };
+        promise.then(new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.set(value);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                try {
+                    fallback.apply(error).then(completion);
+                } catch (RuntimeException e) {
+                    result.setException(e);
+                }
+            }
+        });
+        return Promises.forListenableFuture(result);
+    }
+
+    private static String encodeQueryParameter(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw Throwables.propagate(e);
         }
+    }
 
-        List<String> issueTypeList = new ArrayList<String>();
-        OptionalIterable<IssueType> issueTypes = result.getResult();
-        for (IssueType issueType : issueTypes) {
-            issueTypeList.add(issueType.getName());
+    private <T> void revalidate(final MetadataRequest<T> request) {
+        final String entryKey = request.type + "/" + request.id;
+        if (!revalidatedEntries.add(entryKey)) {
+            return;
         }
+        request.fetch().then(new FutureCallback<String>() {
+            @Override
+            public void onSuccess(String json) {
+                try {
+                    T value = request.parse(json);
+                    metadataStore.write(request.type, request.id, json);
+                    request.revalidated(value);
+                } catch (JSONException e) {
+                    logger.warn("Unable to revalidate cached JIRA metadata: " + e.getMessage());
+                } finally {
+                    revalidatedEntries.remove(entryKey);
+                }
+            }
 
-        return issueTypeList;
+            @Override
+            public void onFailure(Throwable error) {
+                logger.warn("Unable to revalidate cached JIRA metadata: " + error.getMessage());
+                revalidatedEntries.remove(entryKey);
+            }
+        });
     }
 
-    public CustomFieldOption transformToCustomFieldOption(Object object){
-        if (object instanceof CustomFieldOption){
-            return (CustomFieldOption)object;
+    private Promise<Iterable<BasicProject>> getAllProjects() {
+        return getMetadata(allProjects, ALL_ENTRIES_KEY, new MetadataRequest<Iterable<BasicProject>>(MetadataType.PROJECTS, null) {
+            @Override
+            String getResource() {
+                return PROJECTS_RESOURCE;
+            }
+
+            @Override
+            Iterable<BasicProject> parse(String json) throws JSONException {
+                return GenericJsonArrayParser.create(new BasicProjectJsonParser()).parse(new JSONArray(json));
+            }
+
+            @Override
+            void revalidated(Iterable<BasicProject> value) {
+                allProjects.put(ALL_ENTRIES_KEY, value);
+                projectIndex = ProjectIndex.build(value);
+            }
+        });
+    }
+
+    private Promise<ProjectIndex> getProjectIndex() {
+        ProjectIndex index = projectIndex;
+        if (index != null) {
+            return Promises.promise(index);
         }
+        return getAllProjects().map(new Function<Iterable<BasicProject>, ProjectIndex>() {
+            @Override
+            public ProjectIndex apply(Iterable<BasicProject> projects) {
+                if (projectIndex == null) {
+                    projectIndex = ProjectIndex.build(projects);
+                }
+                return projectIndex;
+            }
+        });
+    }
 
-        return null;
+    /*
+    * Looks the projects up in the local index. While the index is still being loaded, the first page
+    * of the server-side project search is used instead; servers without that search wait for the index.
+    * */
+    @Override
+    public Promise<List<String>> searchProjectsAsync(final String prefix, final int limit) {
+        if (!isConnected()) {
+            return Promises.promise((List<String>) new ArrayList<String>());
+        }
+        final Promise<ProjectIndex> index = getProjectIndex();
+        final Function<ProjectIndex, List<String>> searchIndex = new Function<ProjectIndex, List<String>>() {
+            @Override
+            public List<String> apply(ProjectIndex projectIndex) {
+                return projectIndex.search(prefix, limit);
+            }
+        };
+        if (index.isDone()) {
+            return index.map(searchIndex);
+        }
+        return withFallback(searchProjectsOnServer(prefix, limit), new Function<Throwable, Promise<List<String>>>() {
+            @Override
+            public Promise<List<String>> apply(Throwable error) {
+                logger.debug("Server-side project search is not available: " + error.getMessage());
+                return index.map(searchIndex);
+            }
+        });
     }
 
-    private JiraApiCallResult<Iterable<Priority>> getAllPriorities() {
-        if (priorities == null) {
-            final MetadataRestClient client = restClient.getMetadataClient();
-            try {
-                priorities = client.getPriorities().get();
-            } catch (InterruptedException e) {
-                return new JiraApiCallResult<Iterable<Priority>>(e);
-            } catch (ExecutionException e) {
-                return new JiraApiCallResult<Iterable<Priority>>(e);
+    /*
+    * Keeps the given projects which the server lists, in their order. The projects are looked up at the same time.
+    * */
+    public List<String> retainKnownProjects(List<String> projectKeys) {
+        List<Promise<List<String>>> searches = new ArrayList<>();
+        for (String projectKey : projectKeys) {
+            searches.add(searchProjectsAsync(projectKey, KNOWN_PROJECT_SEARCH_LIMIT));
+        }
+        List<String> knownProjects = new ArrayList<>();
+        for (int i = 0; i < projectKeys.size(); i++) {
+            JiraApiCallResult<List<String>> foundProjects = claim(searches.get(i));
+            if (foundProjects.isSuccess() && foundProjects.getResult().contains(projectKeys.get(i))) {
+                knownProjects.add(projectKeys.get(i));
             }
         }
-        return new JiraApiCallResult<Iterable<Priority>>(priorities);
+        return knownProjects;
     }
 
-    private Priority getPriorityByName(String priorityName) {
-        JiraApiCallResult<Iterable<Priority>> priorities = getAllPriorities();
-        if (!priorities.isSuccess()) {
-            return null;
+    public List<String> searchProjects(String prefix, int limit) {
+        JiraApiCallResult<List<String>> projectKeys = claim(searchProjectsAsync(prefix, limit));
+        if (!projectKeys.isSuccess()) {
+            return new ArrayList<String>();
         }
-        for (Priority priority : priorities.getResult()) {
-            if (priority.getName().equals(priorityName)) {
-                return priority;
+        return projectKeys.getResult();
+    }
+
+    private Promise<List<String>> searchProjectsOnServer(String query, int limit) {
+        String encodedQuery = encodeQueryParameter(query == null ? "" : query.trim());
+        return fetchJson(JiraMetrics.Endpoint.PROJECT_SEARCH, String.format(PROJECT_SEARCH_RESOURCE, limit, encodedQuery)).map(new Function<String, List<String>>() {
+            @Override
+            public List<String> apply(String json) {
+                try {
+                    JSONArray projects = new JSONObject(json).getJSONArray("values");
+                    List<String> projectKeys = new ArrayList<>(projects.length());
+                    for (int i = 0; i < projects.length(); i++) {
+                        projectKeys.add(projects.getJSONObject(i).getString("key"));
+                    }
+                    return projectKeys;
+                } catch (JSONException e) {
+                    throw new RestClientException(e);
+                }
             }
+        });
+    }
+
+    @Override
+    public Promise<List<String>> getListOfAllProjectsAsync() {
+        return getAllProjects().map(new Function<Iterable<BasicProject>, List<String>>() {
+            @Override
+            public List<String> apply(Iterable<BasicProject> projects) {
+                List<String> projectNames = new ArrayList<String>();
+                for (BasicProject project : projects) {
+                    projectNames.add(project.getKey());
+                }
+                return projectNames;
+            }
+        });
+    }
+
+    public List<String> getListOfAllProjects() {
+        JiraApiCallResult<List<String>> projectNames = claim(getListOfAllProjectsAsync());
+        if (!projectNames.isSuccess()) {
+            return new ArrayList<String>();
         }
-        return null;
+        return projectNames.getResult();
+    }
+
+    private Promise<Project> getProjectByKey(final String key) {
+        return getMetadata(requestedProjects, key, new MetadataRequest<Project>(MetadataType.PROJECT, key) {
+            @Override
+            String getResource() {
+                return PROJECT_RESOURCE + key;
+            }
+
+            @Override
+            Project parse(String json) throws JSONException {
+                return new ProjectJsonParser().parse(new JSONObject(json));
+            }
+
+            @Override
+            void revalidated(Project value) {
+                requestedProjects.put(key, value);
+            }
+        });
+    }
+
+    @Override
+    public Promise<List<String>> getListOfProjectIssueTypesAsync(String projectKey) {
+        return getProjectByKey(projectKey).map(new Function<Project, List<String>>() {
+            @Override
+            public List<String> apply(Project project) {
+                List<String> issueTypeList = new ArrayList<String>();
+                for (IssueType issueType : project.getIssueTypes()) {
+                    issueTypeList.add(issueType.getName());
+                }
+                return issueTypeList;
+            }
+        });
     }
 
-    private JiraApiCallResult<IssueType> getIssueType(String projectKey, String requiredIssueType) {
-        JiraApiCallResult<OptionalIterable<IssueType>> issueTypes = getProjectIssueTypes(projectKey);
+    public List<String> getListOfProjectIssueTypes(String projectKey) {
+        JiraApiCallResult<List<String>> issueTypes = claim(getListOfProjectIssueTypesAsync(projectKey));
         if (!issueTypes.isSuccess()) {
-            return new JiraApiCallResult<IssueType>(issueTypes.getError());
+            return new ArrayList<String>();
+        }
+        return issueTypes.getResult();
+    }
+
+    public CustomFieldOption transformToCustomFieldOption(Object object){
+        if (object instanceof CustomFieldOption){
+            return (CustomFieldOption)object;
         }
-        for (IssueType issueType : issueTypes.getResult()) {
+
+        return null;
+    }
+
+    private Promise<Iterable<Priority>> getAllPriorities() {
+        return getMetadata(priorities, ALL_ENTRIES_KEY, new MetadataRequest<Iterable<Priority>>(MetadataType.PRIORITIES, null) {
+            @Override
+            String getResource() {
+                return PRIORITIES_RESOURCE;
+            }
+
+            @Override
+            Iterable<Priority> parse(String json) throws JSONException {
+                return GenericJsonArrayParser.create(new PriorityJsonParser()).parse(new JSONArray(json));
+            }
+
+            @Override
+            void revalidated(Iterable<Priority> value) {
+                priorities.put(ALL_ENTRIES_KEY, value);
+            }
+        });
+    }
+
+    private static IssueType getIssueType(Project project, String requiredIssueType) {
+        for (IssueType issueType : project.getIssueTypes()) {
             if (issueType.getName().equals(requiredIssueType)) {
-                return new JiraApiCallResult<IssueType>(issueType);
+                return issueType;
             }
         }
         return null;
     }
 
-    public Issue getIssue(String key) {
+    public Issue getIssue(final String key) {
         try {
-            return restClient.getIssueClient().getIssue(key).get();
+            return call(JiraMetrics.Endpoint.GET_ISSUE, new ClientCall<Issue>() {
+                @Override
+                public Promise<Issue> start(JiraRestClient restClient) {
+                    return restClient.getIssueClient().getIssue(key);
+                }
+            }).get();
         } catch (InterruptedException e) {
             e.printStackTrace();
         } catch (ExecutionException e) {
@@ -241,8 +747,25 @@ public class JiraProvider implements SimpleBugTrackerProvider {
         return null;
     }
 
+    /*
+    * Same URI as Issue.getAttachmentsUri(), built from the self link of the created issue
+    * instead of fetching the whole issue again.
+    * */
+    public URI getAttachmentsUri(BasicIssue issue) {
+        String issueUri = issue.getSelf().toString();
+        return URI.create(issueUri.endsWith("/") ? issueUri + "attachments" : issueUri + "/attachments");
+    }
+
+    /*
+    * For an item of which only the key is known, e.g. one created by an earlier outbox replay.
+    * */
+    public URI getAttachmentsUri(String issueKey) {
+        String baseUrl = serverUri.toString().endsWith("/") ? serverUri.toString() : serverUri.toString() + "/";
+        return URI.create(baseUrl + "rest/api/2/issue/" + issueKey + "/attachments");
+    }
+
     public Map<String,Map<String, Map<String, CimFieldInfo>>> getProjectFields (String ... projects){
-        JiraApiCallResult<Map<String,Map<String, Map<String, CimFieldInfo>>>> projectFieldsResult = getProjectFieldsInternal(projects);
+        JiraApiCallResult<Map<String,Map<String, Map<String, CimFieldInfo>>>> projectFieldsResult = claim(getProjectFieldsAsync(projects));
         if (projectFieldsResult.isSuccess()){
             return projectFieldsResult.getResult();
         }
@@ -250,228 +773,845 @@ public class JiraProvider implements SimpleBugTrackerProvider {
         return null;
     }
 
-    private JiraApiCallResult<Map<String,Map<String, Map<String, CimFieldInfo>>>> getProjectFieldsInternal (String ... projects){
-        List<String> unCachedProjectsList = new ArrayList<>();
-        for (String project:projects){
-            if (!projectFields.containsKey(project)){
-                unCachedProjectsList.add(project);
+    /*
+    * Loads the metadata needed by the new item dialogs, so that the first dialog does not wait for JIRA.
+    * The returned promise is done when every load has finished, whether it succeeded or not.
+    * */
+    public Promise<Void> warmUp(List<String> projectKeys) {
+        if (!isConnected()) {
+            return Promises.<Void>promise(null);
+        }
+        List<Promise<?>> loads = new ArrayList<>();
+        loads.add(getProjectIndex());
+        loads.add(getAllPriorities());
+        for (String projectKey : projectKeys) {
+            loads.add(getProjectByKey(projectKey));
+        }
+        if (projectKeys.size() > 0) {
+            loads.add(getProjectFieldsAsync(projectKeys.toArray(new String[projectKeys.size()])));
+        }
+        return whenFinished(loads);
+    }
+
+    private static Promise<Void> whenFinished(List<Promise<?>> promises) {
+        if (promises.isEmpty()) {
+            return Promises.<Void>promise(null);
+        }
+        final SettableFuture<Void> finished = SettableFuture.create();
+        final AtomicInteger remaining = new AtomicInteger(promises.size());
+        for (Promise<?> promise : promises) {
+            promise.then(new FutureCallback<Object>() {
+                @Override
+                public void onSuccess(Object result) {
+                    if (remaining.decrementAndGet() == 0) {
+                        finished.set(null);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    logger.debug("Unable to load JIRA metadata: " + error.getMessage());
+                    onSuccess(null);
+                }
+            });
+        }
+        return Promises.forListenableFuture(finished);
+    }
+
+    @Override
+    public Promise<Map<String,Map<String, Map<String, CimFieldInfo>>>> getProjectFieldsAsync(String ... projects){
+        final Map<String, Promise<Map<String, Map<String, CimFieldInfo>>>> projectFieldPromises = projectFields.getAll(Arrays.asList(projects),
+                new SingleFlightCache.BulkLoader<String, Map<String, Map<String, CimFieldInfo>>>() {
+                    @Override
+                    public Promise<Map<String, Map<String, Map<String, CimFieldInfo>>>> loadAll(Collection<String> projectKeys) {
+                        return loadProjectFields(projectKeys);
+                    }
+                });
+        return Promises.when(projectFieldPromises.values()).map(new Function<List<Map<String, Map<String, CimFieldInfo>>>, Map<String,Map<String, Map<String, CimFieldInfo>>>>() {
+            @Override
+            public Map<String, Map<String, Map<String, CimFieldInfo>>> apply(List<Map<String, Map<String, CimFieldInfo>>> loadedFields) {
+                Map<String,Map<String, Map<String, CimFieldInfo>>> result = new HashMap<>();
+                for (Map.Entry<String, Promise<Map<String, Map<String, CimFieldInfo>>>> projectFieldPromise : projectFieldPromises.entrySet()) {
+                    result.put(projectFieldPromise.getKey(), projectFieldPromise.getValue().claim());
+                }
+                return result;
+            }
+        });
+    }
+
+    private Promise<Map<String, Map<String, Map<String, CimFieldInfo>>>> loadProjectFields(Collection<String> projectKeys) {
+        final Map<String, Map<String, Map<String, CimFieldInfo>>> loadedFields = new HashMap<>();
+        List<String> unStoredProjects = new ArrayList<>();
+        for (String projectKey : projectKeys) {
+            Map<String, Map<String, CimFieldInfo>> storedFields = readStoredProjectFields(projectKey);
+            if (storedFields != null) {
+                loadedFields.put(projectKey, storedFields);
+            } else {
+                unStoredProjects.add(projectKey);
             }
         }
-        if (unCachedProjectsList.size() > 0) {
-            String [] unCachedProjectsArray = new String[unCachedProjectsList.size()];
-            unCachedProjectsList.toArray(unCachedProjectsArray);
-            GetCreateIssueMetadataOptions options = new GetCreateIssueMetadataOptionsBuilder()
-                    .withExpandedIssueTypesFields()
-                    .withProjectKeys(unCachedProjectsList.toArray(unCachedProjectsArray))
-                    .build();
-            try {
-                Iterable<CimProject> cimProjects = restClient.getIssueClient().getCreateIssueMetadata(options).get();
-                for (CimProject cimProject : cimProjects) {
-                    Iterable<CimIssueType> issueTypes = cimProject.getIssueTypes();
-                    HashMap<String, Map<String, CimFieldInfo>> issueTypeFields = new HashMap<String, Map<String, CimFieldInfo>>();
-                    for (CimIssueType currentIssueType : issueTypes) {
-                        issueTypeFields.put(currentIssueType.getName(), currentIssueType.getFields());
+        if (unStoredProjects.isEmpty()) {
+            return Promises.promise(loadedFields);
+        }
+        return fetchJson(JiraMetrics.Endpoint.CREATE_META, CREATE_META_RESOURCE + Joiner.on(",").join(unStoredProjects)).map(new Function<String, Map<String, Map<String, Map<String, CimFieldInfo>>>>() {
+            @Override
+            public Map<String, Map<String, Map<String, CimFieldInfo>>> apply(String json) {
+                try {
+                    JSONObject createMeta = new JSONObject(json);
+                    for (CimProject cimProject : new CreateIssueMetadataJsonParser().parse(createMeta)) {
+                        loadedFields.put(cimProject.getKey(), getIssueTypeFields(cimProject));
                     }
-                    projectFields.put(cimProject.getKey(),issueTypeFields);
+                    storeProjectFields(createMeta);
+                } catch (JSONException e) {
+                    throw new RestClientException(e);
                 }
-            } catch (InterruptedException e) {
-                return new JiraApiCallResult<Map<String,Map<String, Map<String, CimFieldInfo>>>>(e);
-            } catch (ExecutionException e) {
-                return new JiraApiCallResult<Map<String,Map<String, Map<String, CimFieldInfo>>>>(e);
+                return loadedFields;
+            }
+        });
+    }
+
+    private MetadataRequest<Map<String, Map<String, CimFieldInfo>>> createProjectFieldsRequest(final String projectKey) {
+        return new MetadataRequest<Map<String, Map<String, CimFieldInfo>>>(MetadataType.CREATE_META, projectKey) {
+            @Override
+            String getResource() {
+                return CREATE_META_RESOURCE + projectKey;
             }
+
+            @Override
+            Map<String, Map<String, CimFieldInfo>> parse(String json) throws JSONException {
+                for (CimProject cimProject : new CreateIssueMetadataJsonParser().parse(new JSONObject(json))) {
+                    if (cimProject.getKey().equals(projectKey)) {
+                        return getIssueTypeFields(cimProject);
+                    }
+                }
+                throw new JSONException("No create metadata for project " + projectKey);
+            }
+
+            @Override
+            void revalidated(Map<String, Map<String, CimFieldInfo>> value) {
+                projectFields.put(projectKey, value);
+            }
+        };
+    }
+
+    private Map<String, Map<String, CimFieldInfo>> readStoredProjectFields(String projectKey) {
+        MetadataRequest<Map<String, Map<String, CimFieldInfo>>> request = createProjectFieldsRequest(projectKey);
+        StoredMetadata storedMetadata = metadataStore.read(MetadataType.CREATE_META, projectKey);
+        if (storedMetadata == null) {
+            return null;
+        }
+        try {
+            Map<String, Map<String, CimFieldInfo>> storedFields = request.parse(storedMetadata.getJson());
+            if (storedMetadata.isStale()) {
+                revalidate(request);
+            }
+            return storedFields;
+        } catch (JSONException e) {
+            metadataStore.remove(MetadataType.CREATE_META, projectKey);
+            return null;
         }
-        return new JiraApiCallResult<Map<String,Map<String, Map<String, CimFieldInfo>>>>(projectFields);
     }
 
-    private boolean isCustomFieldOptionValue (String projectKey, String issueTypeKey, String fieldName){
-        Map<String,Map<String, Map<String, CimFieldInfo>>> projectFields = getProjectFields(projectKey);
-        CimFieldInfo fieldInfo = projectFields.get(projectKey).get(issueTypeKey).get(fieldName);
-        Iterable<Object> allowedValues = fieldInfo.getAllowedValues();
-        return allowedValues != null;
+    /*
+    * A single createmeta response can cover several projects, it is split so that every project
+    * gets its own entry with its own age in the persistent store.
+    * */
+    private void storeProjectFields(JSONObject createMeta) throws JSONException {
+        JSONArray cimProjects = createMeta.getJSONArray("projects");
+        for (int i = 0; i < cimProjects.length(); i++) {
+            JSONObject cimProject = cimProjects.getJSONObject(i);
+            JSONObject singleProjectMeta = new JSONObject();
+            singleProjectMeta.put("projects", new JSONArray().put(cimProject));
+            metadataStore.write(MetadataType.CREATE_META, cimProject.getString("key"), singleProjectMeta.toString());
+        }
+    }
+
+    /*
+    * Fields of a single item type. Fields prefetched for the whole project are used when they are in memory,
+    * otherwise only the metadata of this item type is requested, which is much smaller for big projects.
+    * */
+    @Override
+    public Promise<Map<String, CimFieldInfo>> getIssueTypeFieldsAsync(String projectKey, String issueType) {
+        Map<String, Map<String, CimFieldInfo>> prefetchedFields = projectFields.getIfPresent(projectKey);
+        if (prefetchedFields != null && prefetchedFields.containsKey(issueType)) {
+            return Promises.promise(prefetchedFields.get(issueType));
+        }
+        String key = projectKey + "/" + issueType;
+        return getMetadata(requestedIssueTypeFields, key, createIssueTypeFieldsRequest(projectKey, issueType));
+    }
+
+    public Map<String, CimFieldInfo> getIssueTypeFields(String projectKey, String issueType) {
+        JiraApiCallResult<Map<String, CimFieldInfo>> fields = claim(getIssueTypeFieldsAsync(projectKey, issueType));
+        if (!fields.isSuccess()) {
+            return new HashMap<String, CimFieldInfo>();
+        }
+        return fields.getResult();
+    }
+
+    /*
+    * The fields are stored as one object keyed by the field id, whichever endpoint they came from.
+    * */
+    private MetadataRequest<Map<String, CimFieldInfo>> createIssueTypeFieldsRequest(final String projectKey, final String issueType) {
+        final String key = projectKey + "/" + issueType;
+        return new MetadataRequest<Map<String, CimFieldInfo>>(MetadataType.ISSUE_TYPE_FIELDS, key) {
+            @Override
+            String getResource() {
+                return CREATE_META_RESOURCE + encodeQueryParameter(projectKey) + CREATE_META_ISSUE_TYPE_FILTER + encodeQueryParameter(issueType);
+            }
+
+            @Override
+            Promise<String> fetch() {
+                return withFallback(fetchScopedIssueTypeFields(projectKey, issueType), new Function<Throwable, Promise<String>>() {
+                    @Override
+                    public Promise<String> apply(Throwable error) {
+                        if (!(error instanceof JiraHttpException) || ((JiraHttpException) error).getHttpStatusCode() != 404) {
+                            throw Throwables.propagate(error);
+                        }
+                        //servers before JIRA 8.4 only have the project createmeta, filtered by the item type here
+                        return fetchJson(JiraMetrics.Endpoint.ISSUE_TYPE_CREATE_META, getResource()).map(new Function<String, String>() {
+                            @Override
+                            public String apply(String json) {
+                                return extractIssueTypeFields(json, projectKey, issueType);
+                            }
+                        });
+                    }
+                });
+            }
+
+            @Override
+            Map<String, CimFieldInfo> parse(String json) throws JSONException {
+                return new CimFieldsInfoMapJsonParser().parse(new JSONObject(json));
+            }
+
+            @Override
+            void revalidated(Map<String, CimFieldInfo> value) {
+                requestedIssueTypeFields.put(key, value);
+            }
+        };
+    }
+
+    private Promise<String> fetchScopedIssueTypeFields(final String projectKey, final String issueType) {
+        return getProjectByKey(projectKey).flatMap(new Function<Project, Promise<String>>() {
+            @Override
+            public Promise<String> apply(Project project) {
+                IssueType type = getIssueType(project, issueType);
+                if (type == null) {
+                    throw new RestClientException("Item type " + issueType + " does not exist in project " + projectKey, null);
+                }
+                return fetchIssueTypeFieldPages(projectKey, type.getId(), 0, new JSONObject());
+            }
+        });
+    }
+
+    private Promise<String> fetchIssueTypeFieldPages(final String projectKey, final Long issueTypeId, final int startAt, final JSONObject fields) {
+        String resource = String.format(ISSUE_TYPE_CREATE_META_RESOURCE, encodeQueryParameter(projectKey), issueTypeId, startAt, ISSUE_TYPE_FIELDS_PAGE_SIZE);
+        return fetchJson(JiraMetrics.Endpoint.ISSUE_TYPE_CREATE_META, resource).flatMap(new Function<String, Promise<String>>() {
+            @Override
+            public Promise<String> apply(String json) {
+                try {
+                    JSONObject page = new JSONObject(json);
+                    //JIRA Server names the list "values", JIRA Cloud names it "fields"
+                    JSONArray values = page.has("values") ? page.getJSONArray("values") : page.getJSONArray("fields");
+                    for (int i = 0; i < values.length(); i++) {
+                        JSONObject field = values.getJSONObject(i);
+                        fields.put(field.getString("fieldId"), field);
+                    }
+                    int nextStart = startAt + values.length();
+                    boolean lastPage = page.has("isLast") ? page.getBoolean("isLast") :
+                            page.has("total") ? nextStart >= page.getInt("total") : values.length() < ISSUE_TYPE_FIELDS_PAGE_SIZE;
+                    if (lastPage || values.length() == 0) {
+                        return Promises.promise(fields.toString());
+                    }
+                    return fetchIssueTypeFieldPages(projectKey, issueTypeId, nextStart, fields);
+                } catch (JSONException e) {
+                    throw new RestClientException(e);
+                }
+            }
+        });
+    }
+
+    private static String extractIssueTypeFields(String createMetaJson, String projectKey, String issueType) {
+        try {
+            JSONArray cimProjects = new JSONObject(createMetaJson).getJSONArray("projects");
+            for (int i = 0; i < cimProjects.length(); i++) {
+                JSONObject cimProject = cimProjects.getJSONObject(i);
+                if (!projectKey.equals(cimProject.getString("key"))) {
+                    continue;
+                }
+                JSONArray cimIssueTypes = cimProject.getJSONArray("issuetypes");
+                for (int j = 0; j < cimIssueTypes.length(); j++) {
+                    JSONObject cimIssueType = cimIssueTypes.getJSONObject(j);
+                    if (issueType.equals(cimIssueType.getString("name"))) {
+                        return cimIssueType.getJSONObject("fields").toString();
+                    }
+                }
+            }
+        } catch (JSONException e) {
+            throw new RestClientException(e);
+        }
+        throw new RestClientException("No create metadata for item type " + issueType + " of project " + projectKey, null);
+    }
+
+    private static Map<String, Map<String, CimFieldInfo>> getIssueTypeFields(CimProject cimProject) {
+        HashMap<String, Map<String, CimFieldInfo>> issueTypeFields = new HashMap<String, Map<String, CimFieldInfo>>();
+        for (CimIssueType currentIssueType : cimProject.getIssueTypes()) {
+            issueTypeFields.put(currentIssueType.getName(), currentIssueType.getFields());
+        }
+        return issueTypeFields;
+    }
+
+    /*
+    * Everything needed to turn item drafts of one project into JIRA input.
+    * */
+    static class IssueMetadata {
+        final Project project;
+        final Iterable<Priority> priorities;
+        final Map<String/*Issue Type*/, Map<String/*FieldName*/, CimFieldInfo>> issueTypeFields;
+        private final ConcurrentMap<String/*project/Issue Type*/, FieldEncodingPlan> encodingPlans;
+
+        IssueMetadata(Project project, Iterable<Priority> priorities, Map<String, Map<String, CimFieldInfo>> issueTypeFields) {
+            this(project, priorities, issueTypeFields, new ConcurrentHashMap<String, FieldEncodingPlan>());
+        }
+
+        IssueMetadata(Project project, Iterable<Priority> priorities, Map<String, Map<String, CimFieldInfo>> issueTypeFields,
+                      ConcurrentMap<String, FieldEncodingPlan> encodingPlans) {
+            this.project = project;
+            this.priorities = priorities;
+            this.issueTypeFields = issueTypeFields;
+            this.encodingPlans = encodingPlans;
+        }
+
+        /*
+        * Plans are shared by all items of the provider and compiled again only when the metadata has been reloaded.
+        * */
+        FieldEncodingPlan getEncodingPlan(String issueType) {
+            String key = project.getKey() + "/" + issueType;
+            Map<String, CimFieldInfo> fields = issueTypeFields.get(issueType);
+            FieldEncodingPlan plan = encodingPlans.get(key);
+            if (plan == null || !plan.isCompiledFrom(fields, priorities)) {
+                plan = FieldEncodingPlan.compile(fields, priorities);
+                encodingPlans.put(key, plan);
+            }
+            return plan;
+        }
+    }
+
+    /*
+    * Priorities and field metadata are only loaded when the extra values need them. The promise is never rejected,
+    * a failure is reported by the result, so the drafts of the other projects of a bulk request are not affected.
+    * */
+    private Promise<JiraApiCallResult<IssueMetadata>> getIssueMetadata(final String projectKey, Collection<String> issueTypes, Collection<String> extraFieldNames) {
+        final Promise<Project> project = getProjectByKey(projectKey);
+        final Promise<Iterable<Priority>> projectPriorities;
+        if (extraFieldNames.contains("priority")) {
+            projectPriorities = getAllPriorities().recover(new Function<Throwable, Iterable<Priority>>() {
+                @Override
+                public Iterable<Priority> apply(Throwable error) {
+                    return Collections.emptyList();
+                }
+            });
+        } else {
+            projectPriorities = Promises.<Iterable<Priority>>promise(Collections.<Priority>emptyList());
+        }
+        final Promise<Map<String, Map<String, CimFieldInfo>>> issueTypeFields;
+        if (BUILT_IN_FIELDS.containsAll(extraFieldNames)) {
+            issueTypeFields = Promises.<Map<String, Map<String, CimFieldInfo>>>promise(new HashMap<String, Map<String, CimFieldInfo>>());
+        } else {
+            final Map<String, Promise<Map<String, CimFieldInfo>>> fieldsOfIssueTypes = new HashMap<>();
+            for (String issueType : issueTypes) {
+                fieldsOfIssueTypes.put(issueType, getIssueTypeFieldsAsync(projectKey, issueType));
+            }
+            issueTypeFields = Promises.when(fieldsOfIssueTypes.values()).map(new Function<List<Map<String, CimFieldInfo>>, Map<String, Map<String, CimFieldInfo>>>() {
+                @Override
+                public Map<String, Map<String, CimFieldInfo>> apply(List<Map<String, CimFieldInfo>> loadedFields) {
+                    Map<String, Map<String, CimFieldInfo>> fields = new HashMap<>();
+                    for (Map.Entry<String, Promise<Map<String, CimFieldInfo>>> fieldsOfIssueType : fieldsOfIssueTypes.entrySet()) {
+                        fields.put(fieldsOfIssueType.getKey(), fieldsOfIssueType.getValue().claim());
+                    }
+                    return fields;
+                }
+            });
+        }
+
+        return Promises.<Object>when(project, projectPriorities, issueTypeFields).map(new Function<List<Object>, JiraApiCallResult<IssueMetadata>>() {
+            @Override
+            public JiraApiCallResult<IssueMetadata> apply(List<Object> loaded) {
+                return new JiraApiCallResult<IssueMetadata>(new IssueMetadata(project.claim(), projectPriorities.claim(), issueTypeFields.claim(), fieldEncodingPlans));
+            }
+        }).recover(new Function<Throwable, JiraApiCallResult<IssueMetadata>>() {
+            @Override
+            public JiraApiCallResult<IssueMetadata> apply(Throwable error) {
+                return new JiraApiCallResult<IssueMetadata>(error);
+            }
+        });
     }
 
     @Override
     public IssueCreationResult createIssue(String projectKey, String issueTypeKey, String summary, String description, Map<String, String> extraRequiredValues) {
+        return createIssueAsync(projectKey, issueTypeKey, summary, description, extraRequiredValues).claim();
+    }
+
+    @Override
+    public Promise<IssueCreationResult> createIssueAsync(String projectKey, String issueTypeKey, String summary, String description, Map<String, String> extraRequiredValues) {
+        return createIssueAsync(new IssueDraft(projectKey, issueTypeKey, summary, description, extraRequiredValues));
+    }
+
+    public Promise<IssueCreationResult> createIssueAsync(IssueDraft issueDraft) {
+        return startIssueCreation(issueDraft, NOT_CREATED_BEFORE);
+    }
+
+    /*
+    * For items which an earlier request may have created already: the item is not created again
+    * if the current user has created one with the same summary in the project since the given time.
+    * */
+    public Promise<IssueCreationResult> createIssueIfAbsentAsync(IssueDraft issueDraft, long mayExistSince) {
+        return startIssueCreation(issueDraft, mayExistSince);
+    }
+
+    private Promise<IssueCreationResult> startIssueCreation(final IssueDraft issueDraft, final long mayExistSince) {
         //https://bitbucket.org/atlassian/jira-rest-java-client/src/75a64c9d81aad7d8bd9beb11e098148407b13cae/test/src/test/java/samples/Example1.java?at=master
-        if (restClient == null) {
-            return new IssueCreationResult(BUG_TRACKER_URI_IS_INCORRECT);
+        if (!isConnected()) {
+            return Promises.promise(new IssueCreationResult(BUG_TRACKER_URI_IS_INCORRECT));
         }
 
-        BasicIssue basicIssue = null;
-        try {
-            JiraApiCallResult<IssueType> issueType = getIssueType(projectKey, issueTypeKey);
-            if (!issueType.isSuccess()) {
-                return new IssueCreationResult(issueType.getError().getMessage());
-            }
-
-            IssueInputBuilder issueInputBuilder = new IssueInputBuilder(projectKey, issueType.getResult().getId());
-            issueInputBuilder.setIssueType(issueType.getResult());
-            issueInputBuilder.setProjectKey(projectKey);
-            issueInputBuilder.setSummary(summary);
-            issueInputBuilder.setDescription(description);
-            for (final Map.Entry<String, String> extraRequiredValue : extraRequiredValues.entrySet()) {
-                if (extraRequiredValue.getKey().equals("priority")) {
-                    issueInputBuilder.setPriority(getPriorityByName(extraRequiredValue.getValue()));
-                } else if (extraRequiredValue.getKey().equals("components")) {
-                    issueInputBuilder.setComponentsNames(new Iterable<String>() {
-                        @Override
-                        public Iterator<String> iterator() {
-                            return new Iterator<String>() {
-                                boolean hasValue = true;
-
-                                @Override
-                                public boolean hasNext() {
-                                    return hasValue;
-                                }
-
-                                @Override
-                                public String next() {
-                                    hasValue = false;
-                                    return extraRequiredValue.getValue();
-                                }
-
-                                @Override
-                                public void remove() {
-
-                                }
-                            };
+        final String projectKey = issueDraft.getProjectKey();
+        return getIssueMetadata(projectKey, Collections.singleton(issueDraft.getIssueType()), issueDraft.getExtraValues().keySet()).flatMap(new Function<JiraApiCallResult<IssueMetadata>, Promise<IssueCreationResult>>() {
+            @Override
+            public Promise<IssueCreationResult> apply(JiraApiCallResult<IssueMetadata> issueMetadata) {
+                JiraApiCallResult<IssueInput> issueInput = buildIssueInput(projectKey, issueDraft.getIssueType(), issueDraft.getSummary(),
+                        issueDraft.getDescription(), issueDraft.getExtraValues(), issueMetadata);
+                if (!issueInput.isSuccess()) {
+                    return Promises.promise(toFailedCreationResult(issueInput.getError()));
+                }
+                return toIssueCreationResult(createIssueWithRetries(issueInput.getResult(), projectKey, issueDraft.getSummary(), mayExistSince));
+            }
+        }).recover(new Function<Throwable, IssueCreationResult>() {
+            @Override
+            public IssueCreationResult apply(Throwable error) {
+                return toFailedCreationResult(error);
+            }
+        });
+    }
+
+    /*
+    * A create which failed without a clear answer may still have created the item. So before it is repeated,
+    * JIRA is searched for an item with the same summary which the current user has created since the first attempt.
+    * Nothing is added to the item for finding it, the search only runs on the paths which repeat a create.
+    * */
+    private Promise<BasicIssue> createIssueWithRetries(final IssueInput issueInput, final String projectKey, final String summary, final long mayExistSince) {
+        final long firstAttemptTime = System.currentTimeMillis();
+        return retryingCaller.call("Creating an item in " + projectKey, true, new RetryingCaller.Attempt<BasicIssue>() {
+            @Override
+            public Promise<BasicIssue> start(int attempt) {
+                if (attempt == 1 && mayExistSince == NOT_CREATED_BEFORE) {
+                    return createIssueOnServer(issueInput);
+                }
+                long searchedSince = mayExistSince == NOT_CREATED_BEFORE ? firstAttemptTime : mayExistSince;
+                return findCreatedIssue(projectKey, summary, searchedSince).flatMap(new Function<Optional<BasicIssue>, Promise<BasicIssue>>() {
+                    @Override
+                    public Promise<BasicIssue> apply(Optional<BasicIssue> createdIssue) {
+                        if (createdIssue.isPresent()) {
+                            logger.info("The item " + createdIssue.get().getKey() + " was created by an earlier request, it is not created again");
+                            return Promises.promise(createdIssue.get());
                         }
-                    });
-                } else if (extraRequiredValue.getKey().equals("versions")){
-                    issueInputBuilder.setAffectedVersionsNames(new Iterable<String>() {
-                        @Override
-                        public Iterator<String> iterator() {
-                            return new Iterator<String>() {
-                                boolean hasValue = true;
-                                @Override
-                                public boolean hasNext() {
-                                    return hasValue;
-                                }
-
-                                @Override
-                                public String next() {
-                                    hasValue = false;
-                                    return extraRequiredValue.getValue();
-                                }
-
-                                @Override
-                                public void remove() {
-
-                                }
-                            };
+                        return createIssueOnServer(issueInput);
+                    }
+                });
+            }
+        });
+    }
+
+    /*
+    * The search index of JIRA is updated shortly after an item is created, the backoff before a repeated attempt gives it time.
+    * */
+    private Promise<Optional<BasicIssue>> findCreatedIssue(String projectKey, final String summary, long createdSince) {
+        //quotes and backslashes cannot be searched for in a phrase, the summaries of the found items are compared instead
+        String phrase = summary.replace('"', ' ').replace('\\', ' ');
+        //the age is relative to the server time, so the clocks of the server and this machine do not have to match
+        long searchedMinutes = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - createdSince) + DEDUP_WINDOW_SLACK_MINUTES;
+        final String jql = String.format("project = \"%s\" AND summary ~ \"\\\"%s\\\"\" AND reporter = currentUser() AND created >= -%dm",
+                projectKey, phrase, searchedMinutes);
+        return call(JiraMetrics.Endpoint.SEARCH_ISSUES, new ClientCall<SearchResult>() {
+            @Override
+            public Promise<SearchResult> start(JiraRestClient restClient) {
+                return restClient.getSearchClient().searchJql(jql);
+            }
+        }).map(new Function<SearchResult, Optional<BasicIssue>>() {
+            @Override
+            public Optional<BasicIssue> apply(SearchResult searchResult) {
+                for (Issue issue : searchResult.getIssues()) {
+                    if (summary.equals(issue.getSummary())) {
+                        return Optional.<BasicIssue>of(issue);
+                    }
+                }
+                return Optional.absent();
+            }
+        });
+    }
+
+    @Override
+    public List<IssueCreationResult> createIssues(List<IssueDraft> issueDrafts) {
+        return createIssuesAsync(issueDrafts).claim();
+    }
+
+    /*
+    * JIRA accepts at most 50 issues in one bulk request, bigger batches are split into chunks.
+    * Results are returned in the order of the drafts.
+    * */
+    @Override
+    public Promise<List<IssueCreationResult>> createIssuesAsync(List<IssueDraft> issueDrafts) {
+        List<Promise<List<IssueCreationResult>>> chunkResults = new ArrayList<>();
+        for (int chunkStart = 0; chunkStart < issueDrafts.size(); chunkStart += BULK_CREATE_CHUNK_SIZE) {
+            List<IssueDraft> chunk = issueDrafts.subList(chunkStart, Math.min(chunkStart + BULK_CREATE_CHUNK_SIZE, issueDrafts.size()));
+            chunkResults.add(createIssuesChunk(new ArrayList<>(chunk)));
+        }
+        return Promises.when(chunkResults).map(new Function<List<List<IssueCreationResult>>, List<IssueCreationResult>>() {
+            @Override
+            public List<IssueCreationResult> apply(List<List<IssueCreationResult>> chunkResults) {
+                List<IssueCreationResult> results = new ArrayList<>();
+                for (List<IssueCreationResult> chunkResult : chunkResults) {
+                    results.addAll(chunkResult);
+                }
+                return results;
+            }
+        });
+    }
+
+    private Promise<List<IssueCreationResult>> createIssuesChunk(final List<IssueDraft> issueDrafts) {
+        final IssueCreationResult[] results = new IssueCreationResult[issueDrafts.size()];
+        if (!isConnected()) {
+            Arrays.fill(results, new IssueCreationResult(BUG_TRACKER_URI_IS_INCORRECT));
+            return Promises.promise(Arrays.asList(results));
+        }
+
+        Map<String, Set<String>> projectIssueTypes = new HashMap<>();
+        Map<String, Set<String>> projectExtraFieldNames = new HashMap<>();
+        for (IssueDraft draft : issueDrafts) {
+            if (!projectExtraFieldNames.containsKey(draft.getProjectKey())) {
+                projectIssueTypes.put(draft.getProjectKey(), new HashSet<String>());
+                projectExtraFieldNames.put(draft.getProjectKey(), new HashSet<String>());
+            }
+            projectIssueTypes.get(draft.getProjectKey()).add(draft.getIssueType());
+            projectExtraFieldNames.get(draft.getProjectKey()).addAll(draft.getExtraValues().keySet());
+        }
+        final Map<String, Promise<JiraApiCallResult<IssueMetadata>>> projectMetadata = new HashMap<>();
+        for (Map.Entry<String, Set<String>> extraFieldNames : projectExtraFieldNames.entrySet()) {
+            String projectKey = extraFieldNames.getKey();
+            projectMetadata.put(projectKey, getIssueMetadata(projectKey, projectIssueTypes.get(projectKey), extraFieldNames.getValue()));
+        }
+
+        return Promises.when(projectMetadata.values()).flatMap(new Function<List<JiraApiCallResult<IssueMetadata>>, Promise<List<IssueCreationResult>>>() {
+            @Override
+            public Promise<List<IssueCreationResult>> apply(List<JiraApiCallResult<IssueMetadata>> loadedMetadata) {
+                final List<IssueInput> issueInputs = new ArrayList<>();
+                final List<Integer> draftIndexes = new ArrayList<>();
+                for (int i = 0; i < issueDrafts.size(); i++) {
+                    IssueDraft draft = issueDrafts.get(i);
+                    JiraApiCallResult<IssueInput> issueInput = buildIssueInput(draft.getProjectKey(), draft.getIssueType(), draft.getSummary(),
+                            draft.getDescription(), draft.getExtraValues(), projectMetadata.get(draft.getProjectKey()).claim());
+                    if (issueInput.isSuccess()) {
+                        issueInputs.add(issueInput.getResult());
+                        draftIndexes.add(i);
+                    } else {
+                        results[i] = new IssueCreationResult(issueInput.getError().getMessage());
+                    }
+                }
+                if (issueInputs.isEmpty()) {
+                    return Promises.promise(Arrays.asList(results));
+                }
+
+                final long bulkStartTime = System.currentTimeMillis();
+                return createIssuesInBulk(issueInputs).flatMap(new Function<Optional<BulkOperationResult<BasicIssue>>, Promise<List<IssueCreationResult>>>() {
+                    @Override
+                    public Promise<List<IssueCreationResult>> apply(Optional<BulkOperationResult<BasicIssue>> bulkResult) {
+                        if (!bulkResult.isPresent()) {
+                            return createIssuesOneByOne(issueDrafts, issueInputs, draftIndexes, results, bulkStartTime);
                         }
-                    });
-                } else if (extraRequiredValue.getKey().equals("fixVersions")){
-                    issueInputBuilder.setFixVersionsNames(new Iterable<String>() {
-                        @Override
-                        public Iterator<String> iterator() {
-                            return new Iterator<String>() {
-                                boolean hasValue = true;
-
-                                @Override
-                                public boolean hasNext() {
-                                    return hasValue;
-                                }
-
-                                @Override
-                                public String next() {
-                                    hasValue = false;
-                                    return extraRequiredValue.getValue();
-                                }
-
-                                @Override
-                                public void remove() {
-
-                                }
-                            };
+                        Map<Integer, String> failedElements = new HashMap<>();
+                        for (BulkOperationErrorResult error : bulkResult.get().getErrors()) {
+                            failedElements.put(error.getFailedElementNumber(), error.getElementErrors().toString());
                         }
-                    });
-                } else if (extraRequiredValue.getKey().equals("assignee")){
-                    issueInputBuilder.setAssigneeName(extraRequiredValue.getValue());
-                } else if (extraRequiredValue.getKey().equals("parent")){
-                    Map<String, Object> parent = new HashMap<String, Object>();
-                    parent.put("key", extraRequiredValue.getValue());
-                    FieldInput parentField = new FieldInput("parent", new ComplexIssueInputFieldValue(parent));
-                    issueInputBuilder.setFieldInput(parentField);
-                } else if (extraRequiredValue.getKey().equals("resolution")){
-                    Map<String, Object> customOptionValue = new HashMap<>();
-                    customOptionValue.put("name", extraRequiredValue.getValue());
-                    issueInputBuilder.setFieldValue(extraRequiredValue.getKey(), new ComplexIssueInputFieldValue(customOptionValue));
-                } else if (isCustomFieldOptionValue(projectKey, issueTypeKey, extraRequiredValue.getKey())) {
-                    Map<String, Object> customOptionValue = new HashMap<>();
-                    customOptionValue.put("value", extraRequiredValue.getValue());
-                    issueInputBuilder.setFieldValue(extraRequiredValue.getKey(), new ComplexIssueInputFieldValue(customOptionValue));
-                } else {
-                    issueInputBuilder.setFieldValue(extraRequiredValue.getKey(), extraRequiredValue.getValue());
-                }
+                        Iterator<BasicIssue> createdIssues = bulkResult.get().getIssues().iterator();
+                        for (int i = 0; i < issueInputs.size(); i++) {
+                            int draftIndex = draftIndexes.get(i);
+                            if (failedElements.containsKey(i)) {
+                                results[draftIndex] = new IssueCreationResult(failedElements.get(i));
+                            } else if (createdIssues.hasNext()) {
+                                results[draftIndex] = new IssueCreationResult(createdIssues.next());
+                            } else {
+                                results[draftIndex] = new IssueCreationResult("JIRA did not report the result of creating this item.");
+                            }
+                        }
+                        return Promises.promise(Arrays.asList(results));
+                    }
+                });
+            }
+        }).recover(new Function<Throwable, List<IssueCreationResult>>() {
+            @Override
+            public List<IssueCreationResult> apply(Throwable error) {
+                fillMissingResults(results, getCreationErrorMessage(error));
+                return Arrays.asList(results);
             }
+        });
+    }
 
-            Promise<BasicIssue> issue = restClient.getIssueClient().createIssue(issueInputBuilder.build());
-            basicIssue = issue.get();
-        } catch (InterruptedException e) {
-            String errorMessage = e.getMessage();
-            if (errorMessage.contains(INCORRECT_PROTOCOL_ERROR_CODE)){
-                errorMessage += INCORRECT_PROTOCOL_IN_THE_JIRA_URL;
+    /*
+    * A bulk create is repeated only when JIRA rejected it. After an ambiguous failure the result is absent,
+    * the items are then created one by one, unless the failed request has created them.
+    * */
+    private Promise<Optional<BulkOperationResult<BasicIssue>>> createIssuesInBulk(final List<IssueInput> issueInputs) {
+        return retryingCaller.call("Creating items in bulk", false, new RetryingCaller.Attempt<BulkOperationResult<BasicIssue>>() {
+            @Override
+            public Promise<BulkOperationResult<BasicIssue>> start(int attempt) {
+                return call(JiraMetrics.Endpoint.BULK_CREATE, new ClientCall<BulkOperationResult<BasicIssue>>() {
+                    @Override
+                    public Promise<BulkOperationResult<BasicIssue>> start(JiraRestClient restClient) {
+                        return restClient.getIssueClient().createIssues(issueInputs);
+                    }
+                });
             }
-            return new IssueCreationResult(errorMessage);
-        } catch (ExecutionException e) {
-            String errorMessage = e.getMessage();
-            if (errorMessage.contains(INCORRECT_PROTOCOL_ERROR_CODE)){
-                errorMessage += INCORRECT_PROTOCOL_IN_THE_JIRA_URL;
+        }).map(new Function<BulkOperationResult<BasicIssue>, Optional<BulkOperationResult<BasicIssue>>>() {
+            @Override
+            public Optional<BulkOperationResult<BasicIssue>> apply(BulkOperationResult<BasicIssue> bulkResult) {
+                return Optional.of(bulkResult);
             }
-            return new IssueCreationResult(errorMessage);
+        }).recover(new Function<Throwable, Optional<BulkOperationResult<BasicIssue>>>() {
+            @Override
+            public Optional<BulkOperationResult<BasicIssue>> apply(Throwable error) {
+                if (RetryPolicy.classify(error) == RetryPolicy.FailureType.AMBIGUOUS) {
+                    logger.warn("Creating items in bulk failed (" + error.getMessage() + "), they are created one by one");
+                    return Optional.absent();
+                }
+                throw Throwables.propagate(error);
+            }
+        });
+    }
+
+    private Promise<List<IssueCreationResult>> createIssuesOneByOne(List<IssueDraft> issueDrafts, List<IssueInput> issueInputs,
+                                                                    final List<Integer> draftIndexes, final IssueCreationResult[] results, long bulkStartTime) {
+        List<Promise<IssueCreationResult>> singleResults = new ArrayList<>();
+        for (int i = 0; i < issueInputs.size(); i++) {
+            IssueDraft draft = issueDrafts.get(draftIndexes.get(i));
+            //the failed bulk request may have created some of the items
+            singleResults.add(toIssueCreationResult(createIssueWithRetries(issueInputs.get(i), draft.getProjectKey(), draft.getSummary(), bulkStartTime)));
         }
+        return Promises.when(singleResults).map(new Function<List<IssueCreationResult>, List<IssueCreationResult>>() {
+            @Override
+            public List<IssueCreationResult> apply(List<IssueCreationResult> createdIssues) {
+                for (int i = 0; i < createdIssues.size(); i++) {
+                    results[draftIndexes.get(i)] = createdIssues.get(i);
+                }
+                return Arrays.asList(results);
+            }
+        });
+    }
+
+    private static Promise<IssueCreationResult> toIssueCreationResult(Promise<BasicIssue> creation) {
+        return creation.map(new Function<BasicIssue, IssueCreationResult>() {
+            @Override
+            public IssueCreationResult apply(BasicIssue basicIssue) {
+                return new IssueCreationResult(basicIssue);
+            }
+        }).recover(new Function<Throwable, IssueCreationResult>() {
+            @Override
+            public IssueCreationResult apply(Throwable error) {
+                return toFailedCreationResult(error);
+            }
+        });
+    }
 
-        return new IssueCreationResult(basicIssue);
+    private static IssueCreationResult toFailedCreationResult(Throwable error) {
+        return new IssueCreationResult(getCreationErrorMessage(error), RetryPolicy.classify(error) != RetryPolicy.FailureType.PERMANENT);
     }
 
-    protected void finalize() throws Throwable {
-        try {
-            if (restClient != null) {
-                restClient.close();
+    private static void fillMissingResults(IssueCreationResult[] results, String errorMessage) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new IssueCreationResult(errorMessage);
             }
-        } catch (IOException e) {
         }
     }
 
+    private static String getCreationErrorMessage(Throwable error) {
+        String errorMessage = error.getMessage() != null ? error.getMessage() : error.toString();
+        if (errorMessage.contains(INCORRECT_PROTOCOL_ERROR_CODE)){
+            errorMessage += INCORRECT_PROTOCOL_IN_THE_JIRA_URL;
+        }
+        return errorMessage;
+    }
+
+    static JiraApiCallResult<IssueInput> buildIssueInput(String projectKey, String issueTypeKey, String summary, String description, Map<String, String> extraRequiredValues,
+                                                        JiraApiCallResult<IssueMetadata> issueMetadata) {
+        if (!issueMetadata.isSuccess()) {
+            return new JiraApiCallResult<IssueInput>(issueMetadata.getError());
+        }
+        IssueType issueType = getIssueType(issueMetadata.getResult().project, issueTypeKey);
+        if (issueType == null) {
+            return new JiraApiCallResult<IssueInput>(new IllegalArgumentException(String.format("There is no '%s' item type in the %s project.", issueTypeKey, projectKey)));
+        }
+
+        IssueInputBuilder issueInputBuilder = new IssueInputBuilder(projectKey, issueType.getId());
+        issueInputBuilder.setIssueType(issueType);
+        issueInputBuilder.setProjectKey(projectKey);
+        issueInputBuilder.setSummary(summary);
+        issueInputBuilder.setDescription(description);
+        FieldEncodingPlan encodingPlan = issueMetadata.getResult().getEncodingPlan(issueTypeKey);
+        for (Map.Entry<String, String> extraRequiredValue : extraRequiredValues.entrySet()) {
+            encodingPlan.encode(issueInputBuilder, extraRequiredValue.getKey(), extraRequiredValue.getValue());
+        }
+
+        return new JiraApiCallResult<IssueInput>(issueInputBuilder.build());
+    }
+
     @Override
     public AttachmentAddingResult attachFile(URI attachmentUri, String fileName, InputStream inputStream) {
+        return attachFileAsync(attachmentUri, fileName, inputStream).claim();
+    }
+
+    @Override
+    public Promise<AttachmentAddingResult> attachFileAsync(final URI attachmentUri, final String fileName, final InputStream inputStream) {
         if (attachmentUri == null) {
-            return new AttachmentAddingResult(BUG_TRACKER_ISSUE_KEY_NOT_SPECIFIED);
+            return Promises.promise(new AttachmentAddingResult(BUG_TRACKER_ISSUE_KEY_NOT_SPECIFIED));
         }
         if (StringUtils.isNullOrEmpty(fileName)) {
-            return new AttachmentAddingResult(BUG_TRACKER_FILE_NAME_NOT_SPECIFIED);
+            return Promises.promise(new AttachmentAddingResult(BUG_TRACKER_FILE_NAME_NOT_SPECIFIED));
         }
 
-        try {
-            restClient.getIssueClient().addAttachment(attachmentUri, inputStream, fileName).get();
-        } catch (InterruptedException e) {
-            return new AttachmentAddingResult(e.getMessage());
-        } catch (ExecutionException e) {
-            return new AttachmentAddingResult(e.getMessage());
-        }
-
-        return new AttachmentAddingResult();//everything is ok
+        //a stream cannot be read twice, so its upload is only rate limited
+        final CountingInputStream countingStream = new CountingInputStream(inputStream);
+        return toAttachmentAddingResult(retryingCaller.callOnce("Attaching " + fileName, new RetryingCaller.Attempt<Void>() {
+            @Override
+            public Promise<Void> start(int attempt) {
+                return call(JiraMetrics.Endpoint.ATTACH, new ClientCall<Void>() {
+                    @Override
+                    public Promise<Void> start(JiraRestClient restClient) {
+                        return postAttachment(attachmentUri, new InputStreamBody(countingStream, fileName));
+                    }
+                });
+            }
+        }).map(new Function<Void, Void>() {
+            @Override
+            public Void apply(Void ignored) {
+                metrics.recordUpload(fileName, countingStream.getCount());
+                return null;
+            }
+        }));
     }
 
     @Override
     public AttachmentAddingResult attachFile(URI attachmentUri, String filePath){
+        return attachFileAsync(attachmentUri, filePath).claim();
+    }
+
+    @Override
+    public Promise<AttachmentAddingResult> attachFileAsync(final URI attachmentUri, String filePath){
         if (attachmentUri == null) {
-            return new AttachmentAddingResult(BUG_TRACKER_ISSUE_KEY_NOT_SPECIFIED);
+            return Promises.promise(new AttachmentAddingResult(BUG_TRACKER_ISSUE_KEY_NOT_SPECIFIED));
         }
         if (StringUtils.isNullOrEmpty(filePath)) {
-            return new AttachmentAddingResult(BUG_TRACKER_INCORRECT_FILE_PATH);
+            return Promises.promise(new AttachmentAddingResult(BUG_TRACKER_INCORRECT_FILE_PATH));
         }
-        File file = new File (filePath);
+        final File file = new File (filePath);
         if (!file.exists() && file.isFile()){
-            return new AttachmentAddingResult(BUG_TRACKER_INCORRECT_FILE_PATH);
+            return Promises.promise(new AttachmentAddingResult(BUG_TRACKER_INCORRECT_FILE_PATH));
+        }
+
+        return toAttachmentAddingResult(retryingCaller.call("Attaching " + filePath, false, new RetryingCaller.Attempt<Void>() {
+            @Override
+            public Promise<Void> start(int attempt) {
+                return call(JiraMetrics.Endpoint.ATTACH, new ClientCall<Void>() {
+                    @Override
+                    public Promise<Void> start(JiraRestClient restClient) {
+                        return postAttachment(attachmentUri, new FileBody(file));
+                    }
+                });
+            }
+        }).map(new Function<Void, Void>() {
+            @Override
+            public Void apply(Void ignored) {
+                metrics.recordUpload(file.getName(), file.length());
+                return null;
+            }
+        }));
+    }
+
+    /*
+    * JRJC writes the whole multipart body into a byte array before it sends anything, so the attachments
+    * are posted through the pooled client instead. The body is written by a background thread while it is
+    * sent, only the pipe buffer is held in memory.
+    * The body is closed when the request has finished, also when it failed before the body was read. Otherwise the writer
+    * of the pipe would wait for a reader forever and keep the attached file open.
+    * */
+    private Promise<Void> postAttachment(final URI attachmentUri, ContentBody content) {
+        final MultipartEntity multipartEntity = new MultipartEntity(HttpMultipartMode.BROWSER_COMPATIBLE, null, StandardCharsets.UTF_8);
+        multipartEntity.addPart(ATTACHMENT_PART_NAME, content);
+        final InputStream body;
+        try {
+            body = PipedContentStream.open(new PipedContentStream.ContentWriter() {
+                @Override
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    multipartEntity.writeTo(outputStream);
+                }
+            }, false);
+        } catch (IOException e) {
+            throw new RestClientException(e);
         }
+        Promise<Response> responsePromise;
+        try {
+            responsePromise = clients.getHttpClient().newRequest(attachmentUri)
+                    .setContentType(multipartEntity.getContentType().getValue())
+                    .setEntityStream(body)
+                    .setHeader(ATLASSIAN_TOKEN_HEADER, ATLASSIAN_TOKEN_NO_CHECK)
+                    .post();
+        } catch (RuntimeException e) {
+            closeQuietly(body);
+            throw e;
+        }
+        return responsePromise.then(new FutureCallback<Response>() {
+            @Override
+            public void onSuccess(Response response) {
+                closeQuietly(body);
+            }
 
-        restClient.getIssueClient().addAttachments(attachmentUri, file);
-        return new AttachmentAddingResult();
+            @Override
+            public void onFailure(Throwable error) {
+                closeQuietly(body);
+            }
+        }).map(new Function<Response, Void>() {
+            @Override
+            public Void apply(Response response) {
+                int statusCode = response.getStatusCode();
+                if (statusCode < 200 || statusCode >= 300) {
+                    throw new JiraHttpException(statusCode, response.getStatusText(), attachmentUri.toString(), response.getHeader(RETRY_AFTER_HEADER));
+                }
+                return null;
+            }
+        });
     }
 
-    private InputStream getExecutionLog(String loggerName) {
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            logger.warn(e.getMessage());
+        }
+    }
+
+    private static Promise<AttachmentAddingResult> toAttachmentAddingResult(Promise<Void> upload) {
+        return upload.map(new Function<Void, AttachmentAddingResult>() {
+            @Override
+            public AttachmentAddingResult apply(Void ignored) {
+                return new AttachmentAddingResult();//everything is ok
+            }
+        }).recover(new Function<Throwable, AttachmentAddingResult>() {
+            @Override
+            public AttachmentAddingResult apply(Throwable error) {
+                return new AttachmentAddingResult(error.getMessage(), RetryPolicy.classify(error) != RetryPolicy.FailureType.PERMANENT);
+            }
+        });
+    }
+
+    private InputStream getExecutionLog(String loggerName, boolean compressed) {
         org.apache.log4j.Logger loggerr = org.apache.log4j.Logger.getLogger(loggerName);
         FileAppender fileAppender = null;
         Enumeration appenders = loggerr.getRootLogger().getAllAppenders();
@@ -484,8 +1624,8 @@ public class JiraProvider implements SimpleBugTrackerProvider {
 
         if(fileAppender != null){
             try {
-                return (InputStream) new FileInputStream(fileAppender.getFile());
-            } catch (FileNotFoundException e) {
+                return new LogTailExtractor(new File(fileAppender.getFile()), getLogAttachmentLimit()).open(compressed);
+            } catch (IOException e) {
                 JiraProvider.logger.error(e.getMessage());
             }
         }
@@ -493,16 +1633,29 @@ public class JiraProvider implements SimpleBugTrackerProvider {
         return null;
     }
 
+    private long getLogAttachmentLimit() {
+        String limit = SoapUI.getSettings().getString(BugTrackerPrefs.LOG_ATTACHMENT_LIMIT, String.valueOf(BugTrackerPrefs.DEFAULT_LOG_ATTACHMENT_LIMIT_MB));
+        try {
+            return Math.max(LogTailExtractor.UNLIMITED, Long.parseLong(limit.trim()) * 1024 * 1024);
+        } catch (NumberFormatException e) {
+            return BugTrackerPrefs.DEFAULT_LOG_ATTACHMENT_LIMIT_MB * 1024 * 1024;
+        }
+    }
+
     public InputStream getServiceVExecutionLog() {
-        return getExecutionLog("com.smartbear.servicev");
+        return getExecutionLog("com.smartbear.servicev", false);
     }
 
     public InputStream getLoadUIExecutionLog() {
-        return getExecutionLog("com.eviware.loadui");
+        return getExecutionLog("com.eviware.loadui", false);
     }
 
     public InputStream getReadyApiLog() {
-        return getExecutionLog("com.smartbear.ready");
+        return getReadyApiLog(false);
+    }
+
+    public InputStream getReadyApiLog(boolean compressed) {
+        return getExecutionLog("com.smartbear.ready", compressed);
     }
 
     public void setActiveItem(ModelItem element) {
@@ -519,8 +1672,30 @@ public class JiraProvider implements SimpleBugTrackerProvider {
     }
 
     public InputStream getRootProject() {
+        return getRootProject(false);
+    }
+
+    /*
+    * The project document is serialised straight into the upload body, so only the pipe buffer
+    * is held in memory however big the project is.
+    * */
+    public InputStream getRootProject(boolean compressed) {
         WsdlProject project = findActiveElementRootProject(activeElement);
-        return new ByteArrayInputStream(project.getConfig().toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            return openProjectStream(project.getConfig(), compressed);
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return null;
+        }
+    }
+
+    static InputStream openProjectStream(final XmlObject projectConfig, boolean compressed) throws IOException {
+        return PipedContentStream.open(new PipedContentStream.ContentWriter() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                projectConfig.save(outputStream, new XmlOptions().setCharacterEncoding(StandardCharsets.UTF_8.name()));
+            }
+        }, compressed);
     }
 
     private WsdlProject findActiveElementRootProject(ModelItem activeElement) {
@@ -534,6 +1709,20 @@ public class JiraProvider implements SimpleBugTrackerProvider {
                 StringUtils.isNullOrEmpty(settings.getPassword()));
     }
 
+    /*
+    * Checks the stored settings without creating the provider, which would ask the user for missing settings.
+    * */
+    public static boolean hasStoredSettings() {
+        return hasStoredSettings(ServerProfiles.DEFAULT_PROFILE);
+    }
+
+    public static boolean hasStoredSettings(String profileName) {
+        BugTrackerSettings settings = readStoredSettings(profileName);
+        return !(StringUtils.isNullOrEmpty(settings.getUrl()) ||
+                StringUtils.isNullOrEmpty(settings.getLogin()) ||
+                StringUtils.isNullOrEmpty(settings.getPassword()));
+    }
+
     public boolean settingsComplete() {
         BugTrackerSettings settings = getBugTrackerSettings();
         return settingsComplete(settings);
@@ -547,9 +1736,18 @@ public class JiraProvider implements SimpleBugTrackerProvider {
     }
 
     private void createBugTrackerSettings() {
-        Settings soapuiSettings = SoapUI.getSettings();
-        bugTrackerSettings = new BugTrackerSettings(soapuiSettings.getString(BugTrackerPrefs.DEFAULT_URL, ""),
-                soapuiSettings.getString(BugTrackerPrefs.LOGIN, ""),
-                soapuiSettings.getString(BugTrackerPrefs.PASSWORD, ""));
+        bugTrackerSettings = readStoredSettings(profileName);
+    }
+
+    public static BugTrackerSettings readStoredSettings(String profileName) {
+        return ServerProfiles.getSettings(SoapUI.getSettings(), profileName);
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    public boolean isDefaultProfile() {
+        return ServerProfiles.DEFAULT_PROFILE.equals(profileName);
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Extracts the last part of a log file which does not exceed the given number of bytes. The cut is made
+ * on a line boundary and only the content present when the extraction started is read, so the log
+ * can still be written to meanwhile.
+ */
+public class LogTailExtractor {
+    public static final long UNLIMITED = 0;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final File logFile;
+    private final long byteBudget;
+
+    public LogTailExtractor(File logFile, long byteBudget) {
+        this.logFile = logFile;
+        this.byteBudget = byteBudget;
+    }
+
+    public InputStream open(boolean compressed) throws IOException {
+        if (!logFile.isFile()) {
+            throw new IOException("Log file " + logFile + " does not exist");
+        }
+        final long endOffset = logFile.length();
+        final long startOffset = findStartOffset(endOffset);
+        return PipedContentStream.open(new PipedContentStream.ContentWriter() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                if (startOffset > 0) {
+                    String header = String.format("[%d bytes at the beginning of the log are skipped]%n", startOffset);
+                    outputStream.write(header.getBytes(StandardCharsets.UTF_8));
+                }
+                copyRange(startOffset, endOffset, outputStream);
+            }
+        }, compressed);
+    }
+
+    /*
+    * Moves the start of the tail forward to the beginning of the next line, so no line is cut in half.
+    * */
+    long findStartOffset(long endOffset) throws IOException {
+        if (byteBudget == UNLIMITED || endOffset <= byteBudget) {
+            return 0;
+        }
+        long offset = endOffset - byteBudget;
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            file.seek(offset - 1);
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            long position = offset - 1;
+            while (position < endOffset) {
+                int read = file.read(buffer, 0, (int) Math.min(buffer.length, endOffset - position));
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+        }
+        return endOffset;
+    }
+
+    private void copyRange(long startOffset, long endOffset, OutputStream outputStream) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            file.seek(startOffset);
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            long remaining = endOffset - startOffset;
+            while (remaining > 0) {
+                int read = file.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read <= 0) {
+                    break;
+                }
+                outputStream.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+}
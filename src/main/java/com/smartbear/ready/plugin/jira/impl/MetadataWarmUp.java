@@ -0,0 +1,147 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.model.settings.Settings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.smartbear.ready.plugin.jira.cache.PersistentMetadataStore;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerPrefs;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+import com.smartbear.ready.plugin.jira.settings.ServerProfiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fetches projects, priorities and create metadata of the user's most used projects in the background,
+ * so that the first new item dialog opens without waiting for JIRA. The usage is counted per server and login,
+ * as "server:KEY=count,KEY=count;server:..." where the server is a digest of its URL and the login.
+ */
+public class MetadataWarmUp {
+    private static final Logger logger = LoggerFactory.getLogger(MetadataWarmUp.class);
+
+    public static final int WARMED_UP_PROJECTS_COUNT = 5;
+    private static final String USAGE_SERVERS_SEPARATOR = ";";
+    private static final String USAGE_SERVER_SEPARATOR = ":";
+    private static final String USAGE_ENTRIES_SEPARATOR = ",";
+    private static final String USAGE_COUNT_SEPARATOR = "=";
+
+    private static final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("jira-metadata-warm-up-%d").setDaemon(true).setPriority(Thread.MIN_PRIORITY).build());
+
+    public static void startIfEnabled() {
+        Settings settings = SoapUI.getSettings();
+        if (!settings.getBoolean(BugTrackerPrefs.WARM_UP_METADATA)) {
+            return;
+        }
+        warmUpExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (String profileName : ServerProfiles.getProfileNames(SoapUI.getSettings())) {
+                    warmUp(profileName);
+                }
+            }
+        });
+    }
+
+    /*
+    * Servers are warmed up one after another, each one waits until its metadata is loaded. A server without
+    * complete settings is skipped, its provider would ask the user for them.
+    * */
+    private static void warmUp(String profileName) {
+        if (!JiraProvider.hasStoredSettings(profileName)) {
+            logger.debug("Skipping the JIRA metadata warm-up of a server without complete settings: " + profileName);
+            return;
+        }
+        List<String> projectKeys = getMostUsedProjects(JiraProvider.readStoredSettings(profileName), WARMED_UP_PROJECTS_COUNT);
+        long startTime = System.currentTimeMillis();
+        try {
+            JiraProvider.getProvider(profileName).warmUp(projectKeys).claim();
+            logger.info(String.format("JIRA metadata warm-up for %s finished in %d ms", projectKeys, System.currentTimeMillis() - startTime));
+        } catch (RuntimeException e) {
+            logger.warn("JIRA metadata warm-up failed: " + e.getMessage());
+        }
+    }
+
+    public static synchronized void recordProjectUsage(BugTrackerSettings settings, String projectKey) {
+        Map<String, Map<String, Integer>> serverUsage = readProjectUsage();
+        String serverKey = getServerKey(settings);
+        Map<String, Integer> usage = serverUsage.get(serverKey);
+        if (usage == null) {
+            usage = new LinkedHashMap<>();
+            serverUsage.put(serverKey, usage);
+        }
+        Integer count = usage.get(projectKey);
+        usage.put(projectKey, count == null ? 1 : count + 1);
+        StringBuilder serializedUsage = new StringBuilder();
+        for (Map.Entry<String, Map<String, Integer>> server : serverUsage.entrySet()) {
+            if (serializedUsage.length() > 0) {
+                serializedUsage.append(USAGE_SERVERS_SEPARATOR);
+            }
+            serializedUsage.append(server.getKey()).append(USAGE_SERVER_SEPARATOR);
+            String entriesSeparator = "";
+            for (Map.Entry<String, Integer> entry : server.getValue().entrySet()) {
+                serializedUsage.append(entriesSeparator).append(entry.getKey()).append(USAGE_COUNT_SEPARATOR).append(entry.getValue());
+                entriesSeparator = USAGE_ENTRIES_SEPARATOR;
+            }
+        }
+        SoapUI.getSettings().setString(BugTrackerPrefs.PROJECT_USAGE, serializedUsage.toString());
+    }
+
+    public static synchronized List<String> getMostUsedProjects(BugTrackerSettings settings, int count) {
+        final Map<String, Integer> usage = readProjectUsage().get(getServerKey(settings));
+        if (usage == null) {
+            return new ArrayList<>();
+        }
+        List<String> projectKeys = new ArrayList<>(usage.keySet());
+        Collections.sort(projectKeys, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                return usage.get(second).compareTo(usage.get(first));
+            }
+        });
+        return projectKeys.size() > count ? new ArrayList<>(projectKeys.subList(0, count)) : projectKeys;
+    }
+
+    /*
+    * The password is left out, so the usage is kept when it changes.
+    * */
+    private static String getServerKey(BugTrackerSettings settings) {
+        return PersistentMetadataStore.digest(settings.getUrl() + "\n" + settings.getLogin());
+    }
+
+    /*
+    * The usage counted for all servers together by earlier versions has no server, it is dropped.
+    * */
+    private static Map<String, Map<String, Integer>> readProjectUsage() {
+        Map<String, Map<String, Integer>> serverUsage = new LinkedHashMap<>();
+        String serializedUsage = SoapUI.getSettings().getString(BugTrackerPrefs.PROJECT_USAGE, "");
+        for (String server : serializedUsage.split(USAGE_SERVERS_SEPARATOR)) {
+            String[] serverAndEntries = server.split(USAGE_SERVER_SEPARATOR);
+            if (serverAndEntries.length != 2) {
+                continue;
+            }
+            Map<String, Integer> usage = new LinkedHashMap<>();
+            for (String entry : serverAndEntries[1].split(USAGE_ENTRIES_SEPARATOR)) {
+                String[] keyAndCount = entry.split(USAGE_COUNT_SEPARATOR);
+                if (keyAndCount.length != 2) {
+                    continue;
+                }
+                try {
+                    usage.put(keyAndCount[0], Integer.parseInt(keyAndCount[1]));
+                } catch (NumberFormatException e) {
+                    logger.warn("Skipping malformed JIRA project usage entry: " + entry);
+                }
+            }
+            serverUsage.put(serverAndEntries[0], usage);
+        }
+        return serverUsage;
+    }
+}
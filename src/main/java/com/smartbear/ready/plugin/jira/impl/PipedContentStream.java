@@ -0,0 +1,85 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Input stream fed by a writer running on a background thread through a fixed size pipe,
+ * so large content can be uploaded without materialising it in memory.
+ */
+public class PipedContentStream extends FilterInputStream {
+    public static final int PIPE_BUFFER_SIZE = 64 * 1024;
+
+    public interface ContentWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private static final ExecutorService writerExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("jira-attachment-writer-%d").setDaemon(true).build());
+
+    private volatile IOException writerError;
+
+    private PipedContentStream(PipedInputStream pipedInputStream) {
+        super(pipedInputStream);
+    }
+
+    public static InputStream open(final ContentWriter contentWriter, final boolean compressed) throws IOException {
+        PipedInputStream pipedInputStream = new PipedInputStream(PIPE_BUFFER_SIZE);
+        final PipedOutputStream pipedOutputStream = new PipedOutputStream(pipedInputStream);
+        final PipedContentStream contentStream = new PipedContentStream(pipedInputStream);
+        writerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                OutputStream outputStream = pipedOutputStream;
+                try {
+                    if (compressed) {
+                        outputStream = new GZIPOutputStream(pipedOutputStream, PIPE_BUFFER_SIZE);
+                    }
+                    contentWriter.writeTo(outputStream);
+                    if (compressed) {
+                        ((GZIPOutputStream) outputStream).finish();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    //the error has to be visible before the reader gets the end of the pipe
+                    contentStream.writerError = e instanceof IOException ? (IOException) e : new IOException(e);
+                } finally {
+                    try {
+                        outputStream.close();
+                    } catch (IOException e) {
+                        //the reader has already gone away
+                    }
+                }
+            }
+        });
+        return contentStream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        checkWriterError();
+        return result;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int result = super.read(buffer, offset, length);
+        checkWriterError();
+        return result;
+    }
+
+    private void checkWriterError() throws IOException {
+        if (writerError != null) {
+            throw writerError;
+        }
+    }
+}
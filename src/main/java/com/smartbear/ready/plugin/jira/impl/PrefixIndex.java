@@ -0,0 +1,97 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Sorted array of lower case tokens pointing to numbered entries, so a type-ahead lookup is a binary search
+ * followed by a short scan. Every word of an added text is a token as well, so "pay" finds "Online Payments".
+ */
+public class PrefixIndex {
+    private final String[] tokens;
+    private final int[] tokenEntries;
+
+    private PrefixIndex(String[] tokens, int[] tokenEntries) {
+        this.tokens = tokens;
+        this.tokenEntries = tokenEntries;
+    }
+
+    public static class Builder {
+        private final List<String> tokens = new ArrayList<>();
+        private final List<Integer> tokenEntries = new ArrayList<>();
+
+        public Builder add(int entry, String text) {
+            if (text == null) {
+                return this;
+            }
+            String normalizedText = normalize(text);
+            Set<String> textTokens = new LinkedHashSet<>();
+            textTokens.add(normalizedText);
+            textTokens.addAll(Arrays.asList(normalizedText.split("[\\s\\-_.]+")));
+            textTokens.remove("");
+            for (String token : textTokens) {
+                tokens.add(token);
+                tokenEntries.add(entry);
+            }
+            return this;
+        }
+
+        public PrefixIndex build() {
+            Integer[] order = new Integer[tokens.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer first, Integer second) {
+                    return tokens.get(first).compareTo(tokens.get(second));
+                }
+            });
+            String[] sortedTokens = new String[order.length];
+            int[] sortedTokenEntries = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedTokens[i] = tokens.get(order[i]);
+                sortedTokenEntries[i] = tokenEntries.get(order[i]);
+            }
+            return new PrefixIndex(sortedTokens, sortedTokenEntries);
+        }
+    }
+
+    /*
+    * Returns at most limit entries which have a token starting with the prefix, each entry once.
+    * */
+    public Set<Integer> search(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix.trim());
+        Set<Integer> foundEntries = new LinkedHashSet<>();
+        for (int i = findFirstToken(normalizedPrefix); i < tokens.length && foundEntries.size() < limit; i++) {
+            if (!tokens[i].startsWith(normalizedPrefix)) {
+                break;
+            }
+            foundEntries.add(tokenEntries[i]);
+        }
+        return foundEntries;
+    }
+
+    private int findFirstToken(String prefix) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    static String normalize(String value) {
+        return value.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,78 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.domain.BasicProject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Prefix index over the keys and names of all projects, so the project picker can filter
+ * thousands of projects while the user types.
+ */
+public class ProjectIndex {
+    private final String[] projectKeys;
+    private final PrefixIndex index;
+
+    private ProjectIndex(String[] projectKeys, PrefixIndex index) {
+        this.projectKeys = projectKeys;
+        this.index = index;
+    }
+
+    public static ProjectIndex build(Iterable<BasicProject> projects) {
+        List<BasicProject> sortedProjects = new ArrayList<>();
+        for (BasicProject project : projects) {
+            sortedProjects.add(project);
+        }
+        Collections.sort(sortedProjects, new Comparator<BasicProject>() {
+            @Override
+            public int compare(BasicProject first, BasicProject second) {
+                return first.getKey().compareTo(second.getKey());
+            }
+        });
+
+        String[] projectKeys = new String[sortedProjects.size()];
+        PrefixIndex.Builder indexBuilder = new PrefixIndex.Builder();
+        for (int i = 0; i < sortedProjects.size(); i++) {
+            BasicProject project = sortedProjects.get(i);
+            projectKeys[i] = project.getKey();
+            indexBuilder.add(i, project.getKey()).add(i, project.getName());
+        }
+        return new ProjectIndex(projectKeys, indexBuilder.build());
+    }
+
+    /*
+    * Returns the keys of at most limit projects whose key, name or a word of whose name starts with the prefix.
+    * An empty prefix matches the first projects by key.
+    * */
+    public List<String> search(String prefix, int limit) {
+        String trimmedPrefix = prefix == null ? "" : prefix.trim();
+        if (trimmedPrefix.isEmpty()) {
+            return new ArrayList<>(Arrays.asList(projectKeys).subList(0, Math.min(limit, projectKeys.length)));
+        }
+        Set<Integer> foundProjects = new LinkedHashSet<>();
+        int exactKey = Arrays.binarySearch(projectKeys, trimmedPrefix.toUpperCase(Locale.ENGLISH));
+        if (exactKey >= 0) {
+            foundProjects.add(exactKey);
+        }
+        foundProjects.addAll(index.search(trimmedPrefix, limit));
+
+        List<String> foundKeys = new ArrayList<>(Math.min(limit, foundProjects.size()));
+        for (int project : foundProjects) {
+            if (foundKeys.size() == limit) {
+                break;
+            }
+            foundKeys.add(projectKeys[project]);
+        }
+        return foundKeys;
+    }
+
+    public int size() {
+        return projectKeys.length;
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartbear.ready.plugin.jira.listeners;
+
+import com.eviware.soapui.model.support.TestRunListenerAdapter;
+import com.eviware.soapui.model.testsuite.TestCase;
+import com.eviware.soapui.model.testsuite.TestCaseRunContext;
+import com.eviware.soapui.model.testsuite.TestCaseRunner;
+import com.eviware.soapui.model.testsuite.TestRunner;
+import com.eviware.soapui.model.testsuite.TestStepResult;
+import com.eviware.soapui.model.testsuite.TestSuite;
+import com.eviware.soapui.plugins.ListenerConfiguration;
+import com.smartbear.ready.plugin.jira.headless.HeadlessIssueFiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which test cases failed in their last run and why, so that JIRA items can be
+ * created for all failures of a test suite at once.
+ */
+@ListenerConfiguration
+public class FailedTestCasesCollector extends TestRunListenerAdapter {
+    private static final Map<TestCase, String> lastFailures = Collections.synchronizedMap(new WeakHashMap<TestCase, String>());
+    private final Map<TestCaseRunner, StringBuilder> runningFailures = new ConcurrentHashMap<>();
+
+    @Override
+    public void beforeRun(TestCaseRunner testRunner, TestCaseRunContext runContext) {
+        runningFailures.put(testRunner, new StringBuilder());
+    }
+
+    @Override
+    public void afterStep(TestCaseRunner testRunner, TestCaseRunContext runContext, TestStepResult result) {
+        StringBuilder failureDetails = runningFailures.get(testRunner);
+        if (failureDetails == null || result.getStatus() != TestStepResult.TestStepStatus.FAILED) {
+            return;
+        }
+        failureDetails.append(String.format("Test step '%s' failed:%n", result.getTestStep().getName()));
+        for (String message : result.getMessages()) {
+            failureDetails.append("  ").append(message).append(String.format("%n"));
+        }
+    }
+
+    @Override
+    public void afterRun(TestCaseRunner testRunner, TestCaseRunContext runContext) {
+        StringBuilder failureDetails = runningFailures.remove(testRunner);
+        TestCase testCase = testRunner.getTestCase();
+        if (testRunner.getStatus() == TestRunner.Status.FAILED) {
+            String reason = testRunner.getReason() == null ? "" : testRunner.getReason() + String.format("%n");
+            lastFailures.put(testCase, reason + (failureDetails == null ? "" : failureDetails.toString()));
+            if (HeadlessIssueFiler.isEnabled()) {
+                HeadlessIssueFiler.getInstance().enqueue(testCase, lastFailures.get(testCase));
+            }
+        } else {
+            lastFailures.remove(testCase);
+        }
+    }
+
+    public static List<TestCase> getFailedTestCases(TestSuite testSuite) {
+        List<TestCase> failedTestCases = new ArrayList<>();
+        for (TestCase testCase : testSuite.getTestCaseList()) {
+            if (lastFailures.containsKey(testCase)) {
+                failedTestCases.add(testCase);
+            }
+        }
+        return failedTestCases;
+    }
+
+    public static String getFailureDetails(TestCase testCase) {
+        return lastFailures.get(testCase);
+    }
+}
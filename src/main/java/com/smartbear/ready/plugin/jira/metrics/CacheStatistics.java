@@ -0,0 +1,73 @@
+package com.smartbear.ready.plugin.jira.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hits and misses of one cache, and the size and evictions of a cache bounded by weight.
+ */
+public class CacheStatistics {
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile long entries;
+    private volatile long weight;
+
+    public void hit() {
+        hits.incrementAndGet();
+    }
+
+    public void miss() {
+        misses.incrementAndGet();
+    }
+
+    public void evicted() {
+        evictions.incrementAndGet();
+    }
+
+    /*
+    * Caches of the same name in several providers report the size of the one changed last.
+    * */
+    public void setSize(long entries, long weight) {
+        this.entries = entries;
+        this.weight = weight;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    /*
+    * The size is the current state of the cache, so it is not reset.
+    * */
+    public void reset() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    @Override
+    public String toString() {
+        long lookups = hits.get() + misses.get();
+        String result = String.format("%d hits, %d misses (%.0f%% hit rate)", hits.get(), misses.get(), lookups == 0 ? 0.0 : 100.0 * hits.get() / lookups);
+        if (weight > 0 || evictions.get() > 0) {
+            result += String.format(", %d entries of about %d KB, %d evicted", entries, weight / 1024, evictions.get());
+        }
+        return result;
+    }
+}
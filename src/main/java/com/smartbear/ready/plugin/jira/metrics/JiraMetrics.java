@@ -0,0 +1,234 @@
+package com.smartbear.ready.plugin.jira.metrics;
+
+import com.atlassian.util.concurrent.Promise;
+import com.google.common.util.concurrent.FutureCallback;
+import com.smartbear.ready.plugin.jira.impl.JiraHttpClientFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Call counts and latencies per JIRA endpoint, hits and misses per cache and uploaded bytes per attachment type.
+ * Registered as an MBean, so they can be watched with jconsole while the dialogs are used.
+ */
+public class JiraMetrics implements JiraMetricsMBean {
+    private static final Logger logger = LoggerFactory.getLogger(JiraMetrics.class);
+
+    public static final String OBJECT_NAME = "com.smartbear.ready.plugin.jira:type=JiraMetrics";
+
+    public enum Endpoint {
+        PROJECTS, PROJECT_SEARCH, PROJECT, PRIORITIES, CREATE_META, ISSUE_TYPE_CREATE_META, GET_ISSUE, SEARCH_ISSUES, CREATE, BULK_CREATE, ATTACH
+    }
+
+    public enum AttachmentType {
+        LOG, PROJECT, OTHER;
+
+        public static AttachmentType forFileName(String fileName) {
+            String lowerCaseName = fileName.toLowerCase(Locale.ENGLISH);
+            if (lowerCaseName.endsWith(".log") || lowerCaseName.endsWith(".log.gz")) {
+                return LOG;
+            }
+            if (lowerCaseName.endsWith(".xml") || lowerCaseName.endsWith(".xml.gz")) {
+                return PROJECT;
+            }
+            return OTHER;
+        }
+    }
+
+    private static final JiraMetrics instance = new JiraMetrics();
+
+    private final Map<Endpoint, LatencyHistogram> latencies = new EnumMap<>(Endpoint.class);
+    private final ConcurrentMap<String, CacheStatistics> caches = new ConcurrentHashMap<>();
+    private final Map<AttachmentType, AtomicLong> uploadedBytes = new EnumMap<>(AttachmentType.class);
+    private final Map<AttachmentType, AtomicLong> uploadedFiles = new EnumMap<>(AttachmentType.class);
+    private final AtomicLong recordedCalls = new AtomicLong();
+    private long loggedCalls;
+    private boolean registered;
+
+    private JiraMetrics() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new LatencyHistogram());
+        }
+        for (AttachmentType attachmentType : AttachmentType.values()) {
+            uploadedBytes.put(attachmentType, new AtomicLong());
+            uploadedFiles.put(attachmentType, new AtomicLong());
+        }
+    }
+
+    public static JiraMetrics getInstance() {
+        return instance;
+    }
+
+    public synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+            registered = true;
+        } catch (JMException e) {
+            logger.warn("Unable to register the JIRA metrics MBean: " + e.getMessage());
+        }
+    }
+
+    /*
+    * Records the time until the promise is done, the promise itself is returned unchanged.
+    * */
+    public <T> Promise<T> time(final Endpoint endpoint, Promise<T> call) {
+        final long startTime = System.nanoTime();
+        call.then(new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                record(endpoint, startTime, false);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                record(endpoint, startTime, true);
+            }
+        });
+        return call;
+    }
+
+    private void record(Endpoint endpoint, long startTime, boolean failed) {
+        latencies.get(endpoint).record((System.nanoTime() - startTime) / 1000000, failed);
+        recordedCalls.incrementAndGet();
+    }
+
+    /*
+    * Logs the summary when calls were recorded since it was logged last, e.g. when a client is closed after it was used
+    * or when the plugin shuts down. So every session of use is logged once, and an unused plugin logs nothing.
+    * */
+    public synchronized void logSummaryIfRecorded() {
+        long calls = recordedCalls.get();
+        if (calls == loggedCalls) {
+            return;
+        }
+        loggedCalls = calls;
+        logger.info(getSummary());
+    }
+
+    public CacheStatistics getCache(String cacheName) {
+        CacheStatistics statistics = caches.get(cacheName);
+        if (statistics == null) {
+            caches.putIfAbsent(cacheName, new CacheStatistics());
+            statistics = caches.get(cacheName);
+        }
+        return statistics;
+    }
+
+    public void recordUpload(String fileName, long bytes) {
+        AttachmentType attachmentType = AttachmentType.forFileName(fileName);
+        uploadedBytes.get(attachmentType).addAndGet(bytes);
+        uploadedFiles.get(attachmentType).incrementAndGet();
+    }
+
+    public LatencyHistogram getLatencies(Endpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+
+    @Override
+    public String[] getEndpointLatencies() {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<Endpoint, LatencyHistogram> latency : latencies.entrySet()) {
+            result.add(latency.getKey() + ": " + latency.getValue());
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    @Override
+    public String[] getEndpointLatencyHistograms() {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<Endpoint, LatencyHistogram> latency : latencies.entrySet()) {
+            result.add(latency.getKey() + ": " + latency.getValue().getBuckets());
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    @Override
+    public String[] getCacheStatistics() {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, CacheStatistics> cache : caches.entrySet()) {
+            result.add(cache.getKey() + ": " + cache.getValue());
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    @Override
+    public String[] getUploadedBytes() {
+        List<String> result = new ArrayList<>();
+        for (AttachmentType attachmentType : AttachmentType.values()) {
+            result.add(String.format("%s: %d bytes in %d files", attachmentType, uploadedBytes.get(attachmentType).get(),
+                    uploadedFiles.get(attachmentType).get()));
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    @Override
+    public long getCreatedHttpClients() {
+        return JiraHttpClientFactory.getCreatedClients();
+    }
+
+    @Override
+    public long getActiveHttpClients() {
+        return JiraHttpClientFactory.getActiveClients();
+    }
+
+    @Override
+    public long getIssuedHttpRequests() {
+        return JiraHttpClientFactory.getIssuedRequests();
+    }
+
+    /*
+    * Endpoints which were never called are left out, so the summary fits into a few log lines.
+    * */
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder("JIRA metrics\n  ").append(JiraHttpClientFactory.getMetricsSummary());
+        for (Map.Entry<Endpoint, LatencyHistogram> latency : latencies.entrySet()) {
+            if (latency.getValue().getCalls() > 0) {
+                summary.append("\n  ").append(latency.getKey()).append(": ").append(latency.getValue());
+            }
+        }
+        for (String cacheStatistics : getCacheStatistics()) {
+            summary.append("\n  cache ").append(cacheStatistics);
+        }
+        for (AttachmentType attachmentType : AttachmentType.values()) {
+            if (uploadedFiles.get(attachmentType).get() > 0) {
+                summary.append("\n  uploaded ").append(attachmentType).append(": ").append(uploadedBytes.get(attachmentType).get())
+                        .append(" bytes in ").append(uploadedFiles.get(attachmentType).get()).append(" files");
+            }
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram latency : latencies.values()) {
+            latency.reset();
+        }
+        for (CacheStatistics cache : caches.values()) {
+            cache.reset();
+        }
+        for (AttachmentType attachmentType : AttachmentType.values()) {
+            uploadedBytes.get(attachmentType).set(0);
+            uploadedFiles.get(attachmentType).set(0);
+        }
+    }
+}
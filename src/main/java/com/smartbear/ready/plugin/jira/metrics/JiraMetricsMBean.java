@@ -0,0 +1,24 @@
+package com.smartbear.ready.plugin.jira.metrics;
+
+/**
+ * JMX view of {@link JiraMetrics}.
+ */
+public interface JiraMetricsMBean {
+    public String[] getEndpointLatencies();
+
+    public String[] getEndpointLatencyHistograms();
+
+    public String[] getCacheStatistics();
+
+    public String[] getUploadedBytes();
+
+    public long getCreatedHttpClients();
+
+    public long getActiveHttpClients();
+
+    public long getIssuedHttpRequests();
+
+    public String getSummary();
+
+    public void reset();
+}
@@ -0,0 +1,94 @@
+package com.smartbear.ready.plugin.jira.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts calls in fixed latency buckets, so the distribution can be read without keeping every sample.
+ */
+public class LatencyHistogram {
+    static final long[] BUCKET_LIMITS_MILLIS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_LIMITS_MILLIS.length + 1);
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    public void record(long millis, boolean failed) {
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS_MILLIS.length && millis > BUCKET_LIMITS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        calls.incrementAndGet();
+        if (failed) {
+            failures.incrementAndGet();
+        }
+        totalMillis.addAndGet(millis);
+        long max;
+        while (millis > (max = maxMillis.get()) && !maxMillis.compareAndSet(max, millis)) {
+            //another call has raised the maximum meanwhile
+        }
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getTotalMillis() {
+        return totalMillis.get();
+    }
+
+    public long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    /*
+    * Upper limit of the bucket which holds the given fraction of the calls, the maximum for the last bucket.
+    * */
+    public long getPercentileMillis(double fraction) {
+        long threshold = (long) Math.ceil(calls.get() * fraction);
+        long counted = 0;
+        for (int i = 0; i < BUCKET_LIMITS_MILLIS.length; i++) {
+            counted += buckets.get(i);
+            if (counted >= threshold && counted > 0) {
+                return Math.min(BUCKET_LIMITS_MILLIS[i], getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public String getBuckets() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < buckets.length(); i++) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append(i < BUCKET_LIMITS_MILLIS.length ? "<=" + BUCKET_LIMITS_MILLIS[i] : ">" + BUCKET_LIMITS_MILLIS[i - 1]);
+            result.append(':').append(buckets.get(i));
+        }
+        return result.toString();
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        calls.set(0);
+        failures.set(0);
+        totalMillis.set(0);
+        maxMillis.set(0);
+    }
+
+    @Override
+    public String toString() {
+        long callCount = calls.get();
+        return String.format("%d calls, %d failed, avg %d ms, p50 %d ms, p95 %d ms, max %d ms", callCount, failures.get(),
+                callCount == 0 ? 0 : totalMillis.get() / callCount, getPercentileMillis(0.5), getPercentileMillis(0.95), getMaxMillis());
+    }
+}
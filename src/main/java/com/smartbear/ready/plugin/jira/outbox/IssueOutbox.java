@@ -0,0 +1,291 @@
+package com.smartbear.ready.plugin.jira.outbox;
+
+import com.smartbear.ready.plugin.jira.cache.PersistentMetadataStore;
+import com.smartbear.ready.plugin.jira.impl.IssueDraft;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Durable queue of JIRA items which could not be created because JIRA was not reachable, one per server URL and user.
+ * Added and completed items are appended to a journal and the attachment content is copied next to it,
+ * so nothing is lost when Ready! API exits before JIRA is back. Creating an item and uploading each of its
+ * attachments are journaled as separate steps, so attachments which failed temporarily are kept and uploaded
+ * to the created item later, while the item and the uploaded attachments are not sent again.
+ */
+public class IssueOutbox {
+    private static final Logger logger = LoggerFactory.getLogger(IssueOutbox.class);
+
+    private static final String OUTBOX_DIR = "outbox";
+    private static final String JOURNAL_FILE = "journal";
+    private static final String PAYLOADS_DIR = "payloads";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char ADDED = '+';
+    private static final char COMPLETED = '-';
+    private static final char CREATED = '*';
+    private static final char ATTACHED = '>';
+    private static final String ID = "id";
+    private static final String ISSUE_KEY = "issueKey";
+    private static final String ATTACHMENT = "attachment";
+
+    private static final Map<File, IssueOutbox> outboxes = new HashMap<>();
+
+    private final File outboxDir;
+    private final Map<Long, OutboxEntry> pendingEntries = new LinkedHashMap<>();
+    private long lastEntryId;
+
+    IssueOutbox(File outboxDir) {
+        this.outboxDir = outboxDir;
+        readJournal();
+    }
+
+    /*
+    * Every outbox directory is handled by a single instance, so that the journal is never written by two of them.
+    * */
+    public static synchronized IssueOutbox forServer(String serverUrl, String login) {
+        File outboxDir = new File(getDefaultRoot(), PersistentMetadataStore.digest(serverUrl + "\n" + login));
+        IssueOutbox outbox = outboxes.get(outboxDir);
+        if (outbox == null) {
+            outbox = new IssueOutbox(outboxDir);
+            outboxes.put(outboxDir, outbox);
+        }
+        return outbox;
+    }
+
+    public static IssueOutbox forSettings(BugTrackerSettings settings) {
+        return forServer(settings.getUrl(), settings.getLogin());
+    }
+
+    public static File getDefaultRoot() {
+        return new File(PersistentMetadataStore.getDefaultRoot().getParentFile(), OUTBOX_DIR);
+    }
+
+    /*
+    * The attachments are read here, their content is copied before the item is added to the journal.
+    * The time of the failed attempt is kept, JIRA is searched for an item it may have created nevertheless.
+    * */
+    public OutboxEntry add(IssueDraft issueDraft, long firstAttemptAt, Map<String, Callable<InputStream>> attachments) throws IOException {
+        long entryId = reserveEntryId();
+        File payloadDir = getPayloadDir(entryId);
+        File tempPayloadDir = new File(payloadDir.getPath() + TEMP_SUFFIX);
+        List<String> attachmentNames = new ArrayList<>();
+        try {
+            Files.createDirectories(tempPayloadDir.toPath());
+            for (Map.Entry<String, Callable<InputStream>> attachment : attachments.entrySet()) {
+                String attachmentName = getUniqueName(new File(attachment.getKey()).getName(), attachmentNames);
+                try (InputStream inputStream = attachment.getValue().call()) {
+                    if (inputStream == null) {
+                        logger.warn("Unable to read the content of " + attachment.getKey() + ", it is not saved to the JIRA outbox");
+                        continue;
+                    }
+                    Files.copy(inputStream, new File(tempPayloadDir, attachmentName).toPath());
+                }
+                attachmentNames.add(attachmentName);
+            }
+            Files.move(tempPayloadDir.toPath(), payloadDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            deleteRecursively(tempPayloadDir);
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+
+        OutboxEntry entry = new OutboxEntry(entryId, System.currentTimeMillis(), firstAttemptAt, issueDraft, attachmentNames);
+        synchronized (this) {
+            try {
+                appendToJournal(ADDED + entry.toJson().toString());
+            } catch (JSONException | IOException e) {
+                deleteRecursively(payloadDir);
+                throw e instanceof IOException ? (IOException) e : new IOException(e);
+            }
+            pendingEntries.put(entryId, entry);
+        }
+        return entry;
+    }
+
+    /*
+    * Returns the entry which knows the key of its item.
+    * */
+    public synchronized OutboxEntry markCreated(OutboxEntry entry, String issueKey) throws IOException {
+        try {
+            appendToJournal(CREATED + new JSONObject().put(ID, entry.getId()).put(ISSUE_KEY, issueKey).toString());
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        OutboxEntry createdEntry = entry.withIssueKey(issueKey);
+        pendingEntries.put(entry.getId(), createdEntry);
+        return createdEntry;
+    }
+
+    /*
+    * For an attachment which was uploaded or cannot be uploaded at all. Returns the entry without it.
+    * */
+    public synchronized OutboxEntry markAttached(OutboxEntry entry, String attachmentName) throws IOException {
+        try {
+            appendToJournal(ATTACHED + new JSONObject().put(ID, entry.getId()).put(ATTACHMENT, attachmentName).toString());
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        OutboxEntry remainingEntry = entry.withoutAttachment(attachmentName);
+        pendingEntries.put(entry.getId(), remainingEntry);
+        Files.deleteIfExists(getAttachmentFile(entry, attachmentName).toPath());
+        return remainingEntry;
+    }
+
+    public synchronized void complete(OutboxEntry entry) throws IOException {
+        appendToJournal(COMPLETED + Long.toString(entry.getId()));
+        pendingEntries.remove(entry.getId());
+        deleteRecursively(getPayloadDir(entry.getId()));
+        if (pendingEntries.isEmpty()) {
+            //nothing in the journal is needed any longer
+            Files.deleteIfExists(getJournalFile().toPath());
+        }
+    }
+
+    public synchronized List<OutboxEntry> getPendingEntries() {
+        return new ArrayList<>(pendingEntries.values());
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingEntries.isEmpty();
+    }
+
+    public File getAttachmentFile(OutboxEntry entry, String attachmentName) {
+        return new File(getPayloadDir(entry.getId()), attachmentName);
+    }
+
+    private synchronized long reserveEntryId() {
+        lastEntryId = Math.max(lastEntryId + 1, System.currentTimeMillis());
+        return lastEntryId;
+    }
+
+    private void appendToJournal(String record) throws IOException {
+        Files.createDirectories(outboxDir.toPath());
+        try (FileOutputStream outputStream = new FileOutputStream(getJournalFile(), true)) {
+            outputStream.write((record + "\n").getBytes(StandardCharsets.UTF_8));
+            outputStream.getFD().sync();
+        }
+    }
+
+    private void readJournal() {
+        File journalFile = getJournalFile();
+        if (journalFile.isFile()) {
+            try {
+                terminateLastRecord(journalFile);
+                try (BufferedReader reader = Files.newBufferedReader(journalFile.toPath(), StandardCharsets.UTF_8)) {
+                    String record;
+                    while ((record = reader.readLine()) != null) {
+                        readRecord(record);
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Unable to read the JIRA outbox journal " + journalFile + ": " + e.getMessage());
+            }
+        }
+        removeOrphanedPayloads();
+    }
+
+    private void readRecord(String record) {
+        if (record.isEmpty()) {
+            return;
+        }
+        try {
+            if (record.charAt(0) == ADDED) {
+                OutboxEntry entry = OutboxEntry.fromJson(new JSONObject(record.substring(1)));
+                pendingEntries.put(entry.getId(), entry);
+                lastEntryId = Math.max(lastEntryId, entry.getId());
+            } else if (record.charAt(0) == COMPLETED) {
+                pendingEntries.remove(Long.parseLong(record.substring(1).trim()));
+            } else if (record.charAt(0) == CREATED) {
+                JSONObject json = new JSONObject(record.substring(1));
+                OutboxEntry entry = pendingEntries.get(json.getLong(ID));
+                if (entry != null) {
+                    pendingEntries.put(entry.getId(), entry.withIssueKey(json.getString(ISSUE_KEY)));
+                }
+            } else if (record.charAt(0) == ATTACHED) {
+                JSONObject json = new JSONObject(record.substring(1));
+                OutboxEntry entry = pendingEntries.get(json.getLong(ID));
+                if (entry != null) {
+                    pendingEntries.put(entry.getId(), entry.withoutAttachment(json.getString(ATTACHMENT)));
+                }
+            }
+        } catch (JSONException | NumberFormatException e) {
+            logger.warn("Skipping a damaged JIRA outbox journal record: " + e.getMessage());
+        }
+    }
+
+    /*
+    * A record is cut off when Ready! API exits while writing it, the next record must not be appended to it.
+    * */
+    private static void terminateLastRecord(File journalFile) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            if (file.length() == 0) {
+                return;
+            }
+            file.seek(file.length() - 1);
+            if (file.read() != '\n') {
+                file.write('\n');
+            }
+        }
+    }
+
+    private void removeOrphanedPayloads() {
+        File[] payloadDirs = new File(outboxDir, PAYLOADS_DIR).listFiles();
+        if (payloadDirs == null) {
+            return;
+        }
+        for (File payloadDir : payloadDirs) {
+            try {
+                if (!pendingEntries.containsKey(Long.parseLong(payloadDir.getName()))) {
+                    deleteRecursively(payloadDir);
+                }
+            } catch (NumberFormatException e) {
+                deleteRecursively(payloadDir);
+            }
+        }
+    }
+
+    private File getJournalFile() {
+        return new File(outboxDir, JOURNAL_FILE);
+    }
+
+    private File getPayloadDir(long entryId) {
+        return new File(new File(outboxDir, PAYLOADS_DIR), Long.toString(entryId));
+    }
+
+    private static String getUniqueName(String name, List<String> usedNames) {
+        String uniqueName = name;
+        for (int i = 1; usedNames.contains(uniqueName); i++) {
+            uniqueName = i + "-" + name;
+        }
+        return uniqueName;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            logger.warn("Unable to delete " + file);
+        }
+    }
+}
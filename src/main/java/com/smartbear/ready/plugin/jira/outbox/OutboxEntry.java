@@ -0,0 +1,123 @@
+package com.smartbear.ready.plugin.jira.outbox;
+
+import com.smartbear.ready.plugin.jira.impl.IssueDraft;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JIRA item waiting in the outbox together with the names of its stored attachments and the time of
+ * the failed attempt to create it, since which JIRA is searched for the item before it is created again.
+ * Once the item is created, the entry knows its key and keeps only the attachments still to be uploaded.
+ */
+public class OutboxEntry {
+    private static final String ID = "id";
+    private static final String CREATED_AT = "createdAt";
+    private static final String PROJECT = "project";
+    private static final String ISSUE_TYPE = "issueType";
+    private static final String SUMMARY = "summary";
+    private static final String DESCRIPTION = "description";
+    private static final String EXTRA_VALUES = "extraValues";
+    private static final String ATTACHMENTS = "attachments";
+    private static final String FIRST_ATTEMPT_AT = "firstAttemptAt";
+    //entries of older versions do not know when the item was tried, it was shortly before they were added
+    private static final long UNKNOWN_ATTEMPT_SLACK_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final long id;
+    private final long createdAt;
+    private final long firstAttemptAt;
+    private final IssueDraft issueDraft;
+    private final List<String> attachmentNames;
+    private final String issueKey;
+
+    public OutboxEntry(long id, long createdAt, long firstAttemptAt, IssueDraft issueDraft, List<String> attachmentNames) {
+        this(id, createdAt, firstAttemptAt, issueDraft, attachmentNames, null);
+    }
+
+    private OutboxEntry(long id, long createdAt, long firstAttemptAt, IssueDraft issueDraft, List<String> attachmentNames, String issueKey) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.firstAttemptAt = firstAttemptAt;
+        this.issueDraft = issueDraft;
+        this.attachmentNames = Collections.unmodifiableList(new ArrayList<>(attachmentNames));
+        this.issueKey = issueKey;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getFirstAttemptAt() {
+        return firstAttemptAt;
+    }
+
+    public IssueDraft getIssueDraft() {
+        return issueDraft;
+    }
+
+    public List<String> getAttachmentNames() {
+        return attachmentNames;
+    }
+
+    /*
+    * Null as long as the item is not created.
+    * */
+    public String getIssueKey() {
+        return issueKey;
+    }
+
+    OutboxEntry withIssueKey(String issueKey) {
+        return new OutboxEntry(id, createdAt, firstAttemptAt, issueDraft, attachmentNames, issueKey);
+    }
+
+    OutboxEntry withoutAttachment(String attachmentName) {
+        List<String> remainingNames = new ArrayList<>(attachmentNames);
+        remainingNames.remove(attachmentName);
+        return new OutboxEntry(id, createdAt, firstAttemptAt, issueDraft, remainingNames, issueKey);
+    }
+
+    JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put(ID, id);
+        json.put(CREATED_AT, createdAt);
+        json.put(PROJECT, issueDraft.getProjectKey());
+        json.put(ISSUE_TYPE, issueDraft.getIssueType());
+        json.put(SUMMARY, issueDraft.getSummary());
+        json.put(DESCRIPTION, issueDraft.getDescription());
+        json.put(EXTRA_VALUES, new JSONObject(issueDraft.getExtraValues()));
+        json.put(ATTACHMENTS, new JSONArray(attachmentNames));
+        json.put(FIRST_ATTEMPT_AT, firstAttemptAt);
+        return json;
+    }
+
+    static OutboxEntry fromJson(JSONObject json) throws JSONException {
+        Map<String, String> extraValues = new HashMap<>();
+        JSONObject extraValuesJson = json.getJSONObject(EXTRA_VALUES);
+        Iterator keys = extraValuesJson.keys();
+        while (keys.hasNext()) {
+            String key = (String) keys.next();
+            extraValues.put(key, extraValuesJson.getString(key));
+        }
+        List<String> attachmentNames = new ArrayList<>();
+        JSONArray attachmentsJson = json.getJSONArray(ATTACHMENTS);
+        for (int i = 0; i < attachmentsJson.length(); i++) {
+            attachmentNames.add(attachmentsJson.getString(i));
+        }
+        IssueDraft issueDraft = new IssueDraft(json.getString(PROJECT), json.getString(ISSUE_TYPE), json.getString(SUMMARY),
+                json.optString(DESCRIPTION, null), extraValues);
+        long createdAt = json.getLong(CREATED_AT);
+        return new OutboxEntry(json.getLong(ID), createdAt, json.optLong(FIRST_ATTEMPT_AT, createdAt - UNKNOWN_ATTEMPT_SLACK_MILLIS), issueDraft, attachmentNames);
+    }
+}
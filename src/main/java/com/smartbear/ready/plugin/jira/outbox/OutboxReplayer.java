@@ -0,0 +1,194 @@
+package com.smartbear.ready.plugin.jira.outbox;
+
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.model.settings.Settings;
+import com.eviware.soapui.support.StringUtils;
+import com.eviware.soapui.support.UISupport;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.smartbear.ready.plugin.jira.impl.AttachmentAddingResult;
+import com.smartbear.ready.plugin.jira.impl.AttachmentUploadPipeline;
+import com.smartbear.ready.plugin.jira.impl.IssueCreationResult;
+import com.smartbear.ready.plugin.jira.impl.JiraProvider;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+import com.smartbear.ready.plugin.jira.settings.ServerProfiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the items waiting in the outbox once JIRA answers again. Items of a project are created in the order
+ * in which they were added, so a project is skipped until the next round as soon as one of its items fails temporarily.
+ * An item stays in the outbox after it is created until each of its attachments is uploaded or has failed for good.
+ */
+public class OutboxReplayer {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxReplayer.class);
+
+    public static final long REPLAY_INTERVAL_SECONDS = 60;
+
+    private static final ScheduledExecutorService replayExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("jira-outbox-replayer-%d").setDaemon(true).setPriority(Thread.MIN_PRIORITY).build());
+
+    private static boolean started;
+
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        replayExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                replay();
+            }
+        }, 0, REPLAY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /*
+    * Schedules a round right away, e.g. after an item has been added.
+    * */
+    public static void replaySoon() {
+        replayExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                replay();
+            }
+        });
+    }
+
+    private static void replay() {
+        Settings settings = SoapUI.getSettings();
+        for (String profileName : ServerProfiles.getProfileNames(settings)) {
+            try {
+                BugTrackerSettings serverSettings = ServerProfiles.getSettings(settings, profileName);
+                if (StringUtils.isNullOrEmpty(serverSettings.getUrl()) || StringUtils.isNullOrEmpty(serverSettings.getLogin())
+                        || StringUtils.isNullOrEmpty(serverSettings.getPassword())) {
+                    continue;
+                }
+                IssueOutbox outbox = IssueOutbox.forSettings(serverSettings);
+                if (outbox.isEmpty()) {
+                    continue;
+                }
+                replay(JiraProvider.getProvider(profileName), outbox);
+            } catch (RuntimeException e) {
+                //the scheduled rounds and the outboxes of the other servers must go on
+                logger.error("Creating JIRA items from the outbox failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void replay(JiraProvider bugTrackerProvider, IssueOutbox outbox) {
+        List<OutboxEntry> entries = outbox.getPendingEntries();
+        Set<String> postponedProjects = new HashSet<>();
+        StringBuilder report = new StringBuilder();
+        for (OutboxEntry pendingEntry : entries) {
+            OutboxEntry entry = pendingEntry;
+            String projectKey = entry.getIssueDraft().getProjectKey();
+            if (postponedProjects.contains(projectKey)) {
+                continue;
+            }
+            if (entry.getIssueKey() == null) {
+                //the item was saved after a failed attempt, which may have created it nevertheless
+                IssueCreationResult result = bugTrackerProvider.createIssueIfAbsentAsync(entry.getIssueDraft(), entry.getFirstAttemptAt()).claim();
+                if (!result.getSuccess() && result.isTemporaryFailure()) {
+                    logger.info(String.format("JIRA item \"%s\" stays in the outbox: %s", entry.getIssueDraft().getSummary(), result.getError()));
+                    postponedProjects.add(projectKey);
+                    continue;
+                }
+                if (!result.getSuccess()) {
+                    completeEntry(outbox, entry, result.getError(), report);
+                    continue;
+                }
+                entry = markCreated(outbox, entry, result.getIssue().getKey());
+            }
+
+            StringBuilder attachmentErrors = new StringBuilder();
+            entry = attachFiles(bugTrackerProvider, outbox, entry, attachmentErrors);
+            if (!entry.getAttachmentNames().isEmpty()) {
+                logger.info(String.format("JIRA item %s stays in the outbox until its files are attached: %s", entry.getIssueKey(), entry.getAttachmentNames()));
+                postponedProjects.add(projectKey);
+                continue;
+            }
+            String outcome = entry.getIssueKey() + (attachmentErrors.length() == 0 ? "" : " (not all files attached" + attachmentErrors + ")");
+            completeEntry(outbox, entry, outcome, report);
+        }
+        if (report.length() > 0) {
+            showReport("JIRA items from the outbox:\n" + report);
+        }
+    }
+
+    private static OutboxEntry markCreated(IssueOutbox outbox, OutboxEntry entry, String issueKey) {
+        try {
+            return outbox.markCreated(entry, issueKey);
+        } catch (IOException e) {
+            //the item is created already, at worst a later replay finds it by its summary
+            logger.error("Unable to record the created JIRA item in the outbox: " + e.getMessage());
+            return entry.withIssueKey(issueKey);
+        }
+    }
+
+    private static void completeEntry(IssueOutbox outbox, OutboxEntry entry, String outcome, StringBuilder report) {
+        try {
+            outbox.complete(entry);
+        } catch (IOException e) {
+            logger.error("Unable to remove the JIRA item from the outbox: " + e.getMessage());
+        }
+        logger.info(String.format("JIRA item \"%s\" from the outbox: %s", entry.getIssueDraft().getSummary(), outcome));
+        report.append(entry.getIssueDraft().getSummary()).append(": ").append(outcome).append("\n");
+    }
+
+    /*
+    * Returns the entry with the attachments which failed temporarily, the errors of the ones which failed for good are appended.
+    * */
+    private static OutboxEntry attachFiles(JiraProvider bugTrackerProvider, IssueOutbox outbox, OutboxEntry entry, StringBuilder errors) {
+        if (entry.getAttachmentNames().isEmpty()) {
+            return entry;
+        }
+        AttachmentUploadPipeline pipeline = new AttachmentUploadPipeline(bugTrackerProvider, bugTrackerProvider.getAttachmentsUri(entry.getIssueKey()));
+        Map<String, String> attachmentNames = new HashMap<>();
+        for (String attachmentName : entry.getAttachmentNames()) {
+            String attachmentPath = outbox.getAttachmentFile(entry, attachmentName).getPath();
+            attachmentNames.put(attachmentPath, attachmentName);
+            pipeline.addFile(attachmentPath);
+        }
+        OutboxEntry remainingEntry = entry;
+        for (Map.Entry<String, AttachmentAddingResult> attachmentResult : pipeline.run(null).entrySet()) {
+            AttachmentAddingResult result = attachmentResult.getValue();
+            if (!result.getSuccess() && result.isTemporaryFailure()) {
+                continue;
+            }
+            if (!result.getSuccess()) {
+                errors.append(", ").append(result.getError());
+            }
+            String attachmentName = attachmentNames.get(attachmentResult.getKey());
+            try {
+                remainingEntry = outbox.markAttached(remainingEntry, attachmentName);
+            } catch (IOException e) {
+                //it is uploaded again by the next replay rather than lost
+                logger.error("Unable to record the attached file " + attachmentName + " in the outbox: " + e.getMessage());
+            }
+        }
+        return remainingEntry;
+    }
+
+    private static void showReport(final String report) {
+        if (SoapUI.isCommandLine()) {
+            return;
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                UISupport.showInfoMessage(report);
+            }
+        });
+    }
+}
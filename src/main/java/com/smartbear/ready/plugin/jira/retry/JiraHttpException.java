@@ -0,0 +1,25 @@
+package com.smartbear.ready.plugin.jira.retry;
+
+import com.atlassian.jira.rest.client.api.RestClientException;
+
+/**
+ * Non-successful JIRA response to a raw REST request, keeps the status code and the Retry-After header.
+ */
+public class JiraHttpException extends RestClientException {
+    private final int statusCode;
+    private final String retryAfter;
+
+    public JiraHttpException(int statusCode, String statusText, String resource, String retryAfter) {
+        super(String.format("JIRA responded with %d %s to %s", statusCode, statusText, resource), null);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getHttpStatusCode() {
+        return statusCode;
+    }
+
+    public String getRetryAfter() {
+        return retryAfter;
+    }
+}
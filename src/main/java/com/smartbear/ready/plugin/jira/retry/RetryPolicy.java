@@ -0,0 +1,109 @@
+package com.smartbear.ready.plugin.jira.retry;
+
+import com.atlassian.jira.rest.client.api.RestClientException;
+import com.google.common.base.Optional;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed JIRA calls are worth another attempt and how long to wait before it.
+ * Delays grow exponentially with full jitter, a Retry-After sent by JIRA is never undercut.
+ */
+public class RetryPolicy {
+    public static final int TOO_MANY_REQUESTS = 429;
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    public enum FailureType {
+        /* JIRA did not process the request, it can be sent again */
+        REJECTED,
+        /* the request may or may not have been processed, only idempotent calls can be repeated */
+        AMBIGUOUS,
+        PERMANENT
+    }
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public static RetryPolicy defaultPolicy() {
+        return new RetryPolicy(4, 500, 30000);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getDelayMillis(int failedAttempt, Throwable error) {
+        long backoff = Math.min(maxDelayMillis, baseDelayMillis << Math.min(failedAttempt - 1, MAX_BACKOFF_SHIFT));
+        long jitteredBackoff = (long) (ThreadLocalRandom.current().nextDouble() * backoff);
+        Long retryAfter = getRetryAfterMillis(error);
+        return retryAfter == null ? jitteredBackoff : Math.max(retryAfter, jitteredBackoff);
+    }
+
+    public static FailureType classify(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            Integer statusCode = getStatusCode(cause);
+            if (statusCode != null) {
+                if (statusCode == TOO_MANY_REQUESTS) {
+                    return FailureType.REJECTED;
+                }
+                if (statusCode == 502 || statusCode == 503 || statusCode == 504) {
+                    return FailureType.AMBIGUOUS;
+                }
+                return FailureType.PERMANENT;
+            }
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return FailureType.REJECTED;
+            }
+            if (cause instanceof IOException) {
+                return FailureType.AMBIGUOUS;
+            }
+        }
+        return FailureType.PERMANENT;
+    }
+
+    private static Integer getStatusCode(Throwable error) {
+        if (error instanceof JiraHttpException) {
+            return ((JiraHttpException) error).getHttpStatusCode();
+        }
+        if (error instanceof RestClientException) {
+            Optional<Integer> statusCode = ((RestClientException) error).getStatusCode();
+            return statusCode.orNull();
+        }
+        return null;
+    }
+
+    /*
+    * Retry-After is either a number of seconds or an HTTP date.
+    * */
+    public static Long getRetryAfterMillis(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JiraHttpException && ((JiraHttpException) cause).getRetryAfter() != null) {
+                String retryAfter = ((JiraHttpException) cause).getRetryAfter().trim();
+                try {
+                    return Math.max(0, Long.parseLong(retryAfter) * 1000);
+                } catch (NumberFormatException e) {
+                    try {
+                        return Math.max(0, new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US).parse(retryAfter).getTime() - System.currentTimeMillis());
+                    } catch (ParseException ignored) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
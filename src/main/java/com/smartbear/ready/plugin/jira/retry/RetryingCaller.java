@@ -0,0 +1,128 @@
+package com.smartbear.ready.plugin.jira.retry;
+
+import com.atlassian.util.concurrent.Promise;
+import com.atlassian.util.concurrent.Promises;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends asynchronous JIRA calls through the rate limiter and repeats them according to the retry policy.
+ * Waiting is done by scheduling, so no thread is parked during backoff.
+ */
+public class RetryingCaller {
+    private static final Logger logger = LoggerFactory.getLogger(RetryingCaller.class);
+
+    private static final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("jira-retry-scheduler-%d").setDaemon(true).build());
+
+    public interface Attempt<T> {
+        Promise<T> start(int attempt);
+    }
+
+    private final RetryPolicy retryPolicy;
+    private final TokenBucketRateLimiter rateLimiter;
+
+    public RetryingCaller(RetryPolicy retryPolicy, TokenBucketRateLimiter rateLimiter) {
+        this.retryPolicy = retryPolicy;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /*
+    * Calls which are not idempotent are only repeated when JIRA surely did not process them.
+    * */
+    public <T> Promise<T> call(String operationName, boolean idempotent, Attempt<T> attempt) {
+        Call<T> call = new Call<T>(operationName, idempotent, retryPolicy.getMaxAttempts(), attempt);
+        call.schedule(1);
+        return Promises.forListenableFuture(call.result);
+    }
+
+    /*
+    * For calls which cannot be repeated at all, for instance, uploads of a stream.
+    * */
+    public <T> Promise<T> callOnce(String operationName, Attempt<T> attempt) {
+        Call<T> call = new Call<T>(operationName, false, 1, attempt);
+        call.schedule(1);
+        return Promises.forListenableFuture(call.result);
+    }
+
+    private class Call<T> {
+        final String operationName;
+        final boolean idempotent;
+        final int maxAttempts;
+        final Attempt<T> attempt;
+        final SettableFuture<T> result = SettableFuture.create();
+
+        Call(String operationName, boolean idempotent, int maxAttempts, Attempt<T> attempt) {
+            this.operationName = operationName;
+            this.idempotent = idempotent;
+            this.maxAttempts = maxAttempts;
+            this.attempt = attempt;
+        }
+
+        void schedule(final int attemptNumber) {
+            long delayNanos = rateLimiter.reserve(TimeUnit.NANOSECONDS);
+            if (delayNanos <= 0) {
+                run(attemptNumber);
+                return;
+            }
+            retryScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    Call.this.run(attemptNumber);
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        void run(final int attemptNumber) {
+            Promise<T> promise;
+            try {
+                promise = attempt.start(attemptNumber);
+            } catch (RuntimeException e) {
+                result.setException(e);
+                return;
+            }
+            promise.then(new FutureCallback<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    result.set(value);
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    retryOrFail(attemptNumber, error);
+                }
+            });
+        }
+
+        void retryOrFail(final int attemptNumber, Throwable error) {
+            RetryPolicy.FailureType failureType = RetryPolicy.classify(error);
+            boolean retriable = failureType == RetryPolicy.FailureType.REJECTED
+                    || (idempotent && failureType == RetryPolicy.FailureType.AMBIGUOUS);
+            if (!retriable || attemptNumber >= maxAttempts) {
+                result.setException(error);
+                return;
+            }
+            Long retryAfter = RetryPolicy.getRetryAfterMillis(error);
+            if (retryAfter != null) {
+                //JIRA asks all calls to slow down, not just this one
+                rateLimiter.pause(retryAfter, TimeUnit.MILLISECONDS);
+            }
+            long delayMillis = retryPolicy.getDelayMillis(attemptNumber, error);
+            logger.info(String.format("%s failed (%s), attempt %d of %d in %d ms", operationName, error.getMessage(),
+                    attemptNumber + 1, maxAttempts, delayMillis));
+            retryScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    schedule(attemptNumber + 1);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
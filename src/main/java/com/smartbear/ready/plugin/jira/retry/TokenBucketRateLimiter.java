@@ -0,0 +1,64 @@
+package com.smartbear.ready.plugin.jira.retry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket which keeps the requests to JIRA under the configured rate. Callers never wait on it,
+ * they reserve a permit and get the delay after which the request may be sent.
+ */
+public class TokenBucketRateLimiter {
+    public static final double UNLIMITED = 0;
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private double availablePermits;
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, double capacity) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, capacity);
+        this.availablePermits = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public static TokenBucketRateLimiter unlimited() {
+        return new TokenBucketRateLimiter(UNLIMITED, 1);
+    }
+
+    public boolean isUnlimited() {
+        return permitsPerSecond <= UNLIMITED;
+    }
+
+    /*
+    * Permits can be reserved in advance, the bucket then goes into debt which later callers wait for.
+    * */
+    public synchronized long reserve(TimeUnit unit) {
+        if (isUnlimited()) {
+            return 0;
+        }
+        refill();
+        availablePermits -= 1;
+        if (availablePermits >= 0) {
+            return 0;
+        }
+        return unit.convert((long) (-availablePermits * TimeUnit.SECONDS.toNanos(1) / permitsPerSecond), TimeUnit.NANOSECONDS);
+    }
+
+    /*
+    * Used when JIRA asks to slow down, no permits are handed out for the given time.
+    * */
+    public synchronized void pause(long duration, TimeUnit unit) {
+        if (isUnlimited()) {
+            return;
+        }
+        refill();
+        double pausedPermits = unit.toNanos(duration) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        availablePermits = Math.min(availablePermits, -pausedPermits);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        availablePermits = Math.min(capacity, availablePermits + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+}
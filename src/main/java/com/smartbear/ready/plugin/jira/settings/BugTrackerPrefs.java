@@ -1,6 +1,7 @@
 package com.smartbear.ready.plugin.jira.settings;
 
 import com.eviware.soapui.settings.Setting;
+import com.eviware.soapui.settings.Setting.SettingType;
 import com.smartbear.ready.plugin.jira.factories.JiraPrefsFactory;
 
 /**
@@ -16,5 +17,71 @@ public interface BugTrackerPrefs {
     @Setting(name = JiraPrefsFactory.BUG_TRACKER_PASSWORD, description = JiraPrefsFactory.BUG_TRACKER_PASSWORD_DESCRIPTION)
     public final static String PASSWORD = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-password";
 
+    @Setting(name = JiraPrefsFactory.SERVER_PROFILES, description = JiraPrefsFactory.SERVER_PROFILES_DESCRIPTION)
+    public final static String SERVER_PROFILES = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-server-profiles";
+
+    public final static String SERVER_PROFILE_PASSWORDS = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-server-profile-passwords";
+
+    @Setting(name = JiraPrefsFactory.WARM_UP_METADATA, description = JiraPrefsFactory.WARM_UP_METADATA_DESCRIPTION, type = SettingType.BOOLEAN)
+    public final static String WARM_UP_METADATA = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-warm-up-metadata";
+
+    @Setting(name = JiraPrefsFactory.METADATA_MEMORY_LIMIT, description = JiraPrefsFactory.METADATA_MEMORY_LIMIT_DESCRIPTION)
+    public final static String METADATA_MEMORY_LIMIT = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-metadata-memory-limit";
+
+    public final static int DEFAULT_METADATA_MEMORY_LIMIT_MB = 64;
+
+    @Setting(name = JiraPrefsFactory.COMPRESS_ATTACHMENTS, description = JiraPrefsFactory.COMPRESS_ATTACHMENTS_DESCRIPTION, type = SettingType.BOOLEAN)
+    public final static String COMPRESS_ATTACHMENTS = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-compress-attachments";
+
+    @Setting(name = JiraPrefsFactory.LOG_ATTACHMENT_LIMIT, description = JiraPrefsFactory.LOG_ATTACHMENT_LIMIT_DESCRIPTION)
+    public final static String LOG_ATTACHMENT_LIMIT = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-log-attachment-limit";
+
+    public final static long DEFAULT_LOG_ATTACHMENT_LIMIT_MB = 10;
+
+    @Setting(name = JiraPrefsFactory.FILE_FAILURES_FROM_COMMAND_LINE, description = JiraPrefsFactory.FILE_FAILURES_FROM_COMMAND_LINE_DESCRIPTION, type = SettingType.BOOLEAN)
+    public final static String FILE_FAILURES_FROM_COMMAND_LINE = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-file-failures-from-command-line";
+
+    @Setting(name = JiraPrefsFactory.COMMAND_LINE_PROJECT, description = JiraPrefsFactory.COMMAND_LINE_PROJECT_DESCRIPTION)
+    public final static String COMMAND_LINE_PROJECT = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-command-line-project";
+
+    @Setting(name = JiraPrefsFactory.COMMAND_LINE_ISSUE_TYPE, description = JiraPrefsFactory.COMMAND_LINE_ISSUE_TYPE_DESCRIPTION)
+    public final static String COMMAND_LINE_ISSUE_TYPE = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-command-line-issue-type";
+
+    @Setting(name = JiraPrefsFactory.HTTP_MAX_CONNECTIONS, description = JiraPrefsFactory.HTTP_MAX_CONNECTIONS_DESCRIPTION)
+    public final static String HTTP_MAX_CONNECTIONS = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-http-max-connections";
+
+    public final static int DEFAULT_HTTP_MAX_CONNECTIONS = 20;
+
+    @Setting(name = JiraPrefsFactory.HTTP_MAX_CONNECTIONS_PER_ROUTE, description = JiraPrefsFactory.HTTP_MAX_CONNECTIONS_PER_ROUTE_DESCRIPTION)
+    public final static String HTTP_MAX_CONNECTIONS_PER_ROUTE = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-http-max-connections-per-route";
+
+    public final static int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 8;
+
+    @Setting(name = JiraPrefsFactory.HTTP_CONNECT_TIMEOUT, description = JiraPrefsFactory.HTTP_CONNECT_TIMEOUT_DESCRIPTION)
+    public final static String HTTP_CONNECT_TIMEOUT = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-http-connect-timeout";
+
+    public final static int DEFAULT_HTTP_CONNECT_TIMEOUT_SECONDS = 10;
+
+    @Setting(name = JiraPrefsFactory.HTTP_READ_TIMEOUT, description = JiraPrefsFactory.HTTP_READ_TIMEOUT_DESCRIPTION)
+    public final static String HTTP_READ_TIMEOUT = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-http-read-timeout";
+
+    public final static int DEFAULT_HTTP_READ_TIMEOUT_SECONDS = 60;
+
+    @Setting(name = JiraPrefsFactory.HTTP_CONNECTION_TIME_TO_LIVE, description = JiraPrefsFactory.HTTP_CONNECTION_TIME_TO_LIVE_DESCRIPTION)
+    public final static String HTTP_CONNECTION_TIME_TO_LIVE = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-http-connection-time-to-live";
+
+    public final static int DEFAULT_HTTP_CONNECTION_TIME_TO_LIVE_SECONDS = 60;
+
+    @Setting(name = JiraPrefsFactory.HTTP_CLIENT_IDLE_SHUTDOWN, description = JiraPrefsFactory.HTTP_CLIENT_IDLE_SHUTDOWN_DESCRIPTION)
+    public final static String HTTP_CLIENT_IDLE_SHUTDOWN = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-http-client-idle-shutdown";
+
+    public final static int DEFAULT_HTTP_CLIENT_IDLE_SHUTDOWN_SECONDS = 300;
+
+    @Setting(name = JiraPrefsFactory.MAX_REQUESTS_PER_SECOND, description = JiraPrefsFactory.MAX_REQUESTS_PER_SECOND_DESCRIPTION)
+    public final static String MAX_REQUESTS_PER_SECOND = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-max-requests-per-second";
+
+    public final static int DEFAULT_MAX_REQUESTS_PER_SECOND = 10;
+
+    public final static String PROJECT_USAGE = BugTrackerPrefs.class.getSimpleName() + "@" + "jira-project-usage";
 }
 
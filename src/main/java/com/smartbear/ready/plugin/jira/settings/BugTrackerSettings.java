@@ -1,5 +1,6 @@
 package com.smartbear.ready.plugin.jira.settings;
 
+import com.smartbear.ready.plugin.jira.cache.PersistentMetadataStore;
 import com.sun.istack.internal.NotNull;
 
 /**
@@ -27,4 +28,12 @@ public class BugTrackerSettings {
     public String getPassword (){
         return password;
     }
+
+    /*
+    * Identifies the server and the account, a client and its caches can be reused as long as this does not change.
+    * The password is only included as a hash, so the key can be kept and compared without keeping the password.
+    * */
+    public String getConnectionKey() {
+        return url + "\n" + login + "\n" + PersistentMetadataStore.digest(password);
+    }
 }
@@ -0,0 +1,152 @@
+package com.smartbear.ready.plugin.jira.settings;
+
+import com.eviware.soapui.impl.wsdl.WsdlProject;
+import com.eviware.soapui.model.ModelItem;
+import com.eviware.soapui.model.settings.Settings;
+import com.eviware.soapui.model.support.ModelSupport;
+import com.eviware.soapui.support.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named JIRA servers in addition to the default one. They are stored one per line as
+ * "name = url, login", and a Ready! API project uses one of them when its
+ * JiraServerProfile property holds the name. The passwords are kept in a setting of their own,
+ * one per line as "name=password", so they are never shown with the servers.
+ */
+public class ServerProfiles {
+    private static final Logger logger = LoggerFactory.getLogger(ServerProfiles.class);
+
+    public static final String DEFAULT_PROFILE = "";
+    public static final String PROJECT_PROPERTY = "JiraServerProfile";
+
+    private static final String COMMENT_PREFIX = "#";
+    private static final char PASSWORD_SEPARATOR = '=';
+
+    public static List<String> getProfileNames(Settings settings) {
+        List<String> profileNames = new ArrayList<>();
+        profileNames.add(DEFAULT_PROFILE);
+        profileNames.addAll(parse(settings.getString(BugTrackerPrefs.SERVER_PROFILES, "")).keySet());
+        return profileNames;
+    }
+
+    /*
+    * Settings of an unknown profile are empty, so they are reported as not specified.
+    * */
+    public static BugTrackerSettings getSettings(Settings settings, String profileName) {
+        if (StringUtils.isNullOrEmpty(profileName)) {
+            return new BugTrackerSettings(settings.getString(BugTrackerPrefs.DEFAULT_URL, ""),
+                    settings.getString(BugTrackerPrefs.LOGIN, ""),
+                    settings.getString(BugTrackerPrefs.PASSWORD, ""));
+        }
+        BugTrackerSettings profile = parse(settings.getString(BugTrackerPrefs.SERVER_PROFILES, ""),
+                parsePasswords(settings.getString(BugTrackerPrefs.SERVER_PROFILE_PASSWORDS, ""))).get(profileName);
+        if (profile == null) {
+            logger.error("There is no JIRA server profile named " + profileName);
+            return new BugTrackerSettings("", "", "");
+        }
+        return profile;
+    }
+
+    public static String getProfileName(ModelItem modelItem) {
+        if (modelItem == null) {
+            return DEFAULT_PROFILE;
+        }
+        WsdlProject project = ModelSupport.getModelItemProject(modelItem);
+        if (project == null) {
+            return DEFAULT_PROFILE;
+        }
+        String profileName = project.getPropertyValue(PROJECT_PROPERTY);
+        return profileName == null ? DEFAULT_PROFILE : profileName.trim();
+    }
+
+    public static List<String> parseNames(String serializedProfiles) {
+        return new ArrayList<>(parse(serializedProfiles).keySet());
+    }
+
+    static Map<String, BugTrackerSettings> parse(String serializedProfiles) {
+        return parse(serializedProfiles, new HashMap<String, String>());
+    }
+
+    /*
+    * Lines of earlier versions have the password as the rest of the line, so it may contain commas.
+    * It is used when the profile has no password of its own.
+    * */
+    static Map<String, BugTrackerSettings> parse(String serializedProfiles, Map<String, String> passwords) {
+        Map<String, BugTrackerSettings> profiles = new LinkedHashMap<>();
+        if (serializedProfiles == null) {
+            return profiles;
+        }
+        for (String line : serializedProfiles.split("\\r?\\n")) {
+            String profile = line.trim();
+            if (profile.isEmpty() || profile.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            int nameEnd = profile.indexOf('=');
+            String[] parts = nameEnd > 0 ? profile.substring(nameEnd + 1).split(",", 3) : new String[0];
+            if (parts.length < 2) {
+                logger.warn("Invalid JIRA server profile, expected \"name = url, login\": " + profile.substring(0, Math.max(nameEnd, 0)));
+                continue;
+            }
+            String profileName = profile.substring(0, nameEnd).trim();
+            String password = passwords.get(profileName);
+            if (password == null) {
+                password = parts.length > 2 ? parts[2].trim() : "";
+            }
+            profiles.put(profileName, new BugTrackerSettings(parts[0].trim(), parts[1].trim(), password));
+        }
+        return profiles;
+    }
+
+    /*
+    * Moves the passwords which lines of earlier versions hold to the given passwords and returns the lines without them.
+    * */
+    public static String movePasswords(String serializedProfiles, Map<String, String> passwords) {
+        if (serializedProfiles == null) {
+            return "";
+        }
+        StringBuilder profiles = new StringBuilder();
+        String lineSeparator = "";
+        for (String line : serializedProfiles.split("\\r?\\n", -1)) {
+            String profile = line.trim();
+            int nameEnd = profile.indexOf('=');
+            String[] parts = nameEnd > 0 ? profile.substring(nameEnd + 1).split(",", 3) : new String[0];
+            if (!profile.startsWith(COMMENT_PREFIX) && parts.length > 2) {
+                passwords.put(profile.substring(0, nameEnd).trim(), parts[2].trim());
+                //the password and the comma in front of it are cut off
+                line = profile.substring(0, profile.length() - parts[2].length() - 1);
+            }
+            profiles.append(lineSeparator).append(line);
+            lineSeparator = "\n";
+        }
+        return profiles.toString();
+    }
+
+    public static Map<String, String> parsePasswords(String serializedPasswords) {
+        Map<String, String> passwords = new LinkedHashMap<>();
+        if (serializedPasswords == null) {
+            return passwords;
+        }
+        for (String line : serializedPasswords.split("\\r?\\n")) {
+            int nameEnd = line.indexOf(PASSWORD_SEPARATOR);
+            if (nameEnd > 0) {
+                passwords.put(line.substring(0, nameEnd), line.substring(nameEnd + 1));
+            }
+        }
+        return passwords;
+    }
+
+    public static String serializePasswords(Map<String, String> passwords) {
+        StringBuilder serializedPasswords = new StringBuilder();
+        for (Map.Entry<String, String> password : passwords.entrySet()) {
+            serializedPasswords.append(password.getKey()).append(PASSWORD_SEPARATOR).append(password.getValue()).append('\n');
+        }
+        return serializedPasswords.toString();
+    }
+}
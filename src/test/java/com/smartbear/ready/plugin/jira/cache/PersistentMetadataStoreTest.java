@@ -0,0 +1,155 @@
+package com.smartbear.ready.plugin.jira.cache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentMetadataStoreTest {
+    private static final String SERVER_URL = "https://jira.example.com";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File root;
+    private PersistentMetadataStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        root = temporaryFolder.newFolder("metadata");
+        store = new PersistentMetadataStore(root, SERVER_URL, "alice");
+    }
+
+    @Test
+    public void readsWhatWasWritten() {
+        long before = System.currentTimeMillis();
+        store.write(MetadataType.PROJECT, "DEMO", "{\"key\":\"DEMO\"}");
+
+        StoredMetadata storedMetadata = store.read(MetadataType.PROJECT, "DEMO");
+
+        assertNotNull(storedMetadata);
+        assertEquals("{\"key\":\"DEMO\"}", storedMetadata.getJson());
+        assertTrue(storedMetadata.getStoredAt() >= before);
+        assertFalse(storedMetadata.isStale());
+    }
+
+    @Test
+    public void keepsLineBreaksOfTheJson() {
+        String json = "{\n  \"key\": \"DEMO\"\n}\n";
+        store.write(MetadataType.PROJECTS, null, json);
+
+        assertEquals(json, store.read(MetadataType.PROJECTS, null).getJson());
+    }
+
+    @Test
+    public void returnsNullForMissingEntries() {
+        assertNull(store.read(MetadataType.PRIORITIES, null));
+        assertNull(store.read(MetadataType.PROJECT, "MISSING"));
+    }
+
+    @Test
+    public void separatesEntriesByIdAndType() {
+        store.write(MetadataType.PROJECT, "A", "a");
+        store.write(MetadataType.PROJECT, "B", "b");
+        store.write(MetadataType.CREATE_META, "A", "meta");
+
+        assertEquals("a", store.read(MetadataType.PROJECT, "A").getJson());
+        assertEquals("b", store.read(MetadataType.PROJECT, "B").getJson());
+        assertEquals("meta", store.read(MetadataType.CREATE_META, "A").getJson());
+    }
+
+    @Test
+    public void separatesServersAndUsers() {
+        store.write(MetadataType.PRIORITIES, null, "alice's");
+        PersistentMetadataStore otherUser = new PersistentMetadataStore(root, SERVER_URL, "bob");
+        PersistentMetadataStore otherServer = new PersistentMetadataStore(root, "https://other.example.com", "alice");
+
+        assertNull(otherUser.read(MetadataType.PRIORITIES, null));
+        assertNull(otherServer.read(MetadataType.PRIORITIES, null));
+        assertEquals("alice's", new PersistentMetadataStore(root, SERVER_URL, "alice").read(MetadataType.PRIORITIES, null).getJson());
+    }
+
+    @Test
+    public void removesEntries() {
+        store.write(MetadataType.PROJECT, "DEMO", "{}");
+        store.remove(MetadataType.PROJECT, "DEMO");
+
+        assertNull(store.read(MetadataType.PROJECT, "DEMO"));
+    }
+
+    @Test
+    public void ignoresFilesWithAnInvalidHeader() throws IOException {
+        store.write(MetadataType.PROJECT, "DEMO", "{}");
+        File file = findStoredFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a timestamp\n{}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertNull(store.read(MetadataType.PROJECT, "DEMO"));
+    }
+
+    @Test
+    public void concurrentWritesOfTheSameEntryDoNotInterfere() throws Exception {
+        final int writers = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                final String json = "{\"writer\":" + i + ",\"padding\":\"" + new String(new char[10000]).replace('\0', 'x') + "\"}";
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int round = 0; round < 20; round++) {
+                            store.write(MetadataType.CREATE_META, "DEMO", json);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String json = store.read(MetadataType.CREATE_META, "DEMO").getJson();
+        assertTrue(json.startsWith("{\"writer\":"));
+        assertTrue(json.endsWith("\"}"));
+        assertEquals(1, findStoredFiles().length);
+    }
+
+    private File findStoredFile() {
+        File[] files = findStoredFiles();
+        assertEquals(1, files.length);
+        return files[0];
+    }
+
+    private File[] findStoredFiles() {
+        File[] serverDirs = root.listFiles();
+        assertNotNull(serverDirs);
+        assertEquals(1, serverDirs.length);
+        return serverDirs[0].listFiles();
+    }
+}
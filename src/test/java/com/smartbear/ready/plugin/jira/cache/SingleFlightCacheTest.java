@@ -0,0 +1,323 @@
+package com.smartbear.ready.plugin.jira.cache;
+
+import com.atlassian.util.concurrent.Promise;
+import com.atlassian.util.concurrent.Promises;
+import com.google.common.util.concurrent.SettableFuture;
+import com.smartbear.ready.plugin.jira.metrics.CacheStatistics;
+import com.smartbear.ready.plugin.jira.metrics.JiraMetrics;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightCacheTest {
+    private static final String WEIGHED_CACHE_NAME = "weighed test";
+    private static final SingleFlightCache.Weigher<String> LENGTH = new SingleFlightCache.Weigher<String>() {
+        @Override
+        public long weigh(String value) {
+            return value.length();
+        }
+    };
+
+    private final SingleFlightCache<String, String> cache = new SingleFlightCache<>("test");
+
+    @Test
+    public void concurrentCallersShareOneLoad() {
+        PendingLoader loader = new PendingLoader();
+
+        Promise<String> first = cache.get("A", loader);
+        Promise<String> second = cache.get("A", loader);
+
+        assertSame(first, second);
+        assertEquals(1, loader.loads.get());
+        assertFalse(first.isDone());
+
+        loader.complete("A", "value");
+
+        assertEquals("value", first.claim());
+        assertEquals("value", second.claim());
+    }
+
+    @Test
+    public void loadedValuesAreNotLoadedAgain() {
+        PendingLoader loader = new PendingLoader();
+        cache.get("A", loader);
+        loader.complete("A", "value");
+
+        assertEquals("value", cache.get("A", loader).claim());
+        assertEquals("value", cache.getIfPresent("A"));
+        assertEquals(1, loader.loads.get());
+    }
+
+    @Test
+    public void failedLoadsAreNotCached() {
+        PendingLoader loader = new PendingLoader();
+        Promise<String> failed = cache.get("A", loader);
+        loader.fail("A", new IllegalStateException("JIRA is down"));
+
+        try {
+            failed.claim();
+            fail("The failure has to be passed to the caller");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("JIRA is down"));
+        }
+        assertNull(cache.getIfPresent("A"));
+
+        Promise<String> retried = cache.get("A", loader);
+        assertEquals(2, loader.loads.get());
+        loader.complete("A", "value");
+        assertEquals("value", retried.claim());
+    }
+
+    @Test
+    public void loaderExceptionsRejectThePromise() {
+        Promise<String> promise = cache.get("A", new SingleFlightCache.Loader<String, String>() {
+            @Override
+            public Promise<String> load(String key) {
+                throw new IllegalArgumentException("broken loader");
+            }
+        });
+
+        assertTrue(promise.isDone());
+        try {
+            promise.claim();
+            fail("The loader exception has to be passed to the caller");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("broken loader"));
+        }
+    }
+
+    @Test
+    public void getIfPresentIgnoresLoadsInFlight() {
+        cache.get("A", new PendingLoader());
+
+        assertNull(cache.getIfPresent("A"));
+    }
+
+    @Test
+    public void bulkLoadsOnlyTheMissingKeys() {
+        cache.put("A", "cached");
+        final AtomicInteger bulkLoads = new AtomicInteger();
+        final Map<String, String> requestedKeys = new HashMap<>();
+
+        Map<String, Promise<String>> values = cache.getAll(Arrays.asList("A", "B", "C"), new SingleFlightCache.BulkLoader<String, String>() {
+            @Override
+            public Promise<Map<String, String>> loadAll(Collection<String> keys) {
+                bulkLoads.incrementAndGet();
+                Map<String, String> loaded = new HashMap<>();
+                for (String key : keys) {
+                    requestedKeys.put(key, key);
+                    loaded.put(key, "loaded " + key);
+                }
+                return Promises.promise(loaded);
+            }
+        });
+
+        assertEquals(1, bulkLoads.get());
+        assertEquals(2, requestedKeys.size());
+        assertFalse(requestedKeys.containsKey("A"));
+        assertEquals("cached", values.get("A").claim());
+        assertEquals("loaded B", values.get("B").claim());
+        assertEquals("loaded C", values.get("C").claim());
+    }
+
+    @Test
+    public void keysMissingFromABulkLoadAreRejectedAndNotCached() {
+        Map<String, Promise<String>> values = cache.getAll(Arrays.asList("A", "B"), new SingleFlightCache.BulkLoader<String, String>() {
+            @Override
+            public Promise<Map<String, String>> loadAll(Collection<String> keys) {
+                Map<String, String> loaded = new HashMap<>();
+                loaded.put("A", "a");
+                return Promises.promise(loaded);
+            }
+        });
+
+        assertEquals("a", values.get("A").claim());
+        try {
+            values.get("B").claim();
+            fail("A key which was not loaded has to be rejected");
+        } catch (RuntimeException e) {
+            assertNull(cache.getIfPresent("B"));
+        }
+    }
+
+    @Test
+    public void bulkLoadJoinsALoadInFlight() {
+        PendingLoader loader = new PendingLoader();
+        Promise<String> single = cache.get("A", loader);
+
+        Map<String, Promise<String>> values = cache.getAll(Arrays.asList("A"), new SingleFlightCache.BulkLoader<String, String>() {
+            @Override
+            public Promise<Map<String, String>> loadAll(Collection<String> keys) {
+                throw new AssertionError("Nothing has to be loaded");
+            }
+        });
+
+        assertSame(single, values.get("A"));
+    }
+
+    @Test
+    public void invalidatedEntriesAreLoadedAgain() {
+        PendingLoader loader = new PendingLoader();
+        cache.put("A", "old");
+        cache.invalidate("A");
+
+        cache.get("A", loader);
+        loader.complete("A", "new");
+
+        assertEquals(1, loader.loads.get());
+        assertEquals("new", cache.getIfPresent("A"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedOverTheLimit() {
+        CacheStatistics statistics = resetWeighedStatistics();
+        SingleFlightCache<String, String> weighed = new SingleFlightCache<>(WEIGHED_CACHE_NAME, LENGTH, 10);
+        weighed.put("A", "aaaa");
+        weighed.put("B", "bbbb");
+        weighed.getIfPresent("A");
+
+        weighed.put("C", "cccc");
+
+        assertNull(weighed.getIfPresent("B"));
+        assertEquals("aaaa", weighed.getIfPresent("A"));
+        assertEquals("cccc", weighed.getIfPresent("C"));
+        assertEquals(8, weighed.getWeight());
+        assertEquals(2, weighed.size());
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(8, statistics.getWeight());
+    }
+
+    @Test
+    public void cacheHitsCountAsUse() {
+        SingleFlightCache<String, String> weighed = new SingleFlightCache<>(WEIGHED_CACHE_NAME, LENGTH, 10);
+        PendingLoader loader = new PendingLoader();
+        weighed.put("A", "aaaa");
+        weighed.put("B", "bbbb");
+        weighed.get("A", loader);
+
+        weighed.put("C", "cccc");
+
+        assertEquals(0, loader.loads.get());
+        assertNull(weighed.getIfPresent("B"));
+        assertEquals("aaaa", weighed.getIfPresent("A"));
+    }
+
+    @Test
+    public void entryOverTheLimitIsKeptUntilTheNextOneIsLoaded() {
+        SingleFlightCache<String, String> weighed = new SingleFlightCache<>(WEIGHED_CACHE_NAME, LENGTH, 3);
+
+        weighed.put("A", "aaaaa");
+        assertEquals("aaaaa", weighed.getIfPresent("A"));
+        assertEquals(5, weighed.getWeight());
+
+        weighed.put("B", "bb");
+        assertNull(weighed.getIfPresent("A"));
+        assertEquals(2, weighed.getWeight());
+    }
+
+    @Test
+    public void loadsInFlightAreNotEvicted() {
+        SingleFlightCache<String, String> weighed = new SingleFlightCache<>(WEIGHED_CACHE_NAME, LENGTH, 4);
+        PendingLoader loader = new PendingLoader();
+        Promise<String> inFlight = weighed.get("A", loader);
+        weighed.put("B", "bbbb");
+
+        weighed.put("C", "cccc");
+        assertNull(weighed.getIfPresent("B"));
+        assertSame(inFlight, weighed.get("A", loader));
+
+        loader.complete("A", "aaaa");
+        assertEquals("aaaa", inFlight.claim());
+        assertEquals("aaaa", weighed.getIfPresent("A"));
+        assertNull(weighed.getIfPresent("C"));
+        assertEquals(4, weighed.getWeight());
+        assertEquals(1, loader.loads.get());
+    }
+
+    @Test
+    public void smallerLimitEvictsAtOnce() {
+        CacheStatistics statistics = resetWeighedStatistics();
+        SingleFlightCache<String, String> weighed = new SingleFlightCache<>(WEIGHED_CACHE_NAME, LENGTH, 100);
+        weighed.put("A", "aaaa");
+        weighed.put("B", "bbbb");
+        weighed.put("C", "cccc");
+
+        weighed.setMaxWeight(8);
+
+        assertNull(weighed.getIfPresent("A"));
+        assertEquals(8, weighed.getWeight());
+        assertEquals(2, weighed.size());
+        assertEquals(1, statistics.getEvictions());
+    }
+
+    @Test
+    public void replacedAndInvalidatedEntriesAreNotCountedTwice() {
+        SingleFlightCache<String, String> weighed = new SingleFlightCache<>(WEIGHED_CACHE_NAME, LENGTH, 100);
+        weighed.put("A", "aaaa");
+        weighed.put("A", "aa");
+        assertEquals(2, weighed.getWeight());
+
+        weighed.invalidate("A");
+        assertEquals(0, weighed.getWeight());
+
+        weighed.put("B", "bbbb");
+        weighed.clear();
+        assertEquals(0, weighed.getWeight());
+        assertEquals(0, weighed.size());
+    }
+
+    @Test
+    public void entryInvalidatedWhileLoadingIsNotWeighed() {
+        SingleFlightCache<String, String> weighed = new SingleFlightCache<>(WEIGHED_CACHE_NAME, LENGTH, 100);
+        PendingLoader loader = new PendingLoader();
+        Promise<String> inFlight = weighed.get("A", loader);
+        weighed.invalidate("A");
+
+        loader.complete("A", "aaaa");
+
+        assertEquals("aaaa", inFlight.claim());
+        assertNull(weighed.getIfPresent("A"));
+        assertEquals(0, weighed.getWeight());
+    }
+
+    private static CacheStatistics resetWeighedStatistics() {
+        CacheStatistics statistics = JiraMetrics.getInstance().getCache(WEIGHED_CACHE_NAME);
+        statistics.reset();
+        return statistics;
+    }
+
+    /*
+    * Loads which stay in flight until the test completes them.
+    * */
+    static class PendingLoader implements SingleFlightCache.Loader<String, String> {
+        final AtomicInteger loads = new AtomicInteger();
+        final Map<String, SettableFuture<String>> pending = new HashMap<>();
+
+        @Override
+        public synchronized Promise<String> load(String key) {
+            loads.incrementAndGet();
+            SettableFuture<String> future = SettableFuture.create();
+            pending.put(key, future);
+            return Promises.forListenableFuture(future);
+        }
+
+        synchronized void complete(String key, String value) {
+            pending.remove(key).set(value);
+        }
+
+        synchronized void fail(String key, Throwable error) {
+            pending.remove(key).setException(error);
+        }
+    }
+}
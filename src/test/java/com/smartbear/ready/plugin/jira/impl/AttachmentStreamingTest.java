@@ -0,0 +1,184 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.smartbear.ready.plugin.jira.retry.RetryPolicy;
+import com.smartbear.ready.plugin.jira.retry.RetryingCaller;
+import com.smartbear.ready.plugin.jira.retry.TokenBucketRateLimiter;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Uploads an attachment twice as large as the heap, the way the project file is attached. A body built
+ * in memory fails with an OutOfMemoryError, a streamed one only needs the pipe buffers. The build runs
+ * the tests with a small heap, so the content stays small enough for a quick test.
+ */
+public class AttachmentStreamingTest {
+    private static final String ATTACHMENTS_PATH = "/rest/api/2/issue/TEST-1/attachments";
+    private static final long MAX_TESTED_HEAP = 512L * 1024 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HttpServer server;
+    private JiraProvider provider;
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private final AtomicReference<String> receivedHead = new AtomicReference<>();
+    private final AtomicReference<String> receivedContentType = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(ATTACHMENTS_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                receivedContentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+                byte[] buffer = new byte[CHUNK_SIZE];
+                long count = 0;
+                try (InputStream body = exchange.getRequestBody()) {
+                    int read;
+                    while ((read = body.read(buffer)) != -1) {
+                        if (receivedHead.get() == null) {
+                            receivedHead.set(new String(buffer, 0, read, StandardCharsets.ISO_8859_1));
+                        }
+                        count += read;
+                    }
+                }
+                receivedBytes.set(count);
+                byte[] response = "[]".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+        provider = providerFor(url);
+    }
+
+    private JiraProvider providerFor(String url) throws IOException {
+        return JiraProvider.forSettings(new BugTrackerSettings(url, "tester", "secret"),
+                new JiraHttpClientFactory(4, 4, 10, 60, 30),
+                new RetryingCaller(RetryPolicy.defaultPolicy(), TokenBucketRateLimiter.unlimited()),
+                temporaryFolder.newFolder());
+    }
+
+    @After
+    public void tearDown() {
+        provider.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void attachmentLargerThanTheHeapIsStreamed() throws Exception {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        Assume.assumeTrue("The test needs a heap of at most 512 MB", maxHeap <= MAX_TESTED_HEAP);
+        final long contentSize = 2 * maxHeap;
+
+        InputStream project = PipedContentStream.open(new PipedContentStream.ContentWriter() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                byte[] chunk = new byte[CHUNK_SIZE];
+                Arrays.fill(chunk, (byte) 'x');
+                outputStream.write("<con:soapui-project>".getBytes(StandardCharsets.UTF_8));
+                for (long written = 0; written < contentSize; written += chunk.length) {
+                    outputStream.write(chunk);
+                }
+                outputStream.write("</con:soapui-project>".getBytes(StandardCharsets.UTF_8));
+            }
+        }, false);
+
+        URI attachmentsUri = URI.create(provider.getBugTrackerSettings().getUrl() + ATTACHMENTS_PATH);
+        AttachmentAddingResult result = provider.attachFileAsync(attachmentsUri, "project.xml", project).claim();
+
+        assertTrue(result.getError(), result.getSuccess());
+        assertTrue(receivedContentType.get(), receivedContentType.get().startsWith("multipart/form-data; boundary="));
+        assertTrue(receivedHead.get(), receivedHead.get().contains("filename=\"project.xml\""));
+        assertTrue("The whole content has to be sent, got " + receivedBytes.get() + " bytes", receivedBytes.get() > contentSize);
+    }
+
+    @Test
+    public void failedUploadReportsTheStatus() throws Exception {
+        server.removeContext(ATTACHMENTS_PATH);
+        server.createContext(ATTACHMENTS_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream body = exchange.getRequestBody()) {
+                    while (body.read(new byte[CHUNK_SIZE]) != -1) {
+                        //the request is read before the response is sent
+                    }
+                }
+                exchange.sendResponseHeaders(403, -1);
+                exchange.close();
+            }
+        });
+
+        URI attachmentsUri = URI.create(provider.getBugTrackerSettings().getUrl() + ATTACHMENTS_PATH);
+        AttachmentAddingResult result = provider.attachFileAsync(attachmentsUri, "soapui.log",
+                new ByteArrayInputStream("log".getBytes(StandardCharsets.UTF_8))).claim();
+
+        assertFalse(result.getSuccess());
+        assertTrue(result.getError(), result.getError().contains("403"));
+    }
+
+    @Test
+    public void contentIsClosedWhenTheServerCannotBeReached() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = socket.getLocalPort();
+        }
+        JiraProvider unreachableProvider = providerFor("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + closedPort);
+        final CountDownLatch contentClosed = new CountDownLatch(1);
+        //larger than the pipe, so its writer waits for a reader which never comes
+        InputStream content = new InputStream() {
+            @Override
+            public int read() {
+                return 'x';
+            }
+
+            @Override
+            public void close() {
+                contentClosed.countDown();
+            }
+        };
+
+        try {
+            URI attachmentsUri = URI.create(unreachableProvider.getBugTrackerSettings().getUrl() + ATTACHMENTS_PATH);
+            AttachmentAddingResult result = unreachableProvider.attachFileAsync(attachmentsUri, "soapui.log", content).claim();
+
+            assertFalse(result.getSuccess());
+            assertTrue("The content has to be closed after the failed request", contentClosed.await(10, TimeUnit.SECONDS));
+        } finally {
+            unreachableProvider.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.domain.CimFieldInfo;
+import com.atlassian.jira.rest.client.api.domain.Priority;
+import com.atlassian.jira.rest.client.api.domain.input.ComplexIssueInputFieldValue;
+import com.atlassian.jira.rest.client.api.domain.input.IssueInput;
+import com.atlassian.jira.rest.client.api.domain.input.IssueInputBuilder;
+import com.atlassian.jira.rest.client.internal.json.CimFieldsInfoMapJsonParser;
+import com.atlassian.jira.rest.client.internal.json.GenericJsonArrayParser;
+import com.atlassian.jira.rest.client.internal.json.PriorityJsonParser;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FieldEncodingPlanTest {
+    private static final String BASE_URL = "http://jira.example.com/rest/api/2/";
+    private static final String SELECT_FIELD = "customfield_10000";
+    private static final String TEXT_FIELD = "customfield_20000";
+
+    private Map<String, CimFieldInfo> fields;
+    private Iterable<Priority> priorities;
+
+    @Before
+    public void setUp() throws JSONException {
+        fields = new CimFieldsInfoMapJsonParser().parse(new JSONObject()
+                .put(SELECT_FIELD, field("Select", "option", new JSONArray()
+                        .put(new JSONObject().put("self", BASE_URL + "customFieldOption/1").put("id", "1").put("value", "Red"))
+                        .put(new JSONObject().put("self", BASE_URL + "customFieldOption/2").put("id", "2").put("value", "Green"))))
+                .put(TEXT_FIELD, field("Text", "string", null))
+                .put("components", field("Component/s", "array", new JSONArray()
+                        .put(new JSONObject().put("self", BASE_URL + "component/1").put("id", "1").put("name", "Backend")))));
+        priorities = GenericJsonArrayParser.create(new PriorityJsonParser()).parse(new JSONArray()
+                .put(priority(1, "Blocker"))
+                .put(priority(2, "Major"))
+                .put(priority(3, "Major")));
+    }
+
+    @Test
+    public void fieldsWithAllowedValuesAreSentAsOptions() {
+        IssueInput issueInput = encode(FieldEncodingPlan.compile(fields, priorities), SELECT_FIELD, "Green");
+
+        assertEquals("Green", getValuesMap(issueInput, SELECT_FIELD).get("value"));
+    }
+
+    @Test
+    public void fieldsWithoutAllowedValuesAreSentAsText() {
+        IssueInput issueInput = encode(FieldEncodingPlan.compile(fields, priorities), TEXT_FIELD, "free text");
+
+        assertEquals("free text", issueInput.getField(TEXT_FIELD).getValue());
+    }
+
+    @Test
+    public void fieldsWithoutMetadataAreSentAsText() {
+        IssueInput issueInput = encode(FieldEncodingPlan.compile(null, priorities), SELECT_FIELD, "Green");
+
+        assertEquals("Green", issueInput.getField(SELECT_FIELD).getValue());
+    }
+
+    @Test
+    public void builtInFieldsAreEncodedByName() {
+        FieldEncodingPlan plan = FieldEncodingPlan.compile(null, priorities);
+
+        assertEquals("jdoe", getValuesMap(encode(plan, "assignee", "jdoe"), "assignee").get("name"));
+        assertEquals("DEMO-1", getValuesMap(encode(plan, "parent", "DEMO-1"), "parent").get("key"));
+        assertEquals("Fixed", getValuesMap(encode(plan, "resolution", "Fixed"), "resolution").get("name"));
+        assertEquals("1.0", getFirstValuesMap(encode(plan, "versions", "1.0"), "versions").get("name"));
+        assertEquals("2.0", getFirstValuesMap(encode(plan, "fixVersions", "2.0"), "fixVersions").get("name"));
+    }
+
+    @Test
+    public void builtInFieldsWinOverTheirMetadata() {
+        IssueInput issueInput = encode(FieldEncodingPlan.compile(fields, priorities), "components", "Backend");
+
+        assertEquals("Backend", getFirstValuesMap(issueInput, "components").get("name"));
+    }
+
+    @Test
+    public void prioritiesAreSentByIdOfTheFirstWithTheName() {
+        FieldEncodingPlan plan = FieldEncodingPlan.compile(fields, priorities);
+
+        assertEquals("1", getValuesMap(encode(plan, "priority", "Blocker"), "priority").get("id"));
+        assertEquals("2", getValuesMap(encode(plan, "priority", "Major"), "priority").get("id"));
+    }
+
+    @Test
+    public void planIsCompiledFromTheSameMetadataInstances() throws JSONException {
+        FieldEncodingPlan plan = FieldEncodingPlan.compile(fields, priorities);
+
+        assertTrue(plan.isCompiledFrom(fields, priorities));
+        assertFalse(plan.isCompiledFrom(new HashMap<>(fields), priorities));
+        assertFalse(plan.isCompiledFrom(fields, Collections.<Priority>emptyList()));
+        assertFalse(plan.isCompiledFrom(null, priorities));
+        assertTrue(FieldEncodingPlan.compile(null, priorities).isCompiledFrom(null, priorities));
+    }
+
+    private static IssueInput encode(FieldEncodingPlan plan, String fieldName, String value) {
+        IssueInputBuilder issueInputBuilder = new IssueInputBuilder("DEMO", 1L);
+        plan.encode(issueInputBuilder, fieldName, value);
+        return issueInputBuilder.build();
+    }
+
+    private static Map<String, Object> getValuesMap(IssueInput issueInput, String fieldName) {
+        return ((ComplexIssueInputFieldValue) issueInput.getField(fieldName).getValue()).getValuesMap();
+    }
+
+    private static Map<String, Object> getFirstValuesMap(IssueInput issueInput, String fieldName) {
+        Iterator<?> values = ((Iterable<?>) issueInput.getField(fieldName).getValue()).iterator();
+        return ((ComplexIssueInputFieldValue) values.next()).getValuesMap();
+    }
+
+    private static JSONObject field(String name, String type, JSONArray allowedValues) throws JSONException {
+        JSONObject field = new JSONObject()
+                .put("required", false)
+                .put("schema", new JSONObject().put("type", type))
+                .put("name", name)
+                .put("operations", new JSONArray().put("set"));
+        if (allowedValues != null) {
+            field.put("allowedValues", allowedValues);
+        }
+        return field;
+    }
+
+    private static JSONObject priority(int id, String name) throws JSONException {
+        return new JSONObject()
+                .put("self", BASE_URL + "priority/" + id)
+                .put("id", String.valueOf(id))
+                .put("name", name)
+                .put("statusColor", "#cc0000")
+                .put("description", name)
+                .put("iconUrl", "http://jira.example.com/images/icons/priorities/major.png");
+    }
+}
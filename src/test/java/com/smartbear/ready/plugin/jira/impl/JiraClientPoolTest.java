@@ -0,0 +1,278 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.AuthenticationHandler;
+import com.atlassian.jira.rest.client.api.JiraRestClient;
+import com.atlassian.jira.rest.client.internal.async.DisposableHttpClient;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+import com.smartbear.ready.plugin.jira.standin.JiraStandIn;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class JiraClientPoolTest {
+    private static final URI SERVER_URI = URI.create("https://jira.example.com");
+    private static final String CLIENT_THREAD_PREFIX = "jira-http";
+
+    private final JiraClientPool pool = new JiraClientPool();
+    private final StubClientFactory clientFactory = new StubClientFactory();
+    private final BugTrackerSettings settings = new BugTrackerSettings(SERVER_URI.toString(), "tester", "secret");
+
+    @Test
+    public void providersWithTheSameSettingsShareOneClient() {
+        JiraClientPool.Registration first = pool.register(SERVER_URI, settings, clientFactory);
+        JiraClientPool.Registration second = pool.register(SERVER_URI, settings, clientFactory);
+
+        JiraRestClient restClient = first.acquire();
+        assertSame(restClient, second.acquire());
+        assertEquals(1, clientFactory.created.get());
+        assertEquals(1, pool.getOpenClients());
+    }
+
+    @Test
+    public void clientIsClosedWithItsLastProvider() {
+        JiraClientPool.Registration first = pool.register(SERVER_URI, settings, clientFactory);
+        JiraClientPool.Registration second = pool.register(SERVER_URI, settings, clientFactory);
+        first.acquire();
+        first.release();
+
+        first.close();
+        assertEquals(0, clientFactory.destroyed.get());
+        assertEquals(1, pool.getOpenClients());
+
+        second.close();
+        assertEquals(1, clientFactory.destroyed.get());
+        assertEquals(0, pool.getOpenClients());
+    }
+
+    @Test
+    public void providerClosedTwiceIsCountedOnce() {
+        JiraClientPool.Registration first = pool.register(SERVER_URI, settings, clientFactory);
+        JiraClientPool.Registration second = pool.register(SERVER_URI, settings, clientFactory);
+        first.acquire();
+        first.release();
+
+        first.close();
+        first.close();
+
+        assertEquals(0, clientFactory.destroyed.get());
+        second.acquire();
+        assertEquals(1, clientFactory.created.get());
+    }
+
+    @Test
+    public void idleClientIsClosedAndOpenedAgainByTheNextRequest() throws InterruptedException {
+        pool.setIdleTimeout(50, TimeUnit.MILLISECONDS);
+        JiraClientPool.Registration registration = pool.register(SERVER_URI, settings, clientFactory);
+        registration.acquire();
+        registration.release();
+
+        awaitDestroyed(1);
+        assertEquals(0, pool.getOpenClients());
+
+        registration.acquire();
+        assertEquals(2, clientFactory.created.get());
+        assertEquals(1, pool.getOpenClients());
+    }
+
+    @Test
+    public void clientInUseIsNotClosedAsIdle() throws InterruptedException {
+        pool.setIdleTimeout(50, TimeUnit.MILLISECONDS);
+        JiraClientPool.Registration registration = pool.register(SERVER_URI, settings, clientFactory);
+        registration.acquire();
+        registration.release();
+        registration.acquire();
+
+        Thread.sleep(200);
+
+        assertEquals(0, clientFactory.destroyed.get());
+        assertEquals(1, pool.getOpenClients());
+    }
+
+    @Test
+    public void clientClosedWithARequestInFlightIsClosedByItsRelease() {
+        JiraClientPool.Registration registration = pool.register(SERVER_URI, settings, clientFactory);
+        registration.acquire();
+
+        registration.close();
+        assertEquals(0, clientFactory.destroyed.get());
+
+        registration.release();
+        assertEquals(1, clientFactory.destroyed.get());
+        assertEquals(0, pool.getOpenClients());
+    }
+
+    @Test
+    public void releaseWithoutAcquireDoesNotCloseTheClientOfAnotherRequest() {
+        JiraClientPool.Registration first = pool.register(SERVER_URI, settings, clientFactory);
+        JiraClientPool.Registration second = pool.register(SERVER_URI, settings, clientFactory);
+        first.acquire();
+        first.release();
+        first.release();
+        second.acquire();
+
+        first.close();
+        second.close();
+        assertEquals(0, clientFactory.destroyed.get());
+
+        second.release();
+        assertEquals(1, clientFactory.destroyed.get());
+    }
+
+    @Test
+    public void closedRegistrationDoesNotOpenTheClientAgain() {
+        JiraClientPool.Registration registration = pool.register(SERVER_URI, settings, clientFactory);
+        registration.close();
+
+        try {
+            registration.acquire();
+            fail("A closed registration must not open a client");
+        } catch (IllegalStateException e) {
+            assertEquals(0, clientFactory.created.get());
+            assertEquals(0, pool.getOpenClients());
+        }
+    }
+
+    @Test
+    public void closeAllClosesOpenClients() {
+        JiraClientPool.Registration registration = pool.register(SERVER_URI, settings, clientFactory);
+        registration.acquire();
+        registration.release();
+
+        pool.closeAll();
+
+        assertEquals(1, clientFactory.destroyed.get());
+        assertEquals(0, pool.getOpenClients());
+    }
+
+    @Test
+    public void threadsOfAClosedClientAreGone() throws IOException, InterruptedException {
+        JiraStandIn standIn = new JiraStandIn(1, 1).start();
+        try {
+            Set<Thread> threadsBefore = getClientThreads();
+            JiraClientPool.Registration registration = registerRealClient(standIn);
+            Set<Thread> clientThreads = useClient(registration, threadsBefore);
+
+            registration.close();
+
+            awaitTerminated(clientThreads);
+        } finally {
+            standIn.stop();
+        }
+    }
+
+    @Test
+    public void threadsOfAnIdleClientAreGone() throws IOException, InterruptedException {
+        pool.setIdleTimeout(50, TimeUnit.MILLISECONDS);
+        JiraStandIn standIn = new JiraStandIn(1, 1).start();
+        JiraClientPool.Registration registration = null;
+        try {
+            Set<Thread> threadsBefore = getClientThreads();
+            registration = registerRealClient(standIn);
+            Set<Thread> clientThreads = useClient(registration, threadsBefore);
+
+            awaitTerminated(clientThreads);
+            assertEquals(0, pool.getOpenClients());
+        } finally {
+            if (registration != null) {
+                registration.close();
+            }
+            standIn.stop();
+        }
+    }
+
+    private JiraClientPool.Registration registerRealClient(JiraStandIn standIn) {
+        return pool.register(URI.create(standIn.getUrl()), new BugTrackerSettings(standIn.getUrl(), JiraStandIn.LOGIN, JiraStandIn.PASSWORD),
+                new JiraHttpClientFactory(2, 2, 5, 5, 30));
+    }
+
+    /*
+    * Sends a request, so the client has started its I/O threads, and returns the threads it has started.
+    * */
+    private static Set<Thread> useClient(JiraClientPool.Registration registration, Set<Thread> threadsBefore) {
+        try {
+            registration.acquire().getMetadataClient().getServerInfo().claim();
+        } finally {
+            registration.release();
+        }
+        Set<Thread> clientThreads = getClientThreads();
+        clientThreads.removeAll(threadsBefore);
+        assertFalse("The client has to run threads named " + CLIENT_THREAD_PREFIX, clientThreads.isEmpty());
+        return clientThreads;
+    }
+
+    private static Set<Thread> getClientThreads() {
+        Set<Thread> clientThreads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(CLIENT_THREAD_PREFIX)) {
+                clientThreads.add(thread);
+            }
+        }
+        return clientThreads;
+    }
+
+    private static void awaitTerminated(Set<Thread> threads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            assertFalse("The thread " + thread.getName() + " of the closed client is still running", thread.isAlive());
+        }
+    }
+
+    private void awaitDestroyed(int clients) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (clientFactory.destroyed.get() < clients && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(clients, clientFactory.destroyed.get());
+    }
+
+    /*
+    * Creates clients which only count how often they are destroyed, no request is sent by the tests.
+    * */
+    private static class StubClientFactory extends JiraHttpClientFactory {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger destroyed = new AtomicInteger();
+
+        StubClientFactory() {
+            super(1, 1, 1, 1, 1);
+        }
+
+        @Override
+        public DisposableHttpClient createClient(final URI serverUri, AuthenticationHandler authenticationHandler) {
+            created.incrementAndGet();
+            return (DisposableHttpClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DisposableHttpClient.class},
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            switch (method.getName()) {
+                                case "destroy":
+                                    destroyed.incrementAndGet();
+                                    return null;
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                case "equals":
+                                    return proxy == args[0];
+                                case "toString":
+                                    return "stub client of " + serverUri;
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        }
+                    });
+        }
+    }
+}
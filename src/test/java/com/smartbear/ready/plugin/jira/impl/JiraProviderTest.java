@@ -0,0 +1,153 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.smartbear.ready.plugin.jira.retry.RetryPolicy;
+import com.smartbear.ready.plugin.jira.retry.RetryingCaller;
+import com.smartbear.ready.plugin.jira.retry.TokenBucketRateLimiter;
+import com.smartbear.ready.plugin.jira.settings.BugTrackerSettings;
+import com.smartbear.ready.plugin.jira.standin.JiraStandIn;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Creates items and attachments against the JIRA stand-in, with 429 responses and lost responses injected
+ * into the requests which the provider has to repeat or must not repeat blindly.
+ */
+public class JiraProviderTest {
+    private static final String BUG = JiraStandIn.ISSUE_TYPES[0];
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private JiraStandIn standIn;
+    private JiraProvider provider;
+
+    @Before
+    public void setUp() throws IOException {
+        standIn = new JiraStandIn(2, 5).start();
+        provider = JiraProvider.forSettings(new BugTrackerSettings(standIn.getUrl(), JiraStandIn.LOGIN, JiraStandIn.PASSWORD),
+                new JiraHttpClientFactory(4, 4, 10, 60, 30),
+                new RetryingCaller(new RetryPolicy(4, 50, 1000), TokenBucketRateLimiter.unlimited()),
+                temporaryFolder.newFolder());
+    }
+
+    @After
+    public void tearDown() {
+        provider.close();
+        standIn.stop();
+    }
+
+    @Test
+    public void createsAnItem() {
+        IssueCreationResult result = provider.createIssueAsync(draft("P0", "Login fails")).claim();
+
+        assertTrue(result.getError(), result.getSuccess());
+        assertEquals("P0-1", result.getIssue().getKey());
+        assertEquals("Login fails", provider.getIssue("P0-1").getSummary());
+        assertEquals(1, standIn.getRequests(JiraStandIn.CREATE_ROUTE));
+        assertEquals("the first attempt does not search", 0, standIn.getRequests(JiraStandIn.SEARCH_ROUTE));
+    }
+
+    @Test
+    public void createsItemsInBulkInTheOrderOfTheDrafts() {
+        List<IssueCreationResult> results = provider.createIssuesAsync(Arrays.asList(
+                draft("P0", "First"), draft("P1", "Second"), draft("P0", "Third"))).claim();
+
+        assertKeys(results, "P0-1", "P1-1", "P0-2");
+        assertEquals(1, standIn.getRequests(JiraStandIn.BULK_CREATE_ROUTE));
+        assertEquals(0, standIn.getRequests(JiraStandIn.CREATE_ROUTE));
+    }
+
+    @Test
+    public void throttledCreateIsRepeated() {
+        standIn.throttleNextRequests(JiraStandIn.CREATE_ROUTE, 1, 1);
+
+        IssueCreationResult result = provider.createIssueAsync(draft("P0", "Login fails")).claim();
+
+        assertTrue(result.getError(), result.getSuccess());
+        assertEquals("P0-1", result.getIssue().getKey());
+        assertEquals(1, standIn.getIssueCount());
+        assertEquals(2, standIn.getRequests(JiraStandIn.CREATE_ROUTE));
+    }
+
+    @Test
+    public void repeatedAttachmentWaitsForRetryAfter() throws Exception {
+        provider.createIssueAsync(draft("P0", "Login fails")).claim();
+        File log = temporaryFolder.newFile("soapui.log");
+        Files.write(log.toPath(), "log".getBytes(StandardCharsets.UTF_8));
+        standIn.throttleNextRequests(JiraStandIn.ATTACH_ROUTE, 1, 1);
+
+        long start = System.currentTimeMillis();
+        AttachmentAddingResult result = provider.attachFileAsync(provider.getAttachmentsUri("P0-1"), log.getPath()).claim();
+        long elapsedMillis = System.currentTimeMillis() - start;
+
+        assertTrue(result.getError(), result.getSuccess());
+        assertEquals(2, standIn.getRequests(JiraStandIn.ATTACH_ROUTE));
+        assertTrue("The attachment was repeated after " + elapsedMillis + " ms, before Retry-After", elapsedMillis >= 1000);
+    }
+
+    @Test
+    public void createWithALostResponseIsNotRepeatedWhenTheItemExists() {
+        standIn.loseNextResponses(JiraStandIn.CREATE_ROUTE, 1);
+
+        IssueCreationResult result = provider.createIssueAsync(draft("P0", "Login fails")).claim();
+
+        assertTrue(result.getError(), result.getSuccess());
+        assertEquals("P0-1", result.getIssue().getKey());
+        assertEquals(1, standIn.getIssueCount());
+        assertEquals(1, standIn.getRequests(JiraStandIn.CREATE_ROUTE));
+        assertEquals(1, standIn.getRequests(JiraStandIn.SEARCH_ROUTE));
+    }
+
+    @Test
+    public void bulkCreateWithALostResponseFindsTheCreatedItems() {
+        standIn.loseNextResponses(JiraStandIn.BULK_CREATE_ROUTE, 1);
+
+        List<IssueCreationResult> results = provider.createIssuesAsync(Arrays.asList(
+                draft("P0", "First"), draft("P1", "Second"), draft("P0", "Third"))).claim();
+
+        assertKeys(results, "P0-1", "P1-1", "P0-2");
+        assertEquals(3, standIn.getIssueCount());
+        assertEquals("the items created by the bulk request are not created again", 0, standIn.getRequests(JiraStandIn.CREATE_ROUTE));
+    }
+
+    @Test
+    public void itemIsCreatedIfAbsentByItsWholeSummary() {
+        long attemptStart = System.currentTimeMillis();
+        provider.createIssueAsync(draft("P0", "Login fails on retry")).claim();
+
+        //the phrase search finds the longer summary too, it must not be taken for this item
+        IssueCreationResult shorterSummary = provider.createIssueIfAbsentAsync(draft("P0", "Login fails"), attemptStart).claim();
+        IssueCreationResult sameSummary = provider.createIssueIfAbsentAsync(draft("P0", "Login fails on retry"), attemptStart).claim();
+
+        assertEquals("P0-2", shorterSummary.getIssue().getKey());
+        assertEquals("P0-1", sameSummary.getIssue().getKey());
+        assertEquals(2, standIn.getIssueCount());
+        assertEquals(2, standIn.getRequests(JiraStandIn.CREATE_ROUTE));
+    }
+
+    private static IssueDraft draft(String projectKey, String summary) {
+        return new IssueDraft(projectKey, BUG, summary, "Created by " + JiraProviderTest.class.getSimpleName(), Collections.<String, String>emptyMap());
+    }
+
+    private static void assertKeys(List<IssueCreationResult> results, String... keys) {
+        assertEquals(keys.length, results.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(results.get(i).getError(), results.get(i).getSuccess());
+            assertEquals(keys[i], results.get(i).getIssue().getKey());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogTailExtractorTest {
+    private static final String LOG = "aaaa\nbbbb\ncccc\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void unlimitedExtractionReturnsTheWholeLog() throws IOException {
+        File log = writeLog(LOG);
+
+        assertEquals(LOG, read(new LogTailExtractor(log, LogTailExtractor.UNLIMITED).open(false)));
+    }
+
+    @Test
+    public void logWithinTheBudgetIsNotCut() throws IOException {
+        File log = writeLog(LOG);
+
+        assertEquals(LOG, read(new LogTailExtractor(log, LOG.length()).open(false)));
+    }
+
+    @Test
+    public void cutOnALineBoundaryKeepsTheWholeLine() throws IOException {
+        File log = writeLog(LOG);
+
+        assertEquals(skipped(5) + "bbbb\ncccc\n", read(new LogTailExtractor(log, 10).open(false)));
+    }
+
+    @Test
+    public void cutInsideALineMovesToTheNextLine() throws IOException {
+        File log = writeLog(LOG);
+
+        assertEquals(skipped(10) + "cccc\n", read(new LogTailExtractor(log, 8).open(false)));
+    }
+
+    @Test
+    public void lastLineLongerThanTheBudgetIsSkipped() throws IOException {
+        File log = writeLog("aaaa\nbbbb\ncccc");
+
+        assertEquals(skipped(14), read(new LogTailExtractor(log, 3).open(false)));
+    }
+
+    @Test
+    public void findsTheLineBoundaryBeyondOneReadBuffer() throws IOException {
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            longLine.append('x');
+        }
+        File log = writeLog("first\n" + longLine + "\nlast\n");
+
+        assertEquals(skipped(6 + longLine.length() + 1) + "last\n", read(new LogTailExtractor(log, longLine.length()).open(false)));
+    }
+
+    @Test
+    public void compressedTailIsTheSameContent() throws IOException {
+        File log = writeLog(LOG);
+
+        assertEquals(skipped(5) + "bbbb\ncccc\n", read(new GZIPInputStream(new LogTailExtractor(log, 10).open(true))));
+    }
+
+    @Test
+    public void linesWrittenAfterOpeningAreNotIncluded() throws IOException {
+        File log = writeLog(LOG);
+        InputStream tail = new LogTailExtractor(log, LogTailExtractor.UNLIMITED).open(false);
+        try (FileOutputStream out = new FileOutputStream(log, true)) {
+            out.write("dddd\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(LOG, read(tail));
+    }
+
+    @Test(expected = IOException.class)
+    public void missingLogFails() throws IOException {
+        new LogTailExtractor(new File(temporaryFolder.getRoot(), "missing.log"), 10).open(false);
+    }
+
+    private File writeLog(String content) throws IOException {
+        File log = temporaryFolder.newFile();
+        try (FileOutputStream out = new FileOutputStream(log)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return log;
+    }
+
+    private static String skipped(long bytes) {
+        return String.format("[%d bytes at the beginning of the log are skipped]%n", bytes);
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream in = inputStream) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+        }
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
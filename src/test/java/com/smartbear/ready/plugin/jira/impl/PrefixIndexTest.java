@@ -0,0 +1,104 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrefixIndexTest {
+
+    @Test
+    public void findsEntriesByAnyWordOfTheirText() {
+        PrefixIndex index = new PrefixIndex.Builder()
+                .add(0, "Online Payments")
+                .add(1, "Core Platform")
+                .build();
+
+        assertEquals(Collections.singleton(0), index.search("pay", 10));
+        assertEquals(Collections.singleton(0), index.search("onl", 10));
+        assertEquals(Collections.singleton(1), index.search("plat", 10));
+    }
+
+    @Test
+    public void findsEntriesByTheirWholeText() {
+        PrefixIndex index = new PrefixIndex.Builder().add(0, "Online Payments").build();
+
+        assertEquals(Collections.singleton(0), index.search("online pay", 10));
+    }
+
+    @Test
+    public void searchIgnoresCaseAndSurroundingSpaces() {
+        PrefixIndex index = new PrefixIndex.Builder().add(0, "Online Payments").build();
+
+        assertEquals(Collections.singleton(0), index.search("  PAYMENTS ", 10));
+    }
+
+    @Test
+    public void wordsAreSplitOnDashesUnderscoresAndDots() {
+        PrefixIndex index = new PrefixIndex.Builder()
+                .add(0, "billing-service")
+                .add(1, "mobile_app")
+                .add(2, "web.portal")
+                .build();
+
+        assertEquals(Collections.singleton(0), index.search("serv", 10));
+        assertEquals(Collections.singleton(1), index.search("app", 10));
+        assertEquals(Collections.singleton(2), index.search("portal", 10));
+    }
+
+    @Test
+    public void everyEntryIsFoundOnce() {
+        PrefixIndex index = new PrefixIndex.Builder()
+                .add(0, "pay pay-day payroll")
+                .add(0, "PAY")
+                .build();
+
+        assertEquals(Collections.singleton(0), index.search("pay", 10));
+    }
+
+    @Test
+    public void searchStopsAtTheLimit() {
+        PrefixIndex.Builder builder = new PrefixIndex.Builder();
+        for (int i = 0; i < 10; i++) {
+            builder.add(i, "Test " + i);
+        }
+
+        assertEquals(3, builder.build().search("test", 3).size());
+    }
+
+    @Test
+    public void matchesAreOrderedByToken() {
+        PrefixIndex index = new PrefixIndex.Builder()
+                .add(0, "tests")
+                .add(1, "test")
+                .add(2, "tester")
+                .build();
+
+        assertEquals(Arrays.asList(1, 2, 0), new ArrayList<>(index.search("test", 10)));
+    }
+
+    @Test
+    public void unknownPrefixFindsNothing() {
+        PrefixIndex index = new PrefixIndex.Builder().add(0, "alpha").add(1, "beta").build();
+
+        assertTrue(index.search("gamma", 10).isEmpty());
+        assertTrue(index.search("zzz", 10).isEmpty());
+        assertTrue(index.search("alphabet", 10).isEmpty());
+    }
+
+    @Test
+    public void emptyIndexFindsNothing() {
+        assertTrue(new PrefixIndex.Builder().build().search("a", 10).isEmpty());
+    }
+
+    @Test
+    public void missingTextsAreSkipped() {
+        PrefixIndex index = new PrefixIndex.Builder().add(0, null).add(1, "beta").build();
+
+        assertEquals(Collections.singleton(1), index.search("", 10));
+    }
+}
@@ -0,0 +1,95 @@
+package com.smartbear.ready.plugin.jira.impl;
+
+import com.atlassian.jira.rest.client.api.domain.BasicProject;
+import com.atlassian.jira.rest.client.internal.json.BasicProjectJsonParser;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectIndexTest {
+    private static final String BASE_URL = "https://jira.example.com/rest/api/2/project/";
+
+    @Test
+    public void emptyPrefixReturnsTheFirstProjectsByKey() throws JSONException {
+        ProjectIndex index = ProjectIndex.build(projects("PAY", "Online Payments", "API", "Public API", "CORE", "Core Platform"));
+
+        assertEquals(Arrays.asList("API", "CORE"), index.search("", 2));
+        assertEquals(Arrays.asList("API", "CORE", "PAY"), index.search(null, 10));
+        assertEquals(Arrays.asList("API", "CORE", "PAY"), index.search("   ", 10));
+    }
+
+    @Test
+    public void findsProjectsByKeyAndName() throws JSONException {
+        ProjectIndex index = ProjectIndex.build(projects("PAY", "Online Payments", "CORE", "Core Platform"));
+
+        assertEquals(Collections.singletonList("PAY"), index.search("pay", 10));
+        assertEquals(Collections.singletonList("PAY"), index.search("Online", 10));
+        assertEquals(Collections.singletonList("CORE"), index.search("platf", 10));
+    }
+
+    @Test
+    public void exactKeyComesFirst() throws JSONException {
+        ProjectIndex index = ProjectIndex.build(projects("AA", "ZZ Top", "ZZ", "Sleep tracking"));
+
+        assertEquals(Collections.singletonList("ZZ"), index.search("zz", 1));
+        assertEquals(Arrays.asList("ZZ", "AA"), index.search("zz", 10));
+    }
+
+    @Test
+    public void everyProjectIsReturnedOnce() throws JSONException {
+        ProjectIndex index = ProjectIndex.build(projects("API", "API Gateway", "APIX", "API Extensions"));
+
+        assertEquals(Arrays.asList("API", "APIX"), index.search("api", 10));
+    }
+
+    @Test
+    public void searchStopsAtTheLimit() throws JSONException {
+        List<String> keysAndNames = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keysAndNames.add("TEAM" + i);
+            keysAndNames.add("Team " + i);
+        }
+        ProjectIndex index = ProjectIndex.build(projects(keysAndNames.toArray(new String[keysAndNames.size()])));
+
+        assertEquals(20, index.size());
+        assertEquals(5, index.search("team", 5).size());
+        assertEquals(5, index.search("", 5).size());
+    }
+
+    @Test
+    public void unknownPrefixFindsNothing() throws JSONException {
+        ProjectIndex index = ProjectIndex.build(projects("PAY", "Online Payments"));
+
+        assertTrue(index.search("xyz", 10).isEmpty());
+    }
+
+    @Test
+    public void emptyIndex() {
+        ProjectIndex index = ProjectIndex.build(Collections.<BasicProject>emptyList());
+
+        assertEquals(0, index.size());
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search("a", 10).isEmpty());
+    }
+
+    private static List<BasicProject> projects(String... keysAndNames) throws JSONException {
+        BasicProjectJsonParser parser = new BasicProjectJsonParser();
+        List<BasicProject> projects = new ArrayList<>();
+        for (int i = 0; i < keysAndNames.length; i += 2) {
+            projects.add(parser.parse(new JSONObject()
+                    .put("self", BASE_URL + keysAndNames[i])
+                    .put("id", String.valueOf(10000 + i))
+                    .put("key", keysAndNames[i])
+                    .put("name", keysAndNames[i + 1])));
+        }
+        return projects;
+    }
+}
@@ -0,0 +1,280 @@
+package com.smartbear.ready.plugin.jira.outbox;
+
+import com.smartbear.ready.plugin.jira.impl.IssueDraft;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IssueOutboxTest {
+    private static final long ATTEMPT_TIME = 1000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File outboxDir;
+
+    @Before
+    public void setUp() throws IOException {
+        outboxDir = new File(temporaryFolder.getRoot(), "outbox");
+    }
+
+    @Test
+    public void pendingEntriesAreReadFromTheJournal() throws IOException {
+        Map<String, String> extraValues = new HashMap<>();
+        extraValues.put("priority", "Major");
+        IssueDraft issueDraft = new IssueDraft("DEMO", "Bug", "Login fails", "Details\nwith two lines", extraValues);
+        OutboxEntry added = new IssueOutbox(outboxDir).add(issueDraft, ATTEMPT_TIME, attachments("soapui.log", "log content"));
+
+        List<OutboxEntry> entries = new IssueOutbox(outboxDir).getPendingEntries();
+
+        assertEquals(1, entries.size());
+        OutboxEntry entry = entries.get(0);
+        assertEquals(added.getId(), entry.getId());
+        assertEquals(added.getCreatedAt(), entry.getCreatedAt());
+        assertEquals("DEMO", entry.getIssueDraft().getProjectKey());
+        assertEquals("Bug", entry.getIssueDraft().getIssueType());
+        assertEquals("Login fails", entry.getIssueDraft().getSummary());
+        assertEquals("Details\nwith two lines", entry.getIssueDraft().getDescription());
+        assertEquals(extraValues, entry.getIssueDraft().getExtraValues());
+        assertEquals(ATTEMPT_TIME, entry.getFirstAttemptAt());
+        assertEquals(Collections.singletonList("soapui.log"), entry.getAttachmentNames());
+    }
+
+    @Test
+    public void attachmentsAreCopiedIntoTheOutbox() throws IOException {
+        IssueOutbox outbox = new IssueOutbox(outboxDir);
+        OutboxEntry entry = outbox.add(draft("With files"), ATTEMPT_TIME, attachments("dir1/project.xml", "first", "dir2/project.xml", "second"));
+
+        assertEquals(Arrays.asList("project.xml", "1-project.xml"), entry.getAttachmentNames());
+        assertEquals("first", read(outbox.getAttachmentFile(entry, "project.xml")));
+        assertEquals("second", read(outbox.getAttachmentFile(entry, "1-project.xml")));
+    }
+
+    @Test
+    public void unreadableAttachmentsAreSkipped() throws IOException {
+        Map<String, Callable<InputStream>> attachments = attachments("soapui.log", "log content");
+        attachments.put("missing.xml", new Callable<InputStream>() {
+            @Override
+            public InputStream call() {
+                return null;
+            }
+        });
+
+        OutboxEntry entry = new IssueOutbox(outboxDir).add(draft("Missing file"), ATTEMPT_TIME, attachments);
+
+        assertEquals(Collections.singletonList("soapui.log"), entry.getAttachmentNames());
+    }
+
+    @Test
+    public void failedAttachmentLeavesNoEntry() throws IOException {
+        Map<String, Callable<InputStream>> attachments = attachments("soapui.log", "log content");
+        attachments.put("broken.xml", new Callable<InputStream>() {
+            @Override
+            public InputStream call() throws IOException {
+                throw new IOException("disk error");
+            }
+        });
+        IssueOutbox outbox = new IssueOutbox(outboxDir);
+
+        try {
+            outbox.add(draft("Broken"), ATTEMPT_TIME, attachments);
+            fail("The failure to read an attachment has to be passed to the caller");
+        } catch (IOException e) {
+            assertEquals("disk error", e.getMessage());
+        }
+
+        assertTrue(outbox.isEmpty());
+        assertTrue(new IssueOutbox(outboxDir).isEmpty());
+        assertArrayEquals(new String[0], new File(outboxDir, "payloads").list());
+    }
+
+    @Test
+    public void completedEntriesAreNotReplayed() throws IOException {
+        IssueOutbox outbox = new IssueOutbox(outboxDir);
+        OutboxEntry first = outbox.add(draft("First"), ATTEMPT_TIME, attachments("first.log", "1"));
+        OutboxEntry second = outbox.add(draft("Second"), ATTEMPT_TIME, attachments("second.log", "2"));
+
+        outbox.complete(first);
+
+        List<OutboxEntry> entries = new IssueOutbox(outboxDir).getPendingEntries();
+        assertEquals(1, entries.size());
+        assertEquals(second.getId(), entries.get(0).getId());
+        assertFalse(outbox.getAttachmentFile(first, "first.log").exists());
+        assertTrue(outbox.getAttachmentFile(second, "second.log").exists());
+    }
+
+    @Test
+    public void createdItemKeepsItsKeyAndTheFilesNotAttachedYet() throws IOException {
+        IssueOutbox outbox = new IssueOutbox(outboxDir);
+        OutboxEntry entry = outbox.add(draft("Created"), ATTEMPT_TIME, attachments("soapui.log", "log", "project.xml", "project"));
+
+        entry = outbox.markCreated(entry, "DEMO-7");
+        entry = outbox.markAttached(entry, "soapui.log");
+
+        assertEquals("DEMO-7", entry.getIssueKey());
+        assertEquals(Collections.singletonList("project.xml"), entry.getAttachmentNames());
+        assertFalse(outbox.getAttachmentFile(entry, "soapui.log").exists());
+        List<OutboxEntry> replayed = new IssueOutbox(outboxDir).getPendingEntries();
+        assertEquals(1, replayed.size());
+        assertEquals("DEMO-7", replayed.get(0).getIssueKey());
+        assertEquals(Collections.singletonList("project.xml"), replayed.get(0).getAttachmentNames());
+        assertEquals("project", read(outbox.getAttachmentFile(replayed.get(0), "project.xml")));
+    }
+
+    @Test
+    public void itemWithoutACreatedRecordIsNotCreatedYet() throws IOException {
+        new IssueOutbox(outboxDir).add(draft("Pending"), ATTEMPT_TIME, attachments("soapui.log", "log"));
+
+        OutboxEntry entry = new IssueOutbox(outboxDir).getPendingEntries().get(0);
+
+        assertNull(entry.getIssueKey());
+        assertEquals(Collections.singletonList("soapui.log"), entry.getAttachmentNames());
+    }
+
+    @Test
+    public void journalIsRemovedWhenEverythingIsCompleted() throws IOException {
+        IssueOutbox outbox = new IssueOutbox(outboxDir);
+        OutboxEntry entry = outbox.add(draft("Only"), ATTEMPT_TIME, attachments());
+
+        outbox.complete(entry);
+
+        assertTrue(outbox.isEmpty());
+        assertFalse(journal().exists());
+        assertTrue(new IssueOutbox(outboxDir).isEmpty());
+    }
+
+    @Test
+    public void entriesAreKeptInTheOrderTheyWereAdded() throws IOException {
+        IssueOutbox outbox = new IssueOutbox(outboxDir);
+        for (int i = 0; i < 5; i++) {
+            outbox.add(draft("Item " + i), ATTEMPT_TIME, attachments());
+        }
+
+        List<OutboxEntry> entries = new IssueOutbox(outboxDir).getPendingEntries();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Item " + i, entries.get(i).getIssueDraft().getSummary());
+        }
+    }
+
+    @Test
+    public void recordCutOffByACrashIsSkipped() throws IOException {
+        OutboxEntry written = new IssueOutbox(outboxDir).add(draft("Written"), ATTEMPT_TIME, attachments());
+        append("+{\"id\":12345,\"createdAt\":");
+
+        IssueOutbox reopened = new IssueOutbox(outboxDir);
+        OutboxEntry addedAfterCrash = reopened.add(draft("Added after the crash"), ATTEMPT_TIME, attachments());
+
+        List<OutboxEntry> entries = new IssueOutbox(outboxDir).getPendingEntries();
+        assertEquals(2, entries.size());
+        assertEquals(written.getId(), entries.get(0).getId());
+        assertEquals(addedAfterCrash.getId(), entries.get(1).getId());
+    }
+
+    @Test
+    public void completionCutOffByACrashKeepsTheEntry() throws IOException {
+        OutboxEntry entry = new IssueOutbox(outboxDir).add(draft("Pending"), ATTEMPT_TIME, attachments());
+        new IssueOutbox(outboxDir).add(draft("Other"), ATTEMPT_TIME, attachments());
+        String completion = "-" + entry.getId();
+        append(completion.substring(0, completion.length() - 1) + "x");
+
+        List<OutboxEntry> entries = new IssueOutbox(outboxDir).getPendingEntries();
+
+        assertEquals(2, entries.size());
+        assertEquals(entry.getId(), entries.get(0).getId());
+    }
+
+    @Test
+    public void payloadsWithoutAJournalRecordAreRemoved() throws IOException {
+        IssueOutbox outbox = new IssueOutbox(outboxDir);
+        OutboxEntry entry = outbox.add(draft("Kept"), ATTEMPT_TIME, attachments("kept.log", "kept"));
+        File payloads = new File(outboxDir, "payloads");
+        //a crash after the attachments were copied but before the record was written
+        File orphaned = new File(payloads, "1");
+        File unfinished = new File(payloads, "2.tmp");
+        Files.createDirectories(orphaned.toPath());
+        Files.createDirectories(unfinished.toPath());
+        Files.write(new File(orphaned, "orphaned.log").toPath(), "orphaned".getBytes(StandardCharsets.UTF_8));
+
+        new IssueOutbox(outboxDir);
+
+        assertFalse(orphaned.exists());
+        assertFalse(unfinished.exists());
+        assertEquals("kept", read(outbox.getAttachmentFile(entry, "kept.log")));
+    }
+
+    @Test
+    public void idsStayUniqueAfterReplay() throws IOException {
+        OutboxEntry first = new IssueOutbox(outboxDir).add(draft("First"), ATTEMPT_TIME, attachments());
+        OutboxEntry second = new IssueOutbox(outboxDir).add(draft("Second"), ATTEMPT_TIME, attachments());
+
+        assertTrue(second.getId() > first.getId());
+    }
+
+    @Test
+    public void entriesOfOlderVersionsAreSearchedForSinceShortlyBeforeTheyWereAdded() throws IOException {
+        Files.createDirectories(outboxDir.toPath());
+        append("+{\"id\":1,\"createdAt\":600000,\"project\":\"DEMO\",\"issueType\":\"Bug\",\"summary\":\"Old\",\"extraValues\":{},\"attachments\":[]}");
+
+        List<OutboxEntry> entries = new IssueOutbox(outboxDir).getPendingEntries();
+
+        assertEquals(1, entries.size());
+        assertEquals("Old", entries.get(0).getIssueDraft().getSummary());
+        assertEquals(0, entries.get(0).getFirstAttemptAt());
+    }
+
+    private static IssueDraft draft(String summary) {
+        return new IssueDraft("DEMO", "Bug", summary, null, null);
+    }
+
+    private static Map<String, Callable<InputStream>> attachments(String... namesAndContents) {
+        Map<String, Callable<InputStream>> attachments = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            final byte[] content = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+            attachments.put(namesAndContents[i], new Callable<InputStream>() {
+                @Override
+                public InputStream call() {
+                    return new ByteArrayInputStream(content);
+                }
+            });
+        }
+        return attachments;
+    }
+
+    private File journal() {
+        return new File(outboxDir, "journal");
+    }
+
+    private void append(String content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(journal(), true)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,119 @@
+package com.smartbear.ready.plugin.jira.retry;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+    private static final String RESOURCE = "rest/api/2/issue";
+
+    @Test
+    public void tooManyRequestsAreRejected() {
+        assertEquals(RetryPolicy.FailureType.REJECTED, RetryPolicy.classify(httpError(429, null)));
+    }
+
+    @Test
+    public void gatewayErrorsAreAmbiguous() {
+        assertEquals(RetryPolicy.FailureType.AMBIGUOUS, RetryPolicy.classify(httpError(502, null)));
+        assertEquals(RetryPolicy.FailureType.AMBIGUOUS, RetryPolicy.classify(httpError(503, null)));
+        assertEquals(RetryPolicy.FailureType.AMBIGUOUS, RetryPolicy.classify(httpError(504, null)));
+    }
+
+    @Test
+    public void otherStatusesArePermanent() {
+        assertEquals(RetryPolicy.FailureType.PERMANENT, RetryPolicy.classify(httpError(400, null)));
+        assertEquals(RetryPolicy.FailureType.PERMANENT, RetryPolicy.classify(httpError(401, null)));
+        assertEquals(RetryPolicy.FailureType.PERMANENT, RetryPolicy.classify(httpError(500, null)));
+    }
+
+    @Test
+    public void failedConnectionsAreRejected() {
+        assertEquals(RetryPolicy.FailureType.REJECTED, RetryPolicy.classify(new ConnectException("Connection refused")));
+        assertEquals(RetryPolicy.FailureType.REJECTED, RetryPolicy.classify(new ConnectTimeoutException("Connect timed out")));
+    }
+
+    @Test
+    public void otherIoFailuresAreAmbiguous() {
+        assertEquals(RetryPolicy.FailureType.AMBIGUOUS, RetryPolicy.classify(new SocketTimeoutException("Read timed out")));
+        assertEquals(RetryPolicy.FailureType.AMBIGUOUS, RetryPolicy.classify(new IOException("Connection reset")));
+    }
+
+    @Test
+    public void otherFailuresArePermanent() {
+        assertEquals(RetryPolicy.FailureType.PERMANENT, RetryPolicy.classify(new IllegalArgumentException("broken input")));
+    }
+
+    @Test
+    public void wrappedCausesAreClassified() {
+        assertEquals(RetryPolicy.FailureType.REJECTED, RetryPolicy.classify(new ExecutionException(new RuntimeException(new ConnectException()))));
+        assertEquals(RetryPolicy.FailureType.AMBIGUOUS, RetryPolicy.classify(new RuntimeException(httpError(503, null))));
+    }
+
+    @Test
+    public void retryAfterInSeconds() {
+        assertEquals(Long.valueOf(120000), RetryPolicy.getRetryAfterMillis(httpError(429, " 120 ")));
+    }
+
+    @Test
+    public void retryAfterAsAnHttpDate() {
+        SimpleDateFormat httpDate = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        httpDate.setTimeZone(TimeZone.getTimeZone("GMT"));
+        String inOneMinute = httpDate.format(new Date(System.currentTimeMillis() + 60000));
+
+        Long retryAfter = RetryPolicy.getRetryAfterMillis(new RuntimeException(httpError(503, inOneMinute)));
+
+        assertTrue(String.valueOf(retryAfter), retryAfter > 55000 && retryAfter <= 60000);
+    }
+
+    @Test
+    public void retryAfterInThePastIsZero() {
+        assertEquals(Long.valueOf(0), RetryPolicy.getRetryAfterMillis(httpError(503, "Thu, 01 Jan 1970 00:00:00 GMT")));
+    }
+
+    @Test
+    public void missingOrInvalidRetryAfterIsIgnored() {
+        assertNull(RetryPolicy.getRetryAfterMillis(httpError(503, null)));
+        assertNull(RetryPolicy.getRetryAfterMillis(httpError(503, "soon")));
+        assertNull(RetryPolicy.getRetryAfterMillis(new IOException()));
+    }
+
+    @Test
+    public void delaysStayWithinTheGrowingBackoff() {
+        RetryPolicy retryPolicy = new RetryPolicy(10, 100, 1000);
+        for (int i = 0; i < 100; i++) {
+            assertBetween(0, 100, retryPolicy.getDelayMillis(1, new IOException()));
+            assertBetween(0, 200, retryPolicy.getDelayMillis(2, new IOException()));
+            assertBetween(0, 400, retryPolicy.getDelayMillis(3, new IOException()));
+            assertBetween(0, 1000, retryPolicy.getDelayMillis(5, new IOException()));
+            assertBetween(0, 1000, retryPolicy.getDelayMillis(100, new IOException()));
+        }
+    }
+
+    @Test
+    public void delaysDoNotUndercutRetryAfter() {
+        RetryPolicy retryPolicy = new RetryPolicy(10, 100, 1000);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(5000, retryPolicy.getDelayMillis(1, httpError(429, "5")));
+        }
+    }
+
+    private static JiraHttpException httpError(int statusCode, String retryAfter) {
+        return new JiraHttpException(statusCode, "Status " + statusCode, RESOURCE, retryAfter);
+    }
+
+    private static void assertBetween(long min, long max, long value) {
+        assertTrue(value + " is not between " + min + " and " + max, value >= min && value <= max);
+    }
+}
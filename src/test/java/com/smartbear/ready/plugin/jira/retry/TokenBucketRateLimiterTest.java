@@ -0,0 +1,84 @@
+package com.smartbear.ready.plugin.jira.retry;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    public void burstWithinTheCapacityIsNotDelayed() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 3);
+
+        assertEquals(0, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+        assertEquals(0, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+        assertEquals(0, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void reservationsBeyondTheCapacityWaitForTheDebt() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 1);
+        rateLimiter.reserve(TimeUnit.MILLISECONDS);
+
+        assertBetween(900, 1000, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+        assertBetween(1900, 2000, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void capacityIsAtLeastOnePermit() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 0);
+
+        assertEquals(0, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+        assertBetween(90, 100, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void permitsAreRefilled() throws InterruptedException {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(100, 1);
+        rateLimiter.reserve(TimeUnit.MILLISECONDS);
+
+        Thread.sleep(50);
+
+        assertEquals(0, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void pauseDelaysTheNextReservation() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 5);
+        rateLimiter.pause(3, TimeUnit.SECONDS);
+
+        assertBetween(3900, 4000, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void pauseDoesNotShortenAnExistingDebt() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 1);
+        rateLimiter.reserve(TimeUnit.MILLISECONDS);
+        rateLimiter.reserve(TimeUnit.MILLISECONDS);
+        rateLimiter.reserve(TimeUnit.MILLISECONDS);
+
+        rateLimiter.pause(1, TimeUnit.SECONDS);
+
+        assertBetween(2900, 3000, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void unlimitedNeverDelays() {
+        TokenBucketRateLimiter rateLimiter = TokenBucketRateLimiter.unlimited();
+        rateLimiter.pause(1, TimeUnit.MINUTES);
+
+        assertTrue(rateLimiter.isUnlimited());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, rateLimiter.reserve(TimeUnit.MILLISECONDS));
+        }
+        assertFalse(new TokenBucketRateLimiter(1, 1).isUnlimited());
+    }
+
+    private static void assertBetween(long min, long max, long value) {
+        assertTrue(value + " is not between " + min + " and " + max, value >= min && value <= max);
+    }
+}
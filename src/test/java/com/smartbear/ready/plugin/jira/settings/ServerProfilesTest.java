@@ -0,0 +1,75 @@
+package com.smartbear.ready.plugin.jira.settings;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ServerProfilesTest {
+    private static final String PROFILES = "# staging servers\n"
+            + "staging = https://staging.example.com, alice\n"
+            + "\n"
+            + "qa = https://qa.example.com, bob";
+
+    @Test
+    public void passwordsAreTakenFromTheirOwnSetting() {
+        Map<String, String> passwords = new HashMap<>();
+        passwords.put("staging", "secret, with a comma");
+
+        Map<String, BugTrackerSettings> profiles = ServerProfiles.parse(PROFILES, passwords);
+
+        assertEquals(Arrays.asList("staging", "qa"), ServerProfiles.parseNames(PROFILES));
+        assertEquals("https://staging.example.com", profiles.get("staging").getUrl());
+        assertEquals("alice", profiles.get("staging").getLogin());
+        assertEquals("secret, with a comma", profiles.get("staging").getPassword());
+        assertEquals("", profiles.get("qa").getPassword());
+    }
+
+    @Test
+    public void linesOfEarlierVersionsKeepTheirPasswords() {
+        Map<String, BugTrackerSettings> profiles = ServerProfiles.parse("old = https://old.example.com, carol, pass,word",
+                Collections.<String, String>emptyMap());
+
+        assertEquals("carol", profiles.get("old").getLogin());
+        assertEquals("pass,word", profiles.get("old").getPassword());
+    }
+
+    @Test
+    public void invalidLinesAreSkipped() {
+        assertTrue(ServerProfiles.parseNames("no separator\nonly = https://url.example.com").isEmpty());
+    }
+
+    @Test
+    public void passwordsAreMovedOutOfTheLines() {
+        Map<String, String> passwords = new LinkedHashMap<>();
+        passwords.put("qa", "kept");
+
+        String profiles = ServerProfiles.movePasswords("# comment, with, commas\n"
+                + "old = https://old.example.com, carol, pass,word\n"
+                + "qa = https://qa.example.com, bob", passwords);
+
+        assertEquals("# comment, with, commas\n"
+                + "old = https://old.example.com, carol\n"
+                + "qa = https://qa.example.com, bob", profiles);
+        assertEquals("pass,word", passwords.get("old"));
+        assertEquals("kept", passwords.get("qa"));
+        assertEquals("pass,word", ServerProfiles.parse(profiles, passwords).get("old").getPassword());
+    }
+
+    @Test
+    public void passwordsSurviveTheirSerialization() {
+        Map<String, String> passwords = new LinkedHashMap<>();
+        passwords.put("staging", "a=b");
+        passwords.put("qa", "");
+
+        assertEquals(passwords, ServerProfiles.parsePasswords(ServerProfiles.serializePasswords(passwords)));
+        assertTrue(ServerProfiles.parsePasswords("").isEmpty());
+        assertTrue(ServerProfiles.parsePasswords(null).isEmpty());
+    }
+}
@@ -0,0 +1,843 @@
+package com.smartbear.ready.plugin.jira.standin;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.smartbear.ready.plugin.jira.retry.RetryPolicy;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local HTTP server implementing the part of the JIRA REST API the plugin uses: serverInfo, projects,
+ * project search, priorities, create metadata, creating, getting and searching items and attachments.
+ * Latency, server errors and 429 responses can be injected, so the provider can be tested and loaded
+ * without a live JIRA. Random failures are meant for load, failures of the next requests of a route for tests.
+ */
+public class JiraStandIn {
+    private static final Logger logger = LoggerFactory.getLogger(JiraStandIn.class);
+
+    public static final String LOGIN = "standin";
+    public static final String PASSWORD = "standin";
+    public static final String[] ISSUE_TYPES = {"Bug", "Task", "Improvement"};
+    public static final String SELECT_FIELD_ID = "customfield_10000";
+    public static final String TEXT_FIELD_ID = "customfield_10001";
+
+    public static final String CREATE_ROUTE = "issue create";
+    public static final String BULK_CREATE_ROUTE = "issue/bulk";
+    public static final String ATTACH_ROUTE = "issue/{key}/attachments";
+    public static final String SEARCH_ROUTE = "search";
+
+    private static final String API_PATH = "/rest/api/2/";
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final String LOST_RESPONSE = "standin.lostResponse";
+    private static final Pattern CLAUSE_SEPARATOR = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PROJECT_CLAUSE = Pattern.compile("project\\s*=\\s*(?:\"([^\"]*)\"|(\\w+))");
+    private static final Pattern SUMMARY_PHRASE_CLAUSE = Pattern.compile("summary\\s*~\\s*\"\\\\\"([^\"\\\\]*)\\\\\"\"");
+    private static final Pattern SUMMARY_WORDS_CLAUSE = Pattern.compile("summary\\s*~\\s*\"([^\"\\\\]*)\"");
+    private static final Pattern LABEL_CLAUSE = Pattern.compile("labels\\s*=\\s*(?:\"([^\"]*)\"|([^\\s\"]+))");
+    private static final Pattern REPORTER_CLAUSE = Pattern.compile("reporter\\s*=\\s*(?:currentUser\\(\\)|\"([^\"]*)\"|(\\w+))");
+    private static final Pattern CREATED_CLAUSE = Pattern.compile("created\\s*>=\\s*\"?-(\\d+)([mhd])\"?");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int projectCount;
+    private final int optionCount;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile long minLatencyMillis;
+    private volatile long maxLatencyMillis;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile int retryAfterSeconds = 1;
+
+    private final AtomicInteger issueIds = new AtomicInteger(10000);
+    private final ConcurrentMap<String, StoredIssue> issuesByKey = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, StoredIssue> issuesById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> issueNumbers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> requests = new ConcurrentHashMap<>();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong injectedThrottles = new AtomicLong();
+    private final AtomicLong attachedBytes = new AtomicLong();
+    private final ConcurrentMap<String, AtomicInteger> throttledRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> lostResponses = new ConcurrentHashMap<>();
+
+    public JiraStandIn(int projectCount, int optionCount) throws IOException {
+        this.projectCount = projectCount;
+        this.optionCount = optionCount;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("jira-standin-%d").setDaemon(true).build());
+        server.setExecutor(executor);
+        server.createContext(API_PATH, new ApiHandler());
+    }
+
+    public JiraStandIn start() {
+        server.start();
+        logger.info("JIRA stand-in is listening at " + getUrl());
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /*
+    * Every response is delayed by a random time between the given bounds.
+    * */
+    public void setLatency(long minMillis, long maxMillis) {
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = Math.max(minMillis, maxMillis);
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setThrottleRate(double throttleRate, int retryAfterSeconds) {
+        this.throttleRate = throttleRate;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /*
+    * The next requests of the route are answered with 429 and the given Retry-After before they are processed.
+    * */
+    public void throttleNextRequests(String route, int count, int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        inject(throttledRequests, route, count);
+    }
+
+    /*
+    * The next requests of the route are processed, but answered with 503, as if the response was lost on the way back.
+    * */
+    public void loseNextResponses(String route, int count) {
+        inject(lostResponses, route, count);
+    }
+
+    private static void inject(ConcurrentMap<String, AtomicInteger> injections, String route, int count) {
+        AtomicInteger remaining = injections.putIfAbsent(route, new AtomicInteger(count));
+        if (remaining != null) {
+            remaining.addAndGet(count);
+        }
+    }
+
+    private static boolean takeInjected(ConcurrentMap<String, AtomicInteger> injections, String route) {
+        AtomicInteger remaining = injections.get(route);
+        if (remaining == null) {
+            return false;
+        }
+        while (true) {
+            int count = remaining.get();
+            if (count <= 0) {
+                return false;
+            }
+            if (remaining.compareAndSet(count, count - 1)) {
+                return true;
+            }
+        }
+    }
+
+    public static String getProjectKey(int index) {
+        return "P" + index;
+    }
+
+    public int getIssueCount() {
+        return issuesByKey.size();
+    }
+
+    public long getRequests(String route) {
+        AtomicLong count = requests.get(route);
+        return count == null ? 0 : count.get();
+    }
+
+    public String getStatistics() {
+        return String.format("JIRA stand-in: requests %s, %d items, %d attached bytes, %d injected errors, %d injected 429s",
+                new TreeMap<>(requests), issuesByKey.size(), attachedBytes.get(), injectedErrors.get(), injectedThrottles.get());
+    }
+
+    private class ApiHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String path = exchange.getRequestURI().getPath().substring(API_PATH.length());
+                String[] segments = path.split("/");
+                String method = exchange.getRequestMethod();
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                byte[] body = readBody(exchange.getRequestBody());
+
+                String route = getRoute(path, segments, method);
+                count(route);
+
+                delay();
+                double chance = ThreadLocalRandom.current().nextDouble();
+                if (chance < throttleRate || takeInjected(throttledRequests, route)) {
+                    injectedThrottles.incrementAndGet();
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                    send(exchange, RetryPolicy.TOO_MANY_REQUESTS, errorMessages("Rate limit exceeded"));
+                    return;
+                }
+                if (chance < throttleRate + errorRate) {
+                    injectedErrors.incrementAndGet();
+                    send(exchange, SERVICE_UNAVAILABLE, errorMessages("Injected server error"));
+                    return;
+                }
+                if (takeInjected(lostResponses, route)) {
+                    injectedErrors.incrementAndGet();
+                    exchange.setAttribute(LOST_RESPONSE, Boolean.TRUE);
+                }
+
+                if (route.equals("serverInfo")) {
+                    send(exchange, 200, serverInfo());
+                } else if (route.equals("project")) {
+                    send(exchange, 200, projects());
+                } else if (route.equals("project/search")) {
+                    send(exchange, 200, searchProjects(query.get("query"), getInt(query, "maxResults", 50)));
+                } else if (route.equals("project/{key}")) {
+                    sendOrNotFound(exchange, project(segments[1]));
+                } else if (route.equals("priority")) {
+                    send(exchange, 200, priorities());
+                } else if (route.equals("issue/createmeta")) {
+                    send(exchange, 200, createMeta(query.get("projectKeys"), query.get("issuetypeNames")));
+                } else if (route.equals("issue/createmeta/{project}/issuetypes/{id}")) {
+                    sendOrNotFound(exchange, issueTypeCreateMeta(segments[2], segments[4], getInt(query, "startAt", 0), getInt(query, "maxResults", 50)));
+                } else if (route.equals(CREATE_ROUTE)) {
+                    createIssue(exchange, body);
+                } else if (route.equals(BULK_CREATE_ROUTE)) {
+                    createIssues(exchange, body);
+                } else if (route.equals(ATTACH_ROUTE)) {
+                    attachedBytes.addAndGet(body.length);
+                    sendOrNotFound(exchange, findIssue(segments[1]) == null ? null : new JSONArray().toString());
+                } else if (route.equals("issue/{key}")) {
+                    StoredIssue issue = findIssue(segments[1]);
+                    sendOrNotFound(exchange, issue == null ? null : issue.toJson().toString());
+                } else if (route.equals(SEARCH_ROUTE)) {
+                    String jql = method.equals("POST") ? new JSONObject(new String(body, StandardCharsets.UTF_8)).optString("jql") : query.get("jql");
+                    search(exchange, jql);
+                } else {
+                    send(exchange, 404, errorMessages("Unknown resource " + path));
+                }
+            } catch (JSONException e) {
+                send(exchange, 400, errorMessages("Invalid JSON: " + e.getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.close();
+            } catch (RuntimeException e) {
+                logger.error("The JIRA stand-in failed to handle " + exchange.getRequestURI(), e);
+                send(exchange, 500, errorMessages(String.valueOf(e.getMessage())));
+            }
+        }
+    }
+
+    private static String getRoute(String path, String[] segments, String method) {
+        if (segments[0].equals("serverInfo")) {
+            return "serverInfo";
+        } else if (path.equals("project")) {
+            return "project";
+        } else if (path.equals("project/search")) {
+            return "project/search";
+        } else if (segments[0].equals("project") && segments.length == 2) {
+            return "project/{key}";
+        } else if (path.equals("priority")) {
+            return "priority";
+        } else if (path.equals("issue/createmeta")) {
+            return "issue/createmeta";
+        } else if (path.startsWith("issue/createmeta/") && segments.length == 5) {
+            return "issue/createmeta/{project}/issuetypes/{id}";
+        } else if (path.equals("issue") && method.equals("POST")) {
+            return CREATE_ROUTE;
+        } else if (path.equals("issue/bulk") && method.equals("POST")) {
+            return BULK_CREATE_ROUTE;
+        } else if (segments[0].equals("issue") && segments.length == 3 && segments[2].equals("attachments") && method.equals("POST")) {
+            return ATTACH_ROUTE;
+        } else if (segments[0].equals("issue") && segments.length == 2) {
+            return "issue/{key}";
+        } else if (path.equals("search")) {
+            return SEARCH_ROUTE;
+        }
+        return "unknown";
+    }
+
+    private void delay() throws InterruptedException {
+        long maxMillis = maxLatencyMillis;
+        long minMillis = minLatencyMillis;
+        long millis = maxMillis > minMillis ? minMillis + ThreadLocalRandom.current().nextLong(maxMillis - minMillis + 1) : minMillis;
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private void count(String route) {
+        AtomicLong count = requests.get(route);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = requests.putIfAbsent(route, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    private String getBaseUrl() {
+        return getUrl() + API_PATH.substring(1);
+    }
+
+    private boolean isKnownProject(String projectKey) {
+        for (int i = 0; i < projectCount; i++) {
+            if (getProjectKey(i).equals(projectKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String serverInfo() throws JSONException {
+        return new JSONObject()
+                .put("baseUrl", getUrl())
+                .put("version", "7.13.0")
+                .put("versionNumbers", new JSONArray().put(7).put(13).put(0))
+                .put("buildNumber", 713000)
+                .put("buildDate", formatDate(new Date()))
+                .put("serverTime", formatDate(new Date()))
+                .put("scmInfo", "standin")
+                .put("serverTitle", "JIRA stand-in")
+                .toString();
+    }
+
+    private JSONObject basicProject(String projectKey) throws JSONException {
+        return new JSONObject()
+                .put("self", getBaseUrl() + "project/" + projectKey)
+                .put("id", String.valueOf(10000 + Integer.parseInt(projectKey.substring(1))))
+                .put("key", projectKey)
+                .put("name", "Stand-in project " + projectKey);
+    }
+
+    private String projects() throws JSONException {
+        JSONArray projects = new JSONArray();
+        for (int i = 0; i < projectCount; i++) {
+            projects.put(basicProject(getProjectKey(i)));
+        }
+        return projects.toString();
+    }
+
+    private String searchProjects(String searchedText, int maxResults) throws JSONException {
+        String searched = searchedText == null ? "" : searchedText.toLowerCase(Locale.ENGLISH);
+        JSONArray projects = new JSONArray();
+        int total = 0;
+        for (int i = 0; i < projectCount; i++) {
+            String projectKey = getProjectKey(i);
+            if (projectKey.toLowerCase(Locale.ENGLISH).contains(searched)) {
+                if (total < maxResults) {
+                    projects.put(basicProject(projectKey));
+                }
+                total++;
+            }
+        }
+        return new JSONObject()
+                .put("startAt", 0)
+                .put("maxResults", maxResults)
+                .put("total", total)
+                .put("isLast", total <= maxResults)
+                .put("values", projects)
+                .toString();
+    }
+
+    private JSONObject issueType(int index) throws JSONException {
+        return new JSONObject()
+                .put("self", getBaseUrl() + "issuetype/" + (index + 1))
+                .put("id", String.valueOf(index + 1))
+                .put("name", ISSUE_TYPES[index])
+                .put("description", ISSUE_TYPES[index] + " of the stand-in")
+                .put("subtask", false)
+                .put("iconUrl", getUrl() + "images/icons/issuetypes/" + (index + 1) + ".png");
+    }
+
+    private int getIssueTypeIndex(String idOrName) {
+        for (int i = 0; i < ISSUE_TYPES.length; i++) {
+            if (ISSUE_TYPES[i].equals(idOrName) || String.valueOf(i + 1).equals(idOrName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String project(String projectKey) throws JSONException {
+        if (!isKnownProject(projectKey)) {
+            return null;
+        }
+        JSONArray issueTypes = new JSONArray();
+        for (int i = 0; i < ISSUE_TYPES.length; i++) {
+            issueTypes.put(issueType(i));
+        }
+        return basicProject(projectKey)
+                .put("description", "Project of the JIRA stand-in")
+                .put("lead", user("lead"))
+                .put("versions", new JSONArray())
+                .put("components", new JSONArray())
+                .put("issueTypes", issueTypes)
+                .put("roles", new JSONObject())
+                .toString();
+    }
+
+    private JSONObject user(String name) throws JSONException {
+        return new JSONObject()
+                .put("self", getBaseUrl() + "user?username=" + name)
+                .put("name", name)
+                .put("displayName", name)
+                .put("active", true);
+    }
+
+    private JSONObject priority(int index) throws JSONException {
+        return new JSONObject()
+                .put("self", getBaseUrl() + "priority/" + (index + 1))
+                .put("id", String.valueOf(index + 1))
+                .put("name", getPriorityName(index))
+                .put("statusColor", "#cc0000")
+                .put("description", getPriorityName(index))
+                .put("iconUrl", getUrl() + "images/icons/priorities/" + (index + 1) + ".png");
+    }
+
+    private static String getPriorityName(int index) {
+        return new String[]{"Blocker", "Critical", "Major", "Minor", "Trivial"}[index];
+    }
+
+    private String priorities() throws JSONException {
+        JSONArray priorities = new JSONArray();
+        for (int i = 0; i < 5; i++) {
+            priorities.put(priority(i));
+        }
+        return priorities.toString();
+    }
+
+    private Map<String, JSONObject> fields(String projectKey, int issueTypeIndex) throws JSONException {
+        Map<String, JSONObject> fields = new LinkedHashMap<>();
+        fields.put("summary", field("Summary", true, new JSONObject().put("type", "string").put("system", "summary"), null));
+        fields.put("issuetype", field("Issue Type", true, new JSONObject().put("type", "issuetype").put("system", "issuetype"),
+                new JSONArray().put(issueType(issueTypeIndex))));
+        fields.put("project", field("Project", true, new JSONObject().put("type", "project").put("system", "project"),
+                new JSONArray().put(basicProject(projectKey))));
+        fields.put("description", field("Description", false, new JSONObject().put("type", "string").put("system", "description"), null));
+        fields.put("labels", field("Labels", false, new JSONObject().put("type", "array").put("items", "string").put("system", "labels"), null));
+        JSONArray priorities = new JSONArray();
+        for (int i = 0; i < 5; i++) {
+            priorities.put(priority(i));
+        }
+        fields.put("priority", field("Priority", false, new JSONObject().put("type", "priority").put("system", "priority"), priorities));
+        JSONArray options = new JSONArray();
+        for (int i = 0; i < optionCount; i++) {
+            options.put(new JSONObject()
+                    .put("self", getBaseUrl() + "customFieldOption/" + (20000 + i))
+                    .put("id", String.valueOf(20000 + i))
+                    .put("value", "Option " + i));
+        }
+        fields.put(SELECT_FIELD_ID, field("Environment", false, new JSONObject().put("type", "option")
+                .put("custom", "com.atlassian.jira.plugin.system.customfieldtypes:select").put("customId", 10000), options));
+        fields.put(TEXT_FIELD_ID, field("Build", false, new JSONObject().put("type", "string")
+                .put("custom", "com.atlassian.jira.plugin.system.customfieldtypes:textfield").put("customId", 10001), null));
+        return fields;
+    }
+
+    private static JSONObject field(String name, boolean required, JSONObject schema, JSONArray allowedValues) throws JSONException {
+        JSONObject field = new JSONObject()
+                .put("required", required)
+                .put("schema", schema)
+                .put("name", name)
+                .put("hasDefaultValue", false)
+                .put("operations", new JSONArray().put("set"));
+        if (allowedValues != null) {
+            field.put("allowedValues", allowedValues);
+        }
+        return field;
+    }
+
+    private String createMeta(String projectKeys, String issueTypeNames) throws JSONException {
+        JSONArray projects = new JSONArray();
+        if (projectKeys != null) {
+            for (String projectKey : projectKeys.split(",")) {
+                if (!isKnownProject(projectKey)) {
+                    continue;
+                }
+                JSONArray issueTypes = new JSONArray();
+                for (int i = 0; i < ISSUE_TYPES.length; i++) {
+                    if (issueTypeNames != null && !issueTypeNames.contains(ISSUE_TYPES[i])) {
+                        continue;
+                    }
+                    JSONObject fields = new JSONObject();
+                    for (Map.Entry<String, JSONObject> field : fields(projectKey, i).entrySet()) {
+                        fields.put(field.getKey(), field.getValue());
+                    }
+                    issueTypes.put(issueType(i).put("fields", fields));
+                }
+                projects.put(basicProject(projectKey).put("issuetypes", issueTypes));
+            }
+        }
+        return new JSONObject().put("expand", "projects").put("projects", projects).toString();
+    }
+
+    private String issueTypeCreateMeta(String projectKey, String issueTypeId, int startAt, int maxResults) throws JSONException {
+        int issueTypeIndex = getIssueTypeIndex(issueTypeId);
+        if (!isKnownProject(projectKey) || issueTypeIndex < 0) {
+            return null;
+        }
+        List<Map.Entry<String, JSONObject>> fields = new ArrayList<>(fields(projectKey, issueTypeIndex).entrySet());
+        JSONArray values = new JSONArray();
+        for (int i = startAt; i < Math.min(fields.size(), startAt + maxResults); i++) {
+            values.put(fields.get(i).getValue().put("fieldId", fields.get(i).getKey()).put("key", fields.get(i).getKey()));
+        }
+        return new JSONObject()
+                .put("startAt", startAt)
+                .put("maxResults", maxResults)
+                .put("total", fields.size())
+                .put("isLast", startAt + maxResults >= fields.size())
+                .put("values", values)
+                .toString();
+    }
+
+    private void createIssue(HttpExchange exchange, byte[] body) throws IOException, JSONException {
+        JSONObject fields = new JSONObject(new String(body, StandardCharsets.UTF_8)).getJSONObject("fields");
+        String error = validate(fields);
+        if (error != null) {
+            send(exchange, 400, new JSONObject().put("errorMessages", new JSONArray()).put("errors", new JSONObject().put("fields", error)).toString());
+            return;
+        }
+        send(exchange, 201, store(fields).toBasicJson().toString());
+    }
+
+    private void createIssues(HttpExchange exchange, byte[] body) throws IOException, JSONException {
+        JSONArray issueUpdates = new JSONObject(new String(body, StandardCharsets.UTF_8)).getJSONArray("issueUpdates");
+        JSONArray issues = new JSONArray();
+        JSONArray errors = new JSONArray();
+        for (int i = 0; i < issueUpdates.length(); i++) {
+            JSONObject fields = issueUpdates.getJSONObject(i).getJSONObject("fields");
+            String error = validate(fields);
+            if (error == null) {
+                issues.put(store(fields).toBasicJson());
+            } else {
+                errors.put(new JSONObject()
+                        .put("status", 400)
+                        .put("failedElementNumber", i)
+                        .put("elementErrors", new JSONObject().put("errorMessages", new JSONArray().put(error)).put("errors", new JSONObject())));
+            }
+        }
+        send(exchange, 201, new JSONObject().put("issues", issues).put("errors", errors).toString());
+    }
+
+    private String validate(JSONObject fields) throws JSONException {
+        JSONObject project = fields.optJSONObject("project");
+        if (project == null || !isKnownProject(project.optString("key"))) {
+            return "Unknown project";
+        }
+        JSONObject issueType = fields.optJSONObject("issuetype");
+        if (issueType == null || getIssueTypeIndex(issueType.has("id") ? issueType.getString("id") : issueType.optString("name")) < 0) {
+            return "Unknown item type";
+        }
+        if (fields.optString("summary").isEmpty()) {
+            return "Summary is required";
+        }
+        return null;
+    }
+
+    private StoredIssue store(JSONObject fields) throws JSONException {
+        String projectKey = fields.getJSONObject("project").getString("key");
+        AtomicInteger numbers = issueNumbers.get(projectKey);
+        if (numbers == null) {
+            AtomicInteger newNumbers = new AtomicInteger();
+            numbers = issueNumbers.putIfAbsent(projectKey, newNumbers);
+            if (numbers == null) {
+                numbers = newNumbers;
+            }
+        }
+        JSONObject issueType = fields.getJSONObject("issuetype");
+        List<String> labels = new ArrayList<>();
+        JSONArray labelValues = fields.optJSONArray("labels");
+        for (int i = 0; labelValues != null && i < labelValues.length(); i++) {
+            labels.add(labelValues.getString(i));
+        }
+        StoredIssue issue = new StoredIssue(String.valueOf(issueIds.incrementAndGet()), projectKey + "-" + numbers.incrementAndGet(), projectKey,
+                getIssueTypeIndex(issueType.has("id") ? issueType.getString("id") : issueType.optString("name")),
+                fields.getString("summary"), fields.optString("description"), labels, new Date());
+        issuesById.put(issue.id, issue);
+        issuesByKey.put(issue.key, issue);
+        return issue;
+    }
+
+    private StoredIssue findIssue(String idOrKey) {
+        StoredIssue issue = issuesByKey.get(idOrKey);
+        return issue != null ? issue : issuesById.get(idOrKey);
+    }
+
+    /*
+    * Clauses joined with AND are understood: project, a summary phrase or words, a label, the reporter and the creation age.
+    * Any other query is answered with 400, so a query the stand-in does not filter by cannot pass unnoticed.
+    * */
+    private void search(HttpExchange exchange, String jql) throws IOException, JSONException {
+        SearchQuery searchQuery = SearchQuery.parse(jql == null ? "" : jql.trim());
+        if (searchQuery == null) {
+            send(exchange, 400, errorMessages("The JIRA stand-in does not understand the query " + jql));
+            return;
+        }
+        JSONArray issues = new JSONArray();
+        for (StoredIssue issue : issuesByKey.values()) {
+            if (searchQuery.matches(issue)) {
+                issues.put(issue.toJson());
+            }
+        }
+        send(exchange, 200, new JSONObject()
+                .put("expand", "names,schema")
+                .put("startAt", 0)
+                .put("maxResults", issues.length())
+                .put("total", issues.length())
+                .put("issues", issues)
+                .toString());
+    }
+
+    private static class SearchQuery {
+        String projectKey;
+        List<String> summaryWords;
+        boolean summaryPhrase;
+        String label;
+        String reporter;
+        long createdSince;
+
+        static SearchQuery parse(String jql) {
+            SearchQuery searchQuery = new SearchQuery();
+            Matcher matcher = PROJECT_CLAUSE.matcher(jql);
+            int position = 0;
+            while (position < jql.length()) {
+                if (lookingAt(matcher.usePattern(PROJECT_CLAUSE), position)) {
+                    searchQuery.projectKey = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+                } else if (lookingAt(matcher.usePattern(SUMMARY_PHRASE_CLAUSE), position)) {
+                    searchQuery.summaryWords = getWords(matcher.group(1));
+                    searchQuery.summaryPhrase = true;
+                } else if (lookingAt(matcher.usePattern(SUMMARY_WORDS_CLAUSE), position)) {
+                    searchQuery.summaryWords = getWords(matcher.group(1));
+                } else if (lookingAt(matcher.usePattern(LABEL_CLAUSE), position)) {
+                    searchQuery.label = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+                } else if (lookingAt(matcher.usePattern(REPORTER_CLAUSE), position)) {
+                    //all items are reported by the only user of the stand-in
+                    searchQuery.reporter = matcher.group(1) != null ? matcher.group(1) : matcher.group(2) != null ? matcher.group(2) : LOGIN;
+                } else if (lookingAt(matcher.usePattern(CREATED_CLAUSE), position)) {
+                    TimeUnit unit = matcher.group(2).equals("m") ? TimeUnit.MINUTES : matcher.group(2).equals("h") ? TimeUnit.HOURS : TimeUnit.DAYS;
+                    searchQuery.createdSince = System.currentTimeMillis() - unit.toMillis(Long.parseLong(matcher.group(1)));
+                } else {
+                    return null;
+                }
+                position = matcher.end();
+                if (position < jql.length()) {
+                    if (!lookingAt(matcher.usePattern(CLAUSE_SEPARATOR), position)) {
+                        return null;
+                    }
+                    position = matcher.end();
+                }
+            }
+            return searchQuery;
+        }
+
+        private static boolean lookingAt(Matcher matcher, int position) {
+            //the end of the region is kept when the pattern changes, so it stays the end of the query
+            matcher.region(position, matcher.regionEnd());
+            return matcher.lookingAt();
+        }
+
+        /*
+        * JIRA matches words, not characters: case is ignored and a phrase may be a part of a longer summary.
+        * */
+        boolean matches(StoredIssue issue) {
+            if (projectKey != null && !projectKey.equals(issue.projectKey)) {
+                return false;
+            }
+            if (label != null && !issue.labels.contains(label)) {
+                return false;
+            }
+            if (reporter != null && !reporter.equals(LOGIN)) {
+                return false;
+            }
+            if (issue.created.getTime() < createdSince) {
+                return false;
+            }
+            if (summaryWords != null) {
+                List<String> issueWords = getWords(issue.summary);
+                if (summaryPhrase ? Collections.indexOfSubList(issueWords, summaryWords) < 0 : !issueWords.containsAll(summaryWords)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static List<String> getWords(String text) {
+            List<String> words = new ArrayList<>();
+            for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ENGLISH))) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+            return words;
+        }
+    }
+
+    private class StoredIssue {
+        final String id;
+        final String key;
+        final String projectKey;
+        final int issueTypeIndex;
+        final String summary;
+        final String description;
+        final List<String> labels;
+        final Date created;
+
+        StoredIssue(String id, String key, String projectKey, int issueTypeIndex, String summary, String description, List<String> labels, Date created) {
+            this.id = id;
+            this.key = key;
+            this.projectKey = projectKey;
+            this.issueTypeIndex = issueTypeIndex;
+            this.summary = summary;
+            this.description = description;
+            this.labels = labels;
+            this.created = created;
+        }
+
+        JSONObject toBasicJson() throws JSONException {
+            return new JSONObject()
+                    .put("id", id)
+                    .put("key", key)
+                    .put("self", getBaseUrl() + "issue/" + id);
+        }
+
+        JSONObject toJson() throws JSONException {
+            String date = formatDate(created);
+            JSONObject fields = new JSONObject()
+                    .put("summary", summary)
+                    .put("description", description)
+                    .put("project", basicProject(projectKey))
+                    .put("issuetype", issueType(issueTypeIndex))
+                    .put("status", new JSONObject()
+                            .put("self", getBaseUrl() + "status/1")
+                            .put("id", "1")
+                            .put("name", "Open")
+                            .put("description", "The item is open")
+                            .put("iconUrl", getUrl() + "images/icons/statuses/open.png"))
+                    .put("priority", priority(2))
+                    .put("reporter", user(LOGIN))
+                    .put("assignee", JSONObject.NULL)
+                    .put("resolution", JSONObject.NULL)
+                    .put("created", date)
+                    .put("updated", date)
+                    .put("labels", new JSONArray(labels))
+                    .put("components", new JSONArray())
+                    .put("versions", new JSONArray())
+                    .put("fixVersions", new JSONArray())
+                    .put("attachment", new JSONArray())
+                    .put("issuelinks", new JSONArray())
+                    .put("subtasks", new JSONArray())
+                    .put("comment", new JSONObject().put("startAt", 0).put("maxResults", 0).put("total", 0).put("comments", new JSONArray()))
+                    .put("worklog", new JSONObject().put("startAt", 0).put("maxResults", 0).put("total", 0).put("worklogs", new JSONArray()))
+                    .put("votes", new JSONObject().put("self", getBaseUrl() + "issue/" + key + "/votes").put("votes", 0).put("hasVoted", false))
+                    .put("watches", new JSONObject().put("self", getBaseUrl() + "issue/" + key + "/watchers").put("watchCount", 0).put("isWatching", false));
+            return toBasicJson()
+                    .put("expand", "names,schema")
+                    .put("fields", fields);
+        }
+    }
+
+    private static String formatDate(Date date) {
+        return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ", Locale.ENGLISH).format(date);
+    }
+
+    private static String errorMessages(String message) {
+        try {
+            return new JSONObject().put("errorMessages", new JSONArray().put(message)).put("errors", new JSONObject()).toString();
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int getInt(Map<String, String> query, String name, int defaultValue) {
+        try {
+            return query.containsKey(name) ? Integer.parseInt(query.get(name)) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"), URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static byte[] readBody(InputStream body) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            content.write(buffer, 0, read);
+        }
+        return content.toByteArray();
+    }
+
+    private static void sendOrNotFound(HttpExchange exchange, String json) throws IOException {
+        if (json == null) {
+            send(exchange, 404, errorMessages("The resource does not exist"));
+        } else {
+            send(exchange, 200, json);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, String json) throws IOException {
+        if (exchange.getAttribute(LOST_RESPONSE) != null) {
+            statusCode = SERVICE_UNAVAILABLE;
+            json = errorMessages("Injected lost response");
+        }
+        byte[] content = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(statusCode, content.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(content);
+        }
+    }
+}